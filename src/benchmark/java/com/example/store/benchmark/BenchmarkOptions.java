@@ -0,0 +1,64 @@
+package com.example.store.benchmark;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+   Command line options, each given as --name=value. Anything not supplied falls back to the defaults below, which
+   suit the local database and sample data described in the README.
+*/
+record BenchmarkOptions(
+        String jar,
+        int port,
+        Duration latency,
+        int poolSize,
+        int concurrency,
+        Duration warmUp,
+        Duration duration,
+        List<String> paths,
+        int ids) {
+
+    private static final Set<String> KNOWN_OPTIONS = Set.of(
+            "jar", "port", "latency", "pool-size", "concurrency", "warm-up", "duration", "paths", "ids");
+
+    static BenchmarkOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        Set<String> unknown = new HashSet<>(values.keySet());
+        unknown.removeAll(KNOWN_OPTIONS);
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + unknown);
+        }
+        String jar = values.getOrDefault("jar", System.getProperty("store.benchmark.jar"));
+        if (jar == null) {
+            throw new IllegalArgumentException("--jar is required when not run through ./gradlew loadBenchmark");
+        }
+        BenchmarkOptions options = new BenchmarkOptions(
+                jar,
+                Integer.parseInt(values.getOrDefault("port", "8090")),
+                Duration.ofMillis(Long.parseLong(values.getOrDefault("latency", "20"))),
+                Integer.parseInt(values.getOrDefault("pool-size", "50")),
+                Integer.parseInt(values.getOrDefault("concurrency", "400")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("warm-up", "10"))),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "30"))),
+                Arrays.asList(
+                        values.getOrDefault("paths", "/products/{id},/customer/autocomplete?prefix=jo")
+                                .split(",")),
+                Integer.parseInt(values.getOrDefault("ids", "1")));
+        if (options.poolSize < 1 || options.concurrency < 1 || options.ids < 1 || options.duration.isZero()) {
+            throw new IllegalArgumentException("pool-size, concurrency, ids and duration must be positive");
+        }
+        return options;
+    }
+}
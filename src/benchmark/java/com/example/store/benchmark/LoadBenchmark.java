@@ -0,0 +1,270 @@
+package com.example.store.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+   Compares the application running requests on Tomcat's platform threads with running them on virtual threads
+   (spring.threads.virtual.enabled), under the database latency injected by StatementCountingDataSource. See
+   "Virtual threads" in the README.
+
+   For each mode the application jar is started on its own, with the same injected latency and connection pool, and
+   loaded by 'concurrency' clients which each send their next request as soon as the last one is answered. Each client
+   takes the paths in turn, with {id} replaced by a random id from 1 to 'ids'. Nothing is recorded during the warm-up.
+
+   The default paths mix a read which needs the database, GET /products/{id}, with one served from memory,
+   GET /customer/autocomplete. With platform threads the database reads occupy Tomcat's threads while they wait for a
+   pooled connection and a round trip, so the in-memory reads queue behind them. A virtual thread which is waiting
+   holds no carrier, so with virtual threads only the database reads wait, on the connection pool.
+
+   The virtual thread run has -Djdk.tracePinnedThreads=short, and the distinct pinned stacks it prints are counted, so
+   a monitor held across a blocking call on the request path shows up in the results.
+*/
+public final class LoadBenchmark {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(1);
+    /*
+       jdk.tracePinnedThreads prints each distinct pinned stack once, headed by the thread it ran on. On JDK 21 the
+       virtual thread has already been unmounted by then, so the header is the carrier, e.g.
+       Thread[#22,ForkJoinPool-1-worker-1,5,CarrierThreads]
+    */
+    private static final String PINNED_STACK_PREFIX = "Thread[#";
+    private static final String PINNED_STACK_CARRIER = ",CarrierThreads]";
+
+    private record Result(String mode, Map<String, Recorder> byPath, long pinnedStacks) {}
+
+    private final BenchmarkOptions options;
+    private final HttpClient httpClient;
+
+    private LoadBenchmark(BenchmarkOptions options) {
+        this.options = options;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadBenchmark(BenchmarkOptions.parse(args)).run();
+    }
+
+    static void log(String format, Object... args) {
+        System.out.println(LocalTime.now().truncatedTo(ChronoUnit.SECONDS) + " " + format.formatted(args));
+    }
+
+    private void run() throws Exception {
+        log(
+                "%d clients, %s injected latency, %d pooled connections, paths %s",
+                options.concurrency(),
+                options.latency(),
+                options.poolSize(),
+                options.paths());
+        List<Result> results = List.of(measure(false), measure(true));
+
+        System.out.printf(
+                "%n%-9s %-45s %9s %7s %9s %8s %8s %8s%n",
+                "threads",
+                "path",
+                "requests",
+                "errors",
+                "req/s",
+                "p50 ms",
+                "p99 ms",
+                "max ms");
+        for (Result result : results) {
+            result.byPath().forEach((path, recorder) -> System.out.printf(
+                    "%-9s %-45s %9d %7d %9.1f %8.1f %8.1f %8.1f%n",
+                    result.mode(),
+                    path,
+                    recorder.count(),
+                    recorder.errors(),
+                    recorder.count() / (options.duration().toMillis() / 1000.0),
+                    millis(recorder.percentile(0.5)),
+                    millis(recorder.percentile(0.99)),
+                    millis(recorder.percentile(1.0))));
+        }
+        System.out.printf("%nPinned virtual thread stacks: %d%n", results.get(1).pinnedStacks());
+    }
+
+    private Result measure(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        Path logFile = Path.of("build", "benchmark", mode + ".log");
+        Files.createDirectories(logFile.getParent());
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        if (virtualThreads) {
+            command.add("-Djdk.tracePinnedThreads=short");
+        }
+        command.addAll(List.of(
+                "-jar",
+                options.jar(),
+                "--server.port=" + options.port(),
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--store.datasource.injected-latency=" + options.latency().toMillis() + "ms",
+                "--spring.datasource.hikari.maximum-pool-size=" + options.poolSize()));
+        log("Starting the application with %s threads, logging to %s", mode, logFile);
+        Process application = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+        Map<String, Recorder> byPath;
+        try {
+            awaitReady(application, logFile);
+            log("Warming up for %s then measuring for %s", options.warmUp(), options.duration());
+            byPath = load();
+        } finally {
+            application.destroy();
+            if (!application.waitFor(30, TimeUnit.SECONDS)) {
+                application.destroyForcibly().waitFor();
+            }
+        }
+        long pinnedStacks;
+        try (Stream<String> lines = Files.lines(logFile)) {
+            pinnedStacks = countPinnedStacks(lines);
+        }
+        return new Result(mode, byPath, pinnedStacks);
+    }
+
+    static long countPinnedStacks(Stream<String> lines) {
+        return lines.filter(line -> line.startsWith(PINNED_STACK_PREFIX) && line.endsWith(PINNED_STACK_CARRIER))
+                .count();
+    }
+
+    private void awaitReady(Process application, Path logFile) throws Exception {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        HttpRequest health = HttpRequest.newBuilder(uri("/actuator/health"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        while (System.nanoTime() < deadline) {
+            if (!application.isAlive()) {
+                throw new IllegalStateException("The application exited, see " + logFile);
+            }
+            try {
+                if (httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("The application was not ready within " + STARTUP_TIMEOUT + ", see " + logFile);
+    }
+
+    private Map<String, Recorder> load() throws Exception {
+        long measureFrom = System.nanoTime() + options.warmUp().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        List<Future<Map<String, Recorder>>> clients = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < options.concurrency(); client++) {
+                int seed = client;
+                clients.add(executor.submit(() -> client(seed, measureFrom, end)));
+            }
+        }
+        Map<String, Recorder> byPath = new LinkedHashMap<>();
+        options.paths().forEach(path -> byPath.put(path, new Recorder()));
+        for (Future<Map<String, Recorder>> client : clients) {
+            client.get().forEach((path, recorder) -> byPath.get(path).add(recorder));
+        }
+        return byPath;
+    }
+
+    private Map<String, Recorder> client(int seed, long measureFrom, long end) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<String, Recorder> byPath = new LinkedHashMap<>();
+        for (int request = seed; ; request++) {
+            String path = options.paths().get(request % options.paths().size());
+            long sent = System.nanoTime();
+            if (sent >= end) {
+                return byPath;
+            }
+            String id = String.valueOf(random.nextInt(1, options.ids() + 1));
+            HttpRequest httpRequest = HttpRequest.newBuilder(uri(path.replace("{id}", id)))
+                    .timeout(REQUEST_TIMEOUT)
+                    .build();
+            boolean succeeded;
+            try {
+                HttpResponse<Void> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.discarding());
+                succeeded = response.statusCode() == 200;
+            } catch (IOException ex) {
+                succeeded = false;
+            }
+            long received = System.nanoTime();
+            if (sent >= measureFrom) {
+                byPath.computeIfAbsent(path, p -> new Recorder()).record(received - sent, succeeded);
+            }
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + options.port() + path);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /*
+       The response times of one path, in nanoseconds. Each client has its own, merged once the load is over.
+    */
+    private static final class Recorder {
+
+        private long[] times = new long[1024];
+        private int count;
+        private int errors;
+
+        void record(long nanos, boolean succeeded) {
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+            }
+            times[count++] = nanos;
+            if (!succeeded) {
+                errors++;
+            }
+        }
+
+        void add(Recorder other) {
+            times = Arrays.copyOf(times, Math.max(times.length, count + other.count));
+            System.arraycopy(other.times, 0, times, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        int count() {
+            return count;
+        }
+
+        int errors() {
+            return errors;
+        }
+
+        long percentile(double fraction) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(times, count);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(count - 1, Math.ceil(fraction * count) - 1)];
+        }
+    }
+}
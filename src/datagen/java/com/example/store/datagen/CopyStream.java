@@ -0,0 +1,93 @@
+package com.example.store.datagen;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/*
+   Feeds rows to a COPY ... FROM STDIN in text format. Rows are encoded into a local buffer and handed to the driver
+   in large chunks, so the cost per row is building a few bytes rather than a call into the driver.
+*/
+final class CopyStream implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final CopyIn copyIn;
+    private final StringBuilder row = new StringBuilder(256);
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int length;
+    private boolean firstField = true;
+
+    CopyStream(Connection connection, String copySql) throws SQLException {
+        copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+    }
+
+    CopyStream field(long value) {
+        separate();
+        row.append(value);
+        return this;
+    }
+
+    CopyStream field(String value) {
+        separate();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> row.append("\\\\");
+                case '\t' -> row.append("\\t");
+                case '\n' -> row.append("\\n");
+                case '\r' -> row.append("\\r");
+                default -> row.append(c);
+            }
+        }
+        return this;
+    }
+
+    void endRow() throws SQLException {
+        row.append('\n');
+        byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+        row.setLength(0);
+        firstField = true;
+        if (length + bytes.length > buffer.length) {
+            flush();
+        }
+        if (bytes.length > buffer.length) {
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            return;
+        }
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    /*
+       Completes the COPY and returns the number of rows the server accepted.
+    */
+    long finish() throws SQLException {
+        flush();
+        return copyIn.endCopy();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (copyIn.isActive()) {
+            copyIn.cancelCopy();
+        }
+    }
+
+    private void separate() {
+        if (!firstField) {
+            row.append('\t');
+        }
+        firstField = false;
+    }
+
+    private void flush() throws SQLException {
+        if (length > 0) {
+            copyIn.writeToCopy(buffer, 0, length);
+            length = 0;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.store.datagen;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+
+/*
+   Replaces the contents of the store tables with a generated dataset of configurable size, see utils/README.md.
+
+   Order volume per customer and product popularity both follow a Zipf distribution, so a few customers have a great
+   many orders and a few products appear in most orders, much like production data and unlike a uniform spread.
+   The same seed always produces the same dataset.
+
+   Everything runs in one transaction, so a failed load leaves the previous data and schema untouched.
+   Orders are written in two passes over the same random sequence, the first for "order" and the second for
+   order_product. That keeps a single connection, and so a single transaction, without holding the orders in memory.
+*/
+public final class DatasetGenerator {
+
+    private static final String[] TABLES = {"customer", "product", "\"order\"", "order_product"};
+    private static final long PROGRESS_INTERVAL = 1_000_000;
+
+    @FunctionalInterface
+    private interface OrderVisitor {
+        void visit(long orderId, String description, long customerId, long[] productIds, int productCount)
+                throws SQLException;
+    }
+
+    private final DatasetOptions options;
+
+    private DatasetGenerator(DatasetOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        new DatasetGenerator(DatasetOptions.parse(args)).run();
+    }
+
+    static void log(String format, Object... args) {
+        System.out.println(LocalTime.now().truncatedTo(ChronoUnit.SECONDS) + " " + format.formatted(args));
+    }
+
+    private void run() throws SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(options.url(), options.user(), options.password())) {
+            connection.setAutoCommit(false);
+            try {
+                SecondaryStructures structures = SecondaryStructures.capture(connection, TABLES);
+                structures.drop(connection);
+                execute(connection, "TRUNCATE " + String.join(", ", TABLES) + " RESTART IDENTITY");
+
+                loadCustomers(connection);
+                loadProducts(connection);
+                loadOrders(connection);
+
+                structures.restore(connection);
+                execute(connection, "SELECT setval('customer_id_seq', " + options.customers() + ")");
+                execute(connection, "SELECT setval('product_id_seq', " + options.products() + ")");
+                if (options.orders() > 0) {
+                    execute(connection, "SELECT setval('order_id_seq', " + options.orders() + ")");
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            }
+            // ANALYZE can't see the new rows until they're committed, and the planner needs the statistics
+            connection.setAutoCommit(true);
+            log("Analyzing");
+            execute(connection, "ANALYZE " + String.join(", ", TABLES));
+        }
+        log("Done in %s", Duration.ofNanos(System.nanoTime() - start).truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    private void loadCustomers(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(options.seed());
+        try (CopyStream copy = new CopyStream(connection, "COPY customer (id, name) FROM STDIN")) {
+            for (long id = 1; id <= options.customers(); id++) {
+                copy.field(id).field(NameGenerator.customerName(random)).endRow();
+            }
+            log("Loaded %d customers", copy.finish());
+        }
+    }
+
+    private void loadProducts(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(options.seed() + 1);
+        try (CopyStream copy = new CopyStream(connection, "COPY product (id, description) FROM STDIN")) {
+            for (long id = 1; id <= options.products(); id++) {
+                copy.field(id).field(NameGenerator.productName(random)).endRow();
+            }
+            log("Loaded %d products", copy.finish());
+        }
+    }
+
+    private void loadOrders(Connection connection) throws SQLException {
+        ZipfSampler customers = new ZipfSampler(options.customers(), options.customerSkew());
+        ZipfSampler products = new ZipfSampler(options.products(), options.productSkew());
+        try (CopyStream copy =
+                new CopyStream(connection, "COPY \"order\" (id, description, customer_id) FROM STDIN")) {
+            generateOrders(customers, products, (orderId, description, customerId, productIds, productCount) -> {
+                copy.field(orderId).field(description).field(customerId).endRow();
+                logProgress("order rows", orderId);
+            });
+            log("Loaded %d orders", copy.finish());
+        }
+        try (CopyStream copy = new CopyStream(connection, "COPY order_product (order_id, product_id) FROM STDIN")) {
+            generateOrders(customers, products, (orderId, description, customerId, productIds, productCount) -> {
+                for (int i = 0; i < productCount; i++) {
+                    copy.field(orderId).field(productIds[i]).endRow();
+                }
+                logProgress("product links", orderId);
+            });
+            log("Loaded %d order products", copy.finish());
+        }
+    }
+
+    /*
+       Replays the same orders on every call. Each order has between 1 and maxProductsPerOrder distinct products,
+       with small orders the most common.
+    */
+    private void generateOrders(ZipfSampler customers, ZipfSampler products, OrderVisitor visitor)
+            throws SQLException {
+        SplittableRandom random = new SplittableRandom(options.seed() + 2);
+        int maxProducts = Math.min(options.maxProductsPerOrder(), options.products());
+        long[] productIds = new long[maxProducts];
+        for (long orderId = 1; orderId <= options.orders(); orderId++) {
+            String description = NameGenerator.productName(random);
+            long customerId = customers.sample(random);
+            int productCount = 1;
+            while (productCount < maxProducts && random.nextDouble() < 0.45) {
+                productCount++;
+            }
+            for (int i = 0; i < productCount; i++) {
+                productIds[i] = distinctProduct(products, random, productIds, i);
+            }
+            visitor.visit(orderId, description, customerId, productIds, productCount);
+        }
+    }
+
+    private static long distinctProduct(ZipfSampler products, SplittableRandom random, long[] chosen, int count) {
+        while (true) {
+            long candidate = products.sample(random);
+            boolean duplicate = false;
+            for (int i = 0; i < count && !duplicate; i++) {
+                duplicate = chosen[i] == candidate;
+            }
+            if (!duplicate) {
+                return candidate;
+            }
+        }
+    }
+
+    private static void logProgress(String what, long orderId) {
+        if (orderId % PROGRESS_INTERVAL == 0) {
+            log("Written %s for %d orders", what, orderId);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
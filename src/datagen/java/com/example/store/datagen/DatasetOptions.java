@@ -0,0 +1,66 @@
+package com.example.store.datagen;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/*
+   Command line options, each given as --name=value. Anything not supplied falls back to the defaults below, which
+   match the local database described in the README.
+*/
+record DatasetOptions(
+        String url,
+        String user,
+        String password,
+        int customers,
+        int products,
+        long orders,
+        int maxProductsPerOrder,
+        double customerSkew,
+        double productSkew,
+        long seed) {
+
+    private static final Set<String> KNOWN_OPTIONS = Set.of(
+            "url",
+            "user",
+            "password",
+            "customers",
+            "products",
+            "orders",
+            "max-products-per-order",
+            "customer-skew",
+            "product-skew",
+            "seed");
+
+    static DatasetOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        DatasetOptions options = new DatasetOptions(
+                values.getOrDefault("url", "jdbc:postgresql://localhost:5433/store"),
+                values.getOrDefault("user", "admin"),
+                values.getOrDefault("password", "admin"),
+                Integer.parseInt(values.getOrDefault("customers", "1000000")),
+                Integer.parseInt(values.getOrDefault("products", "10000")),
+                Long.parseLong(values.getOrDefault("orders", "10000000")),
+                Integer.parseInt(values.getOrDefault("max-products-per-order", "5")),
+                Double.parseDouble(values.getOrDefault("customer-skew", "0.8")),
+                Double.parseDouble(values.getOrDefault("product-skew", "1.1")),
+                Long.parseLong(values.getOrDefault("seed", "42")));
+        Set<String> unknown = new HashSet<>(values.keySet());
+        unknown.removeAll(KNOWN_OPTIONS);
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + unknown);
+        }
+        if (options.customers < 1 || options.products < 1 || options.orders < 0 || options.maxProductsPerOrder < 1) {
+            throw new IllegalArgumentException("customers, products and max-products-per-order must be positive");
+        }
+        return options;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.store.datagen;
+
+import java.util.SplittableRandom;
+
+/*
+   Customer names and product descriptions in the style of the faker output in utils/generateData.js.
+   Names are built from word lists so the customer search has realistic token overlap to work with.
+*/
+final class NameGenerator {
+
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William", "Elizabeth", "David",
+        "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen", "Christopher",
+        "Nancy", "Daniel", "Lisa", "Matthew", "Betty", "Anthony", "Margaret", "Mark", "Sandra", "Donald", "Ashley",
+        "Steven", "Kimberly", "Paul", "Emily", "Andrew", "Donna", "Joshua", "Michelle", "Kenneth", "Carol", "Kevin",
+        "Amanda", "Brian", "Dorothy", "George", "Melissa", "Timothy", "Deborah"
+    };
+
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+        "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson", "Walker",
+        "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores", "Green", "Adams", "Nelson",
+        "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter", "Roberts"
+    };
+
+    private static final String[] ADJECTIVES = {
+        "Small", "Ergonomic", "Rustic", "Intelligent", "Gorgeous", "Incredible", "Fantastic", "Practical", "Sleek",
+        "Awesome", "Generic", "Handcrafted", "Handmade", "Licensed", "Refined", "Unbranded", "Tasty", "Modern",
+        "Elegant", "Luxurious"
+    };
+
+    private static final String[] MATERIALS = {
+        "Steel", "Wooden", "Concrete", "Plastic", "Cotton", "Granite", "Rubber", "Metal", "Soft", "Fresh", "Frozen",
+        "Bronze", "Silk", "Marble", "Leather"
+    };
+
+    private static final String[] PRODUCTS = {
+        "Chair", "Car", "Computer", "Keyboard", "Mouse", "Bike", "Ball", "Gloves", "Pants", "Shirt", "Table", "Shoes",
+        "Hat", "Towels", "Soap", "Tuna", "Chicken", "Fish", "Cheese", "Bacon", "Pizza", "Salad", "Sausages", "Chips"
+    };
+
+    private NameGenerator() {}
+
+    static String customerName(SplittableRandom random) {
+        return pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random);
+    }
+
+    static String productName(SplittableRandom random) {
+        return pick(ADJECTIVES, random) + " " + pick(MATERIALS, random) + " " + pick(PRODUCTS, random);
+    }
+
+    private static String pick(String[] words, SplittableRandom random) {
+        return words[random.nextInt(words.length)];
+    }
+}
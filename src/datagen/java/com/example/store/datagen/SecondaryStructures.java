@@ -0,0 +1,98 @@
+package com.example.store.datagen;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+   Foreign keys and secondary indexes on the store tables, captured from the catalog so whatever the Liquibase
+   changesets have created is dropped before the load and recreated afterwards.
+   Checking a foreign key per row and maintaining indexes per row dominate the cost of a large COPY, whereas adding
+   them back afterwards is a single sort or join per structure.
+   Primary keys are left in place since the sequences and the other constraints depend on them.
+*/
+final class SecondaryStructures {
+
+    private static final String FOREIGN_KEYS_SQL =
+            """
+            SELECT conrelid::regclass::text AS table_name, quote_ident(conname) AS name,
+                   pg_get_constraintdef(oid) AS definition
+            FROM pg_constraint
+            WHERE contype = 'f' AND conrelid::regclass::text = ANY(?)
+            ORDER BY conname
+            """;
+
+    private static final String INDEXES_SQL =
+            """
+            SELECT i.indexrelid::regclass::text AS name, pg_get_indexdef(i.indexrelid) AS definition
+            FROM pg_index i
+            WHERE i.indrelid::regclass::text = ANY(?)
+              AND NOT EXISTS (
+                  SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid AND c.contype IN ('p', 'u', 'x'))
+            ORDER BY 1
+            """;
+
+    private record ForeignKey(String table, String name, String definition) {}
+
+    private record Index(String name, String definition) {}
+
+    private final List<ForeignKey> foreignKeys;
+    private final List<Index> indexes;
+
+    private SecondaryStructures(List<ForeignKey> foreignKeys, List<Index> indexes) {
+        this.foreignKeys = foreignKeys;
+        this.indexes = indexes;
+    }
+
+    static SecondaryStructures capture(Connection connection, String... tables) throws SQLException {
+        List<ForeignKey> foreignKeys = new ArrayList<>();
+        List<Index> indexes = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(FOREIGN_KEYS_SQL)) {
+            statement.setArray(1, connection.createArrayOf("text", tables));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    foreignKeys.add(new ForeignKey(
+                            rs.getString("table_name"), rs.getString("name"), rs.getString("definition")));
+                }
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(INDEXES_SQL)) {
+            statement.setArray(1, connection.createArrayOf("text", tables));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    indexes.add(new Index(rs.getString("name"), rs.getString("definition")));
+                }
+            }
+        }
+        return new SecondaryStructures(foreignKeys, indexes);
+    }
+
+    void drop(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (ForeignKey foreignKey : foreignKeys) {
+                statement.execute("ALTER TABLE " + foreignKey.table() + " DROP CONSTRAINT " + foreignKey.name());
+            }
+            for (Index index : indexes) {
+                statement.execute("DROP INDEX " + index.name());
+            }
+        }
+    }
+
+    void restore(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (Index index : indexes) {
+                DatasetGenerator.log("Creating index %s", index.name());
+                statement.execute(index.definition());
+            }
+            for (ForeignKey foreignKey : foreignKeys) {
+                DatasetGenerator.log("Adding foreign key %s", foreignKey.name());
+                statement.execute("ALTER TABLE " + foreignKey.table() + " ADD CONSTRAINT " + foreignKey.name() + " "
+                        + foreignKey.definition());
+            }
+        }
+    }
+}
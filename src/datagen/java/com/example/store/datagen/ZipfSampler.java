@@ -0,0 +1,51 @@
+package com.example.store.datagen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+   Draws IDs in 1..n where the k-th most popular ID is picked with probability proportional to 1/k^skew.
+   A skew of 0 is uniform, around 1 is the classic Zipf shape where a handful of IDs dominate.
+
+   Sampling is a binary search over the precomputed CDF, so memory is 8 bytes per ID. Ranks are scattered over the ID
+   space with a fixed stride, otherwise the popular rows would all be the lowest IDs and sit in the same few pages.
+*/
+final class ZipfSampler {
+
+    private final double[] cdf;
+    private final long stride;
+
+    ZipfSampler(int n, double skew) {
+        cdf = new double[n];
+        double total = 0;
+        for (int rank = 1; rank <= n; rank++) {
+            total += 1 / Math.pow(rank, skew);
+            cdf[rank - 1] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= total;
+        }
+        stride = coprimeStride(n);
+    }
+
+    long sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = index >= 0 ? index : Math.min(-index - 1, cdf.length - 1);
+        return rank * stride % cdf.length + 1;
+    }
+
+    /*
+       Any stride which shares no factor with n visits every ID exactly once, keeping the mapping a permutation.
+    */
+    private static long coprimeStride(int n) {
+        long stride = Math.max(1, Math.round(n * 0.618));
+        while (gcd(stride, n) != 1) {
+            stride++;
+        }
+        return stride;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
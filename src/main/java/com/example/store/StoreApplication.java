@@ -2,8 +2,17 @@ package com.example.store;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication(scanBasePackages = "com.example.store")
+/*
+   R2DBC is on the classpath for the reactive read path, which owns its connection pool (see ReactiveConfiguration).
+   Boot's R2DBC auto-configuration would otherwise add a ConnectionFactory bean, which turns the JDBC DataSource off,
+   and a second transaction manager.
+*/
+@SpringBootApplication(
+        scanBasePackages = "com.example.store",
+        exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class StoreApplication {
 
     public static void main(String[] args) {
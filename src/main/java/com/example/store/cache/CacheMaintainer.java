@@ -0,0 +1,338 @@
+package com.example.store.cache;
+
+import com.example.store.configuration.CacheConfiguration;
+import com.example.store.controller.CustomerSearchKey;
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.dto.PageDTO;
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductSummaryDTO;
+import com.example.store.event.CacheCoherenceLostEvent;
+import com.example.store.event.CustomerCreatedEvent;
+import com.example.store.event.OrderCreatedEvent;
+import com.example.store.event.OrdersImportedEvent;
+import com.example.store.event.ProductCreatedEvent;
+import com.example.store.event.RemoteChangeEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+   Keeps the cached listings up to date as orders and customers are created, instead of evicting whole caches on
+   every write:
+   * a new order is cached by id, appended to the cached order list and added to every cached page of orders it
+     falls in. The customer's cached CustomerDTO, in the customers cache and in the customer listings, gets the
+     order added to its orders.
+   * a new customer is cached by id, appended to the cached customer list and added to the pages it falls in.
+   * a new product is appended to the cached product list, and a new order is added to the order ids of its products
+     there.
+   * a new customer evicts the cached searches its name matches (see CustomerSearchKey), and no others. A new order
+     is added to its customer in the cached search results.
+   * a bulk import does not say which orders it created, so the listings it can change are cleared.
+   * a write by another instance evicts what it can change, see onRemoteChange.
+
+   The cached values are shared with every reader, so they are never modified. Each change replaces the entry with
+   an updated copy, atomically per key through the cache's map view.
+
+   A page caches the first 'limit' rows after 'after' (see OrderController.getOrderPage), so a new row only changes
+   the pages whose range it falls in, and the result is exactly what reloading the page would give.
+
+   Should anything go wrong, the cache is cleared rather than left stale. A load which started before a change is not
+   cached once the change has been made, see CoalescingCaffeineCache.
+*/
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CacheMaintainer {
+
+    // The keys of the keyset pages, see the @Cacheable keys of getOrderPage and getCustomerPage
+    private static final Pattern PAGE_KEY = Pattern.compile("page:(\\d+):(\\d+)");
+
+    private static final List<String> IMPORT_AFFECTED_CACHES = List.of(
+            CacheConfiguration.ALL_ORDERS,
+            CacheConfiguration.ALL_CUSTOMERS,
+            CacheConfiguration.CUSTOMERS,
+            CacheConfiguration.ALL_PRODUCTS,
+            CacheConfiguration.CUSTOMER_SEARCH);
+
+    private final CacheManager cacheManager;
+
+    // Before CollectionVersions moves the ETags on
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        OrderDTO order = event.order();
+        update(CacheConfiguration.ORDERS, entries -> entries.put(order.getId(), order));
+        update(CacheConfiguration.ALL_ORDERS, entries -> addToListings(entries, order, OrderDTO::getId));
+
+        CustomerOrderDTO customerOrder = new CustomerOrderDTO();
+        customerOrder.setId(order.getId());
+        customerOrder.setDescription(order.getDescription());
+        Long customerId = order.getCustomer().getId();
+        UnaryOperator<CustomerDTO> addOrder = customer -> withOrder(customer, customerOrder);
+        update(CacheConfiguration.CUSTOMERS, entries -> entries.computeIfPresent(
+                customerId, (key, value) -> value instanceof CustomerDTO customer ? addOrder.apply(customer) : value));
+        update(
+                CacheConfiguration.ALL_CUSTOMERS,
+                entries -> replaceInListings(entries, customerId, CustomerDTO::getId, addOrder));
+        update(
+                CacheConfiguration.CUSTOMER_SEARCH,
+                entries -> replaceInListings(entries, customerId, CustomerDTO::getId, addOrder));
+
+        UnaryOperator<ProductSummaryDTO> addOrderId = product -> withOrderId(product, order.getId());
+        for (OrderProductDTO product : order.getProducts()) {
+            update(
+                    CacheConfiguration.ALL_PRODUCTS,
+                    entries -> replaceInListings(entries, product.getId(), ProductSummaryDTO::getId, addOrderId));
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onOrdersImported(OrdersImportedEvent event) {
+        IMPORT_AFFECTED_CACHES.forEach(this::clear);
+    }
+
+    /*
+       Another instance only says what it wrote, so whatever may include it is evicted. A new order is not cached by
+       id anywhere yet. The name of a new customer is not sent, so every cached search may include it.
+    */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRemoteChange(RemoteChangeEvent event) {
+        switch (event.collection()) {
+            case ORDERS -> {
+                clear(CacheConfiguration.ALL_ORDERS);
+                clear(CacheConfiguration.ALL_CUSTOMERS);
+                if (event.customerId() == null) {
+                    clear(CacheConfiguration.CUSTOMERS);
+                    clear(CacheConfiguration.CUSTOMER_SEARCH);
+                } else {
+                    evict(CacheConfiguration.CUSTOMERS, event.customerId());
+                    update(
+                            CacheConfiguration.CUSTOMER_SEARCH,
+                            entries -> entries.values().removeIf(value -> includesCustomer(value, event.customerId())));
+                }
+                clear(CacheConfiguration.ALL_PRODUCTS);
+            }
+            case CUSTOMERS -> {
+                clear(CacheConfiguration.ALL_CUSTOMERS);
+                clear(CacheConfiguration.CUSTOMER_SEARCH);
+            }
+            case PRODUCTS -> clear(CacheConfiguration.ALL_PRODUCTS);
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCacheCoherenceLost(CacheCoherenceLostEvent event) {
+        cacheManager.getCacheNames().forEach(this::clear);
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCustomerCreated(CustomerCreatedEvent event) {
+        CustomerDTO customer = event.customer();
+        update(CacheConfiguration.CUSTOMERS, entries -> entries.put(customer.getId(), customer));
+        update(CacheConfiguration.ALL_CUSTOMERS, entries -> addToListings(entries, customer, CustomerDTO::getId));
+        String name = customer.getName();
+        update(
+                CacheConfiguration.CUSTOMER_SEARCH,
+                entries -> entries.keySet()
+                        .removeIf(key -> key instanceof CustomerSearchKey search && search.matches(name)));
+    }
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductCreated(ProductCreatedEvent event) {
+        ProductDTO product = event.product();
+        ProductSummaryDTO summary = ProductSummaryDTO.builder()
+                .id(product.getId())
+                .description(product.getDescription())
+                .build();
+        update(CacheConfiguration.ALL_PRODUCTS, entries -> addToListings(entries, summary, ProductSummaryDTO::getId));
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    private void update(String cacheName, Consumer<ConcurrentMap<Object, Object>> change) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        try {
+            if (cache instanceof CoalescingCaffeineCache coalescingCache) {
+                // So a load which started before this write does not put what it read over it
+                coalescingCache.invalidateLoads();
+            }
+            if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                @SuppressWarnings("unchecked")
+                ConcurrentMap<Object, Object> entries = (ConcurrentMap<Object, Object>) nativeCache.asMap();
+                change.accept(entries);
+            } else {
+                // No way to enumerate the keys of this cache
+                cache.clear();
+            }
+        } catch (RuntimeException ex) {
+            // If the caching isn't working we don't want the application to fail
+            log.warn("Failed to update the {} cache, clearing it", cacheName, ex);
+            cache.clear();
+        }
+    }
+
+    private static <T> void addToListings(ConcurrentMap<Object, Object> entries, T item, Function<T, Long> id) {
+        for (Object key : entries.keySet()) {
+            entries.computeIfPresent(key, (k, value) -> {
+                if (value instanceof List<?> list) {
+                    return appended(list, item, id);
+                }
+                Matcher page = PAGE_KEY.matcher(String.valueOf(k));
+                if (value instanceof PageDTO<?> pageDTO && page.matches()) {
+                    return inserted(pageDTO, Long.parseLong(page.group(1)), Integer.parseInt(page.group(2)), item, id);
+                }
+                return value;
+            });
+        }
+    }
+
+    private static <T> void replaceInListings(
+            ConcurrentMap<Object, Object> entries, Long itemId, Function<T, Long> id, UnaryOperator<T> change) {
+        for (Object key : entries.keySet()) {
+            entries.computeIfPresent(key, (k, value) -> {
+                if (value instanceof List<?> list) {
+                    return replaced(list, itemId, id, change);
+                }
+                if (value instanceof PageDTO<?> page) {
+                    List<T> items = replaced(page.getItems(), itemId, id, change);
+                    return items == page.getItems()
+                            ? page
+                            : PageDTO.<T>builder().items(items).next(page.getNext()).build();
+                }
+                return value;
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> appended(List<?> list, T item, Function<T, Long> id) {
+        List<T> items = (List<T>) list;
+        if (indexOf(items, id.apply(item), id) >= 0) {
+            // The listing was loaded after the row was committed
+            return items;
+        }
+        List<T> copy = new ArrayList<>(items.size() + 1);
+        copy.addAll(items);
+        copy.add(item);
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> PageDTO<T> inserted(PageDTO<?> pageDTO, long after, int limit, T item, Function<T, Long> id) {
+        PageDTO<T> page = (PageDTO<T>) pageDTO;
+        List<T> items = page.getItems();
+        long itemId = id.apply(item);
+        if (itemId <= after
+                || (items.size() >= limit && itemId > id.apply(items.get(items.size() - 1)))
+                || indexOf(items, itemId, id) >= 0) {
+            return page;
+        }
+        int position = 0;
+        while (position < items.size() && id.apply(items.get(position)) < itemId) {
+            position++;
+        }
+        List<T> copy = new ArrayList<>(items.size() + 1);
+        copy.addAll(items);
+        copy.add(position, item);
+        if (copy.size() > limit) {
+            // The last row moves on to the following page
+            copy.remove(limit);
+        }
+        return PageDTO.of(copy, limit, id);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> replaced(List<?> list, Long itemId, Function<T, Long> id, UnaryOperator<T> change) {
+        List<T> items = (List<T>) list;
+        int index = indexOf(items, itemId, id);
+        if (index < 0) {
+            return items;
+        }
+        List<T> copy = new ArrayList<>(items);
+        copy.set(index, change.apply(items.get(index)));
+        return copy;
+    }
+
+    private static boolean includesCustomer(Object value, Long customerId) {
+        return value instanceof List<?> list
+                && list.stream().anyMatch(item -> item instanceof CustomerDTO customer
+                        && customerId.equals(customer.getId()));
+    }
+
+    private static <T> int indexOf(List<T> items, Long itemId, Function<T, Long> id) {
+        for (int i = 0; i < items.size(); i++) {
+            if (itemId.equals(id.apply(items.get(i)))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static CustomerDTO withOrder(CustomerDTO customer, CustomerOrderDTO order) {
+        List<CustomerOrderDTO> orders = customer.getOrders() == null ? List.of() : customer.getOrders();
+        if (orders.stream().anyMatch(o -> order.getId().equals(o.getId()))) {
+            return customer;
+        }
+        CustomerDTO copy = new CustomerDTO();
+        copy.setId(customer.getId());
+        copy.setName(customer.getName());
+        copy.setOrders(new ArrayList<>(orders.size() + 1));
+        copy.getOrders().addAll(orders);
+        copy.getOrders().add(order);
+        return copy;
+    }
+
+    private static ProductSummaryDTO withOrderId(ProductSummaryDTO product, Long orderId) {
+        List<Long> orders = product.getOrders() == null ? List.of() : product.getOrders();
+        if (orders.contains(orderId)) {
+            return product;
+        }
+        List<Long> orderIds = new ArrayList<>(orders.size() + 1);
+        orderIds.addAll(orders);
+        orderIds.add(orderId);
+        return ProductSummaryDTO.builder()
+                .id(product.getId())
+                .description(product.getDescription())
+                .orders(orderIds)
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.store.cache;
+
+import com.example.store.coalescing.SingleFlight;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+   The loads of the @Cacheable(sync = true) reads. Concurrent misses on a key share one load through SingleFlight, named
+   after the cache, rather than Caffeine's compute. So no lock is held for the database round trip, which would pin a
+   virtual thread to its carrier, and a caller waiting on a struggling load gives up with a 503.
+
+   A load only caches its result if nothing has written to the cache since it started. Otherwise it may have read the
+   tables before a write which CacheMaintainer has since applied, or found nothing to apply to, and putting it would
+   undo that write until the entry expires. Every write counts, whatever its key, so a load racing an unrelated write
+   is not cached either and the next miss loads again. The result is still returned to its callers.
+
+   Only the leader of a shared load puts its result. A caller which joined it after a write would otherwise put the
+   result the leader held back.
+*/
+public class CoalescingCaffeineCache extends CaffeineCache {
+
+    private final SingleFlight singleFlight;
+    private final AtomicLong writes = new AtomicLong();
+
+    public CoalescingCaffeineCache(
+            String name,
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+            boolean allowNullValues,
+            SingleFlight singleFlight) {
+        super(name, cache, allowNullValues);
+        this.singleFlight = singleFlight;
+    }
+
+    /*
+       Called by whatever changes the cache through its native map, before it does, see CacheMaintainer
+    */
+    public void invalidateLoads() {
+        writes.incrementAndGet();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        return singleFlight.execute(getName(), key, () -> load(key, valueLoader));
+    }
+
+    @Override
+    public void evict(Object key) {
+        invalidateLoads();
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        invalidateLoads();
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        invalidateLoads();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        invalidateLoads();
+        return super.invalidate();
+    }
+
+    private <T> T load(Object key, Callable<T> valueLoader) {
+        long loadedAfter = writes.get();
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (RuntimeException ex) {
+            // The controller's own exception, wrapped by Spring's cache interceptor which unwraps it again
+            throw ex;
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        Object storeValue = toStoreValue(value);
+        getNativeCache().asMap().compute(key, (k, current) -> writes.get() == loadedAfter ? storeValue : current);
+        return value;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.store.cache;
+
+import com.example.store.event.CacheCoherenceLostEvent;
+import com.example.store.event.CustomerCreatedEvent;
+import com.example.store.event.OrderCreatedEvent;
+import com.example.store.event.OrdersImportedEvent;
+import com.example.store.event.ProductCreatedEvent;
+import com.example.store.event.RemoteChangeEvent;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+   A version counter per collection, bumped whenever a row is added to it. The ETag of a response is the versions of
+   the collections it is built from, see VersionedBy.
+
+   The counters live in memory, so the ETags start with an epoch picked at random when the process starts. An ETag
+   from before a restart, or from another instance, then never matches and the client just gets a full response.
+
+   A version is bumped after the write has committed and after CacheMaintainer has updated the caches, hence the
+   lowest precedence. A request reading the new version therefore also reads the new data. The other way round, a
+   client could hold the old body under the new ETag and be told it is not modified until the next write.
+
+   Writes by other instances arrive as a RemoteChangeEvent, see CacheInvalidationListener.
+   Writes which bypass the controllers, such as the dataset generator, are not seen. Restart the application after
+   loading data that way.
+*/
+public class CollectionVersions {
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLongArray versions = new AtomicLongArray(VersionedCollection.values().length);
+
+    public void bump(VersionedCollection collection) {
+        versions.incrementAndGet(collection.ordinal());
+    }
+
+    public long version(VersionedCollection collection) {
+        return versions.get(collection.ordinal());
+    }
+
+    /*
+       A strong ETag, e.g. "k2j4h1x9a-12.3"
+    */
+    public String etag(VersionedCollection... collections) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch).append('-');
+        for (int i = 0; i < collections.length; i++) {
+            if (i > 0) {
+                etag.append('.');
+            }
+            etag.append(version(collections[i]));
+        }
+        return etag.append('"').toString();
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        bump(VersionedCollection.ORDERS);
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onOrdersImported(OrdersImportedEvent event) {
+        bump(VersionedCollection.ORDERS);
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCustomerCreated(CustomerCreatedEvent event) {
+        bump(VersionedCollection.CUSTOMERS);
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onProductCreated(ProductCreatedEvent event) {
+        bump(VersionedCollection.PRODUCTS);
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onRemoteChange(RemoteChangeEvent event) {
+        bump(event.collection());
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCacheCoherenceLost(CacheCoherenceLostEvent event) {
+        for (VersionedCollection collection : VersionedCollection.values()) {
+            bump(collection);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.store.cache;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/*
+   ETags and conditional GETs for the @VersionedBy endpoints.
+*/
+@Configuration
+public class ConditionalGetConfiguration implements WebMvcConfigurer {
+
+    @Bean
+    public CollectionVersions collectionVersions() {
+        return new CollectionVersions();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ConditionalGetInterceptor(collectionVersions()));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.store.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Collections;
+
+/*
+   Works out the ETag of @VersionedBy handlers before they run, so it is never newer than what they read, and leaves it
+   in a request attribute for ConditionalGetResponseAdvice, which sends it once the handler has succeeded. A 404 or 400
+   therefore carries no ETag for a client to replay.
+
+   A matching If-None-Match on a handler without parameters, an unpaged listing which always exists, is answered with
+   304 Not Modified here, so it reads neither the cache nor the database and serializes nothing. Any other handler may
+   still find nothing or reject its parameters, so it runs first and ConditionalGetResponseAdvice answers the 304.
+
+   The gzipped body of a response is a different representation from the plain one, so RenderedResponseAdvice gives
+   it its own ETag with a -gzip suffix. Either is accepted here: the versions are what says whether it changed.
+*/
+@RequiredArgsConstructor
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    static final String ETAG_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".etag";
+
+    private final CollectionVersions collectionVersions;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)
+                || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return true;
+        }
+        VersionedBy versionedBy = handlerMethod.getMethodAnnotation(VersionedBy.class);
+        if (versionedBy == null) {
+            return true;
+        }
+        String etag = collectionVersions.etag(versionedBy.value());
+        if (handlerMethod.getMethodParameters().length == 0) {
+            String matched = match(etag, request);
+            if (matched != null) {
+                notModified(response, matched);
+                return false;
+            }
+        }
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        return true;
+    }
+
+    static void notModified(HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    /*
+       The ETag of ours which the client holds, if any. If-None-Match uses the weak comparison, so W/ is ignored.
+    */
+    static String match(String etag, HttpServletRequest request) {
+        String gzipEtag = RenderedResponseAdvice.gzipEtag(etag);
+        for (String value : Collections.list(request.getHeaders(HttpHeaders.IF_NONE_MATCH))) {
+            for (String candidate : value.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return etag;
+                }
+                if (tag.equals(gzipEtag)) {
+                    return gzipEtag;
+                }
+            }
+        }
+        return null;
+    }
+}
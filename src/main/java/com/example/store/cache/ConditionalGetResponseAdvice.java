@@ -0,0 +1,67 @@
+package com.example.store.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/*
+   Sends the ETag which ConditionalGetInterceptor worked out before the handler ran, but only on a 2xx: an exception
+   handler's 404 or 400 goes out without one. A matching If-None-Match which the interceptor left to the handler is
+   answered with 304 Not Modified here instead of the body.
+
+   The header is set on the servlet response rather than the ServerHttpResponse's headers, so RenderedResponseAdvice,
+   which runs after this, can swap it for the gzip ETag. A body written without a converter, such as the order stream,
+   never comes through here and so never has an ETag.
+*/
+@ControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConditionalGetResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(
+            Object body,
+            MethodParameter returnType,
+            MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType,
+            ServerHttpRequest request,
+            ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)
+                || !(response instanceof ServletServerHttpResponse servletResponse)) {
+            return body;
+        }
+        HttpServletRequest httpServletRequest = servletRequest.getServletRequest();
+        HttpServletResponse httpServletResponse = servletResponse.getServletResponse();
+        if (!(httpServletRequest.getAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE) instanceof String etag)
+                || !isSuccessful(httpServletResponse.getStatus())) {
+            return body;
+        }
+        String matched = ConditionalGetInterceptor.match(etag, httpServletRequest);
+        if (matched != null) {
+            ConditionalGetInterceptor.notModified(httpServletResponse, matched);
+            return null;
+        }
+        httpServletResponse.setHeader(HttpHeaders.ETAG, etag);
+        return body;
+    }
+
+    private static boolean isSuccessful(int status) {
+        return status >= 200 && status < 300;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.store.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/*
+   A response body serialized once, and gzipped once when it is big enough for that to pay off.
+*/
+record RenderedBody(byte[] json, byte[] gzip) {
+
+    // Below this the gzip header and the work of decompressing outweigh the bytes saved
+    static final int MIN_GZIP_SIZE = 1024;
+
+    static RenderedBody of(byte[] json) {
+        return new RenderedBody(json, json.length < MIN_GZIP_SIZE ? null : gzip(json));
+    }
+
+    int weight() {
+        return json.length + (gzip == null ? 0 : gzip.length);
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(json);
+        } catch (IOException ex) {
+            // Writing to memory
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+}
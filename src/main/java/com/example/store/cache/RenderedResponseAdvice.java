@@ -0,0 +1,158 @@
+package com.example.store.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/*
+   Serves the bodies of @Cacheable endpoints from their serialized JSON, so a cache hit costs a copy of the bytes
+   rather than a Jackson pass over the whole DTO graph. Clients sending Accept-Encoding: gzip get the gzipped bytes.
+
+   The bytes are keyed by the identity of the cached DTO, weakly. A cache hit returns the same instance, so it finds
+   the bytes, and once the DTO leaves the application cache (evicted, expired, or replaced by CacheMaintainer) its
+   bytes can be collected with it. A replaced entry is serialized again on its first read. The application caches
+   therefore stay the source of truth and hold DTOs, which is what CacheMaintainer works on.
+
+   This runs after the other advice, which may still set headers, and writes the body itself. Returning null tells
+   Spring MVC there is nothing left to write.
+*/
+@ControllerAdvice
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class RenderedResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Object, RenderedBody> renderedBodies;
+
+    public RenderedResponseAdvice(
+            ObjectMapper objectMapper,
+            @Value("${store.cache.rendered.maximum-weight:128MB}") DataSize maximumWeight,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.renderedBodies = Caffeine.newBuilder()
+                .weakKeys()
+                .maximumWeight(maximumWeight.toBytes())
+                .weigher((Object body, RenderedBody rendered) -> rendered.weight())
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, renderedBodies, "rendered"));
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(Cacheable.class)
+                && MappingJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(
+            Object body,
+            MethodParameter returnType,
+            MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType,
+            ServerHttpRequest request,
+            ServerHttpResponse response) {
+        if (body == null || !selectedContentType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+            return body;
+        }
+        RenderedBody rendered = renderedBodies.get(body, this::render);
+        byte[] bytes = rendered.json();
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(selectedContentType);
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (rendered.gzip() != null && acceptsGzip(request.getHeaders())) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            bytes = rendered.gzip();
+            // Set on the servlet response by ConditionalGetResponseAdvice, so it has to be replaced there
+            if (response instanceof ServletServerHttpResponse servletResponse) {
+                HttpServletResponse httpServletResponse = servletResponse.getServletResponse();
+                String etag = httpServletResponse.getHeader(HttpHeaders.ETAG);
+                if (etag != null) {
+                    httpServletResponse.setHeader(HttpHeaders.ETAG, gzipEtag(etag));
+                }
+            }
+        }
+        headers.setContentLength(bytes.length);
+        try {
+            response.getBody().write(bytes);
+        } catch (IOException ex) {
+            throw new HttpMessageNotWritableException("Could not write the cached response body", ex);
+        }
+        return null;
+    }
+
+    private RenderedBody render(Object body) {
+        try {
+            return RenderedBody.of(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotWritableException("Could not serialize the response body", ex);
+        } catch (UncheckedIOException ex) {
+            throw new HttpMessageNotWritableException("Could not compress the response body", ex);
+        }
+    }
+
+    /*
+       A strong ETag has to differ between the plain and the gzipped body
+    */
+    static String gzipEtag(String etag) {
+        if (etag.startsWith("W/") || !etag.endsWith("\"")) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + GZIP + "\"";
+    }
+
+    static boolean acceptsGzip(HttpHeaders requestHeaders) {
+        for (String value : requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String[] parameters = coding.split(";");
+                String name = parameters[0].trim();
+                if (name.equalsIgnoreCase(GZIP) || name.equals("*")) {
+                    return !isQualityZero(parameters);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isQualityZero(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (NumberFormatException ex) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.store.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+   Marks a GET handler whose response only changes when one of these collections does. The response gets an ETag made
+   from their versions and If-None-Match is answered with 304 before the handler runs, see ConditionalGetInterceptor.
+
+   List every collection the response includes anything from. A customer lists its orders, so GET /customer is
+   versioned by CUSTOMERS and ORDERS.
+*/
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface VersionedBy {
+
+    VersionedCollection[] value();
+}
@@ -0,0 +1,10 @@
+package com.example.store.cache;
+
+/*
+   The collections whose versions make up the ETags, see CollectionVersions.
+*/
+public enum VersionedCollection {
+    ORDERS,
+    CUSTOMERS,
+    PRODUCTS
+}
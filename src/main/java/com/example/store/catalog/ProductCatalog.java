@@ -0,0 +1,141 @@
+package com.example.store.catalog;
+
+import com.example.store.entity.ProductDescriptionProjection;
+import com.example.store.event.CacheCoherenceLostEvent;
+import com.example.store.repository.ProductRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+   The description of every product, held in memory so that the product lookups of GET /products/{id} and
+   POST /order don't go to the database.
+
+   Readers get an immutable snapshot through a volatile read and never lock. A change copies the snapshot and swaps
+   the copy in. Products are few and rarely written, so copying them is cheaper than making every read pay for a
+   concurrent structure. Writers take a ReentrantLock rather than a monitor, so a virtual thread waiting for it
+   releases its carrier.
+
+   Products written through JPA on this instance are put in by ProductCatalogListener once committed. Products from
+   anywhere else are found on a miss, which looks them up and adds them. A miss therefore costs a query, but never a
+   wrong answer.
+
+   Built on ApplicationStartedEvent, as for CustomerNameIndex, and again whenever writes may have gone unseen (see
+   CacheCoherenceLostEvent), since a description changed elsewhere is never a miss.
+*/
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCatalog {
+
+    private final ProductRepository productRepository;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Map<Long, String> descriptions = Map.of();
+
+    /*
+       A product added while the catalog is being built may be lost by the swap. It is looked up again on its first
+       miss.
+    */
+    @EventListener(ApplicationStartedEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        Map<Long, String> loaded = toMap(productRepository.findAllDescriptions());
+        lock.lock();
+        try {
+            descriptions = loaded;
+        } finally {
+            lock.unlock();
+        }
+        log.info("Built product catalog of {} products in {}ms", loaded.size(), System.currentTimeMillis() - start);
+    }
+
+    /*
+       Published on the threads keeping the caches coherent, often because the database is out of reach. A failed
+       rebuild keeps the current snapshot rather than ending them, and the next flush tries again.
+    */
+    @EventListener
+    public void onCacheCoherenceLost(CacheCoherenceLostEvent event) {
+        try {
+            build();
+        } catch (RuntimeException ex) {
+            log.warn("Could not rebuild the product catalog, keeping the current one", ex);
+        }
+    }
+
+    /*
+       Empty when the product is not in the catalog, which does not mean it doesn't exist.
+    */
+    public Optional<String> description(Long id) {
+        return Optional.ofNullable(descriptions.get(id));
+    }
+
+    /*
+       The IDs of the products which do not exist, in the order given. Only the IDs missing from the catalog are
+       looked up.
+    */
+    public List<Long> missing(Collection<Long> ids) {
+        Map<Long, String> current = descriptions;
+        List<Long> unknown = ids.stream().filter(id -> !current.containsKey(id)).distinct().toList();
+        if (unknown.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, String> found = toMap(productRepository.findDescriptionsByIdIn(unknown));
+        putAll(found);
+        return unknown.stream().filter(id -> !found.containsKey(id)).toList();
+    }
+
+    public void put(Long id, String description) {
+        putAll(Map.of(id, description));
+    }
+
+    public void putAll(Map<Long, String> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            Map<Long, String> next = new HashMap<>(descriptions);
+            next.putAll(products);
+            descriptions = Collections.unmodifiableMap(next);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.lock();
+        try {
+            if (!descriptions.containsKey(id)) {
+                return;
+            }
+            Map<Long, String> next = new HashMap<>(descriptions);
+            next.remove(id);
+            descriptions = Collections.unmodifiableMap(next);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return descriptions.size();
+    }
+
+    private static Map<Long, String> toMap(List<ProductDescriptionProjection> products) {
+        Map<Long, String> map = new HashMap<>(products.size() * 2);
+        products.forEach(p -> map.put(p.getId(), p.getDescription()));
+        return Collections.unmodifiableMap(map);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.store.catalog;
+
+import com.example.store.entity.Product;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+   Keeps the ProductCatalog in step with the products written through JPA. Hibernate creates it through Spring while
+   the EntityManagerFactory is being built, before the catalog's repository can exist, so the catalog is looked up
+   on use.
+
+   The callbacks run once the statement has executed. Inside a transaction the catalog is only changed once it has
+   committed, so it never serves a product which was rolled back.
+*/
+@RequiredArgsConstructor
+public class ProductCatalogListener {
+
+    private final ObjectProvider<ProductCatalog> productCatalog;
+
+    @PostPersist
+    @PostUpdate
+    public void written(Product product) {
+        Long id = product.getId();
+        String description = product.getDescription();
+        afterCommit(() -> productCatalog.ifAvailable(catalog -> catalog.put(id, description)));
+    }
+
+    @PostRemove
+    public void removed(Product product) {
+        Long id = product.getId();
+        afterCommit(() -> productCatalog.ifAvailable(catalog -> catalog.remove(id)));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
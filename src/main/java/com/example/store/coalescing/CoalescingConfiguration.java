@@ -0,0 +1,18 @@
+package com.example.store.coalescing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties(CoalescingProperties.class)
+public class CoalescingConfiguration {
+
+    @Bean
+    public SingleFlight singleFlight(CoalescingProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new SingleFlight(properties, meterRegistry.getIfAvailable());
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.store.coalescing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/*
+   See SingleFlight.
+   * timeout - how long a caller waits for a result computed by another, unless set for its name below
+   * timeouts - the timeout per name, e.g. "[customer_search]": 2s
+*/
+@ConfigurationProperties("store.coalescing")
+public record CoalescingProperties(@DefaultValue("10s") Duration timeout, Map<String, Duration> timeouts) {
+
+    public CoalescingProperties {
+        timeouts = timeouts == null ? Map.of() : Map.copyOf(timeouts);
+    }
+
+    public Duration timeout(String name) {
+        return timeouts.getOrDefault(name, timeout);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.store.coalescing;
+
+import com.example.store.exception.api.ApiServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/*
+   Coalesces concurrent identical reads: the first caller for a key computes the result on its own thread and every
+   caller arriving while it does gets that same result, or exception, instead of running the computation again.
+   Nothing is kept once the computation finishes, a later caller computes afresh. Caching is left to the caches.
+
+   The key is a name, which is also the metric tag, and the normalized parameters of the read. The parameters must
+   have value equality, e.g. a record or a List.
+
+   A waiter gives up after the timeout for the name (see CoalescingProperties) with a 503, rather than queue
+   behind a computation which is struggling. The computation itself carries on for its own caller.
+
+   Every call is counted in store.coalescing.calls, tagged with the name and whether the caller computed the result
+   (leader), shared it (coalesced) or gave up waiting (timed-out).
+*/
+public class SingleFlight {
+
+    private record Key(String name, Object parameters) {}
+
+    private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final CoalescingProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    /*
+       meterRegistry may be null, when nothing is counted
+    */
+    public SingleFlight(CoalescingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T execute(String name, Object parameters, Supplier<T> computation) {
+        Key key = new Key(name, parameters);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(name, existing);
+        }
+        count(name, "leader");
+        try {
+            T result = computation.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T await(String name, CompletableFuture<Object> flight) {
+        Duration timeout = properties.timeout(name);
+        try {
+            T result = (T) flight.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            count(name, "coalesced");
+            return result;
+        } catch (ExecutionException ex) {
+            count(name, "coalesced");
+            // The leader's own exception, so the caller sees what the leader saw
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            count(name, "timed-out");
+            throw new ApiServiceUnavailableException("Gave up waiting " + timeout + " for " + name, timeout);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ApiServiceUnavailableException("Interrupted waiting for " + name, timeout);
+        }
+    }
+
+    private void count(String name, String outcome) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Counter.builder("store.coalescing.calls")
+                .description("Reads by whether they computed, shared or gave up waiting for a result")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
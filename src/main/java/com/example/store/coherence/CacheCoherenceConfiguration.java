@@ -0,0 +1,62 @@
+package com.example.store.coherence;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+/*
+   Keeps the caches of every instance sharing the database coherent. Each instance maintains its own caches on its
+   own writes (see CacheMaintainer), NOTIFYs the others of them (see CacheInvalidationPublisher) and evicts on theirs
+   (see CacheInvalidationListener).
+
+   On by default, since running a second instance without it serves stale data. Turn it off with:
+
+   store:
+     cache:
+       coherence:
+         enabled: false
+
+   The listener connects to the primary with the spring.datasource settings. NOTIFY goes through a proxy such as
+   PgBouncer in transaction mode but LISTEN does not, so spring.datasource must then point at the database itself.
+*/
+@Configuration
+@ConditionalOnProperty(name = "store.cache.coherence.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(CacheCoherenceProperties.class)
+public class CacheCoherenceConfiguration {
+
+    /*
+       Identifies this instance in the messages, so it ignores its own
+    */
+    private final String origin = UUID.randomUUID().toString();
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(
+            JdbcTemplate jdbcTemplate, CacheCoherenceProperties properties) {
+        return new CacheInvalidationPublisher(jdbcTemplate, properties.channel(), origin);
+    }
+
+    @Bean
+    public CacheInvalidationListener cacheInvalidationListener(
+            DataSourceProperties dataSourceProperties,
+            CacheCoherenceProperties properties,
+            ApplicationEventPublisher eventPublisher,
+            EntityManagerFactory entityManagerFactory) {
+        return new CacheInvalidationListener(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword(),
+                properties,
+                origin,
+                eventPublisher,
+                entityManagerFactory.getCache().unwrap(Cache.class));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.store.coherence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/*
+   Cache invalidation between instances over PostgreSQL LISTEN/NOTIFY, see CacheCoherenceConfiguration.
+   * channel - the NOTIFY channel. Every instance sharing a database must use the same one.
+   * keepalive - how often an idle listening connection is checked. A dead connection goes unnoticed for up to this
+     long, so it bounds how late a write by another instance can be seen.
+   * maxReconnectDelay - the longest wait between attempts to reconnect. The caches are flushed at every attempt.
+*/
+@ConfigurationProperties("store.cache.coherence")
+public record CacheCoherenceProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("store_cache") String channel,
+        @DefaultValue("5s") Duration keepalive,
+        @DefaultValue("5s") Duration maxReconnectDelay) {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    public CacheCoherenceProperties {
+        // LISTEN takes an identifier, not a parameter
+        if (!IDENTIFIER.matcher(channel).matches()) {
+            throw new IllegalArgumentException("store.cache.coherence.channel must be a lower case identifier");
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.store.coherence;
+
+import com.example.store.cache.VersionedCollection;
+import com.example.store.entity.Customer;
+import com.example.store.entity.Product;
+import com.example.store.event.CacheCoherenceLostEvent;
+import com.example.store.event.RemoteChangeEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hibernate.Cache;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.postgresql.PGProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Properties;
+
+/*
+   Applies the writes of the other instances to the caches here. Holds its own connection to the primary, outside the
+   pool, which LISTENs on the channel CacheInvalidationPublisher NOTIFYs on.
+
+   For each message from another instance, in order:
+   * the second level cache collections the write changes are evicted
+   * a RemoteChangeEvent is published, on which CacheMaintainer evicts and then CollectionVersions moves the ETags on
+
+   A notification is delivered as soon as the write commits, so while connected the caches lag by milliseconds. A
+   message which fails to apply flushes every cache, as does a failed connection, since writes may have gone unseen.
+   The connection is checked every keepalive. When it fails the caches are flushed again at each reconnection attempt
+   and once reconnected. So however long the database is unreachable, the caches are never more than about keepalive
+   out of date.
+*/
+@Slf4j
+public class CacheInvalidationListener implements SmartLifecycle, Runnable {
+
+    private static final String CUSTOMER_ORDERS_ROLE = Customer.class.getName() + ".orders";
+    private static final String PRODUCT_ORDERS_ROLE = Product.class.getName() + ".orders";
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final CacheCoherenceProperties properties;
+    private final String origin;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache secondLevelCache;
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private volatile Connection connection;
+    private Thread thread;
+
+    public CacheInvalidationListener(
+            String url,
+            String username,
+            String password,
+            CacheCoherenceProperties properties,
+            String origin,
+            ApplicationEventPublisher eventPublisher,
+            Cache secondLevelCache) {
+        this.url = url;
+        this.properties = properties;
+        this.origin = origin;
+        this.eventPublisher = eventPublisher;
+        this.secondLevelCache = secondLevelCache;
+        this.connectionProperties = new Properties();
+        PGProperty.USER.set(connectionProperties, username);
+        PGProperty.PASSWORD.set(connectionProperties, password);
+        PGProperty.APPLICATION_NAME.set(connectionProperties, "store-cache-listener");
+        // A keepalive query which hangs means the connection is dead
+        PGProperty.SOCKET_TIMEOUT.set(connectionProperties, (int) Math.max(1, properties.keepalive().toSeconds() * 2));
+    }
+
+    public boolean isListening() {
+        return listening;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this, "cache-invalidation-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeQuietly(connection);
+        thread.interrupt();
+        try {
+            thread.join(properties.keepalive().toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void run() {
+        Duration reconnectDelay = Duration.ofMillis(100);
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection listenConnection = DriverManager.getConnection(url, connectionProperties)) {
+                connection = listenConnection;
+                try (Statement statement = listenConnection.createStatement()) {
+                    statement.execute("LISTEN " + properties.channel());
+                }
+                listening = true;
+                if (reconnecting) {
+                    log.info("Listening for cache invalidations again");
+                    // Whatever was written while disconnected went unseen
+                    flush();
+                }
+                reconnectDelay = Duration.ofMillis(100);
+                listen(listenConnection);
+            } catch (SQLException ex) {
+                if (running) {
+                    log.warn("Lost the cache invalidation connection, retrying in {}", reconnectDelay, ex);
+                }
+            } finally {
+                listening = false;
+                connection = null;
+            }
+            if (!running) {
+                return;
+            }
+            reconnecting = true;
+            flush();
+            try {
+                Thread.sleep(reconnectDelay.toMillis());
+            } catch (InterruptedException ex) {
+                return;
+            }
+            reconnectDelay = min(reconnectDelay.multipliedBy(2), properties.maxReconnectDelay());
+        }
+    }
+
+    private void listen(Connection listenConnection) throws SQLException {
+        PGConnection pgConnection = listenConnection.unwrap(PGConnection.class);
+        int keepaliveMillis = (int) properties.keepalive().toMillis();
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(keepaliveMillis);
+            if (notifications == null || notifications.length == 0) {
+                try (Statement statement = listenConnection.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                apply(notification.getParameter());
+            }
+        }
+    }
+
+    /*
+       A message which fails to apply, in handle or in a listener to its event, must not end the thread. It is treated
+       as an unseen write.
+    */
+    void apply(String payload) {
+        try {
+            handle(payload);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to apply cache invalidation {}", payload, ex);
+            flush();
+        }
+    }
+
+    void handle(String payload) {
+        InvalidationMessage message;
+        try {
+            message = InvalidationMessage.decode(payload);
+        } catch (IllegalArgumentException ex) {
+            log.warn("Ignoring cache invalidation {}", payload, ex);
+            return;
+        }
+        if (origin.equals(message.origin())) {
+            // Already applied here, see CacheMaintainer
+            return;
+        }
+        if (message.collection() == VersionedCollection.ORDERS) {
+            if (message.customerId() == null) {
+                secondLevelCache.evictCollectionData(CUSTOMER_ORDERS_ROLE);
+            } else {
+                secondLevelCache.evictCollectionData(CUSTOMER_ORDERS_ROLE, message.customerId());
+            }
+            secondLevelCache.evictCollectionData(PRODUCT_ORDERS_ROLE);
+        }
+        eventPublisher.publishEvent(new RemoteChangeEvent(message.collection(), message.customerId()));
+    }
+
+    /*
+       A listener failing here must not end the thread, or nothing is invalidated from then on
+    */
+    private void flush() {
+        try {
+            secondLevelCache.evictAllRegions();
+            eventPublisher.publishEvent(new CacheCoherenceLostEvent());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to flush the caches", ex);
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            // Closing anyway
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.store.coherence;
+
+import com.example.store.cache.VersionedCollection;
+import com.example.store.event.CustomerCreatedEvent;
+import com.example.store.event.OrderCreatedEvent;
+import com.example.store.event.OrdersImportedEvent;
+import com.example.store.event.ProductCreatedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+   Tells the other instances about the writes made here, by NOTIFY on the primary.
+
+   The events are published once the write has committed. The NOTIFY is sent from a single background thread, in the
+   order of the writes, so the request which wrote neither waits for it nor has it counted against its statements.
+   Should it fail, the other instances see the write when their cached entries expire.
+*/
+@Slf4j
+public class CacheInvalidationPublisher implements DisposableBean {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String channel;
+    private final String origin;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-invalidation-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CacheInvalidationPublisher(JdbcTemplate jdbcTemplate, String channel, String origin) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.channel = channel;
+        this.origin = origin;
+    }
+
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        publish(VersionedCollection.ORDERS, event.order().getCustomer().getId());
+    }
+
+    @EventListener
+    public void onOrdersImported(OrdersImportedEvent event) {
+        publish(VersionedCollection.ORDERS, null);
+    }
+
+    @EventListener
+    public void onCustomerCreated(CustomerCreatedEvent event) {
+        publish(VersionedCollection.CUSTOMERS, null);
+    }
+
+    @EventListener
+    public void onProductCreated(ProductCreatedEvent event) {
+        publish(VersionedCollection.PRODUCTS, null);
+    }
+
+    private void publish(VersionedCollection collection, Long customerId) {
+        String payload = new InvalidationMessage(origin, collection, customerId).encode();
+        executor.execute(() -> {
+            try {
+                jdbcTemplate.query("SELECT pg_notify(?, ?)", resultSet -> null, channel, payload);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to publish cache invalidation {}", payload, ex);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // Let the invalidations of the last writes go out
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
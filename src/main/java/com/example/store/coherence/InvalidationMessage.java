@@ -0,0 +1,23 @@
+package com.example.store.coherence;
+
+import com.example.store.cache.VersionedCollection;
+
+/*
+   The NOTIFY payload, e.g. "3f2a9c1e:ORDERS:42". origin is the instance which wrote, so it can ignore its own
+   messages. customerId is only set for a new order, and empty when it is not known.
+*/
+record InvalidationMessage(String origin, VersionedCollection collection, Long customerId) {
+
+    String encode() {
+        return origin + ":" + collection + ":" + (customerId == null ? "" : customerId);
+    }
+
+    static InvalidationMessage decode(String payload) {
+        String[] parts = payload.split(":", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Not a cache invalidation message: " + payload);
+        }
+        Long customerId = parts[2].isEmpty() ? null : Long.valueOf(parts[2]);
+        return new InvalidationMessage(parts[0], VersionedCollection.valueOf(parts[1]), customerId);
+    }
+}
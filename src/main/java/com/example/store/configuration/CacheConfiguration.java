@@ -1,31 +1,99 @@
 package com.example.store.configuration;
 
+import com.example.store.cache.CoalescingCaffeineCache;
+import com.example.store.coalescing.SingleFlight;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
 public class CacheConfiguration {
 
     /*
-       This is a simple ConcurrentMapCacheManager. In a production environment (like a kubernetes cluster) one would
-       side load a single Redis container so that multiple application pods could access a single cache.
+       Each cache is a bounded Caffeine cache, sized and expired from store.cache in application.yaml (see
+       CacheProperties). Each instance has its own caches, kept coherent with the others' writes over PostgreSQL
+       LISTEN/NOTIFY (see CacheCoherenceConfiguration) rather than shared through something like Redis.
+
+       Every @Cacheable read is sync = true, but the loads do not run inside Caffeine's compute, which would hold a
+       monitor for the whole database round trip and pin a virtual thread to its carrier (see
+       spring.threads.virtual.enabled in application.yaml). Concurrent misses on a key share a single load through
+       SingleFlight instead, which bounds the wait and counts the callers sharing each load, see
+       CoalescingCaffeineCache.
+
+       A load which overlaps any write to its cache is not cached, whatever key the write was for, since it may have
+       read the tables before that write was applied. The trade-off is extra misses under write traffic: a new order
+       appended to all_orders also keeps every page of it loading at the time out of the cache, and the next request
+       for those pages loads them again. That is cheaper than tracking which keys each write could affect, and a
+       stale page would otherwise be served until it expired.
     */
 
     public static final String ORDERS = "orders";
     public static final String ALL_ORDERS = "all_orders";
     public static final String CUSTOMERS = "customers";
     public static final String ALL_CUSTOMERS = "all_customers";
+    public static final String ALL_PRODUCTS = "all_products";
+    public static final String CUSTOMER_SEARCH = "customer_search";
+
+    static final List<String> CACHE_NAMES =
+            List.of(ORDERS, ALL_ORDERS, CUSTOMERS, ALL_CUSTOMERS, ALL_PRODUCTS, CUSTOMER_SEARCH);
 
     @Bean(name = "cacheManager")
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(CacheProperties cacheProperties, SingleFlight singleFlight) {
         /*
            I have created caches for list get all and get by ID for each instance. One could attempt of manage
            both cases with a single cache but that approach has a bunch of issues around concurrency.
+
+           The caches are created up front rather than on first use, so the cache metrics are bound to all of them at
+           startup. A cache name which is not known here still works, it gets the defaults.
         */
-        return new ConcurrentMapCacheManager();
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(
+                    String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new CoalescingCaffeineCache(name, cache, isAllowNullValues(), singleFlight);
+            }
+        };
+        cacheManager.setCaffeine(caffeine(cacheProperties.defaults()));
+        Set<String> names = new LinkedHashSet<>(CACHE_NAMES);
+        names.addAll(cacheProperties.caches().keySet());
+        for (String name : names) {
+            cacheManager.registerCustomCache(name, caffeine(cacheProperties.specFor(name)).build());
+        }
+        return cacheManager;
+    }
+
+    static Caffeine<Object, Object> caffeine(CacheProperties.Spec spec) {
+        if (spec.maximumSize() != null && spec.maximumWeight() != null) {
+            throw new IllegalArgumentException("A cache is bounded by either maximum-size or maximum-weight, not both");
+        }
+        Caffeine<Object, Object> caffeine = Caffeine.newBuilder();
+        if (spec.maximumSize() != null) {
+            caffeine.maximumSize(spec.maximumSize());
+        }
+        if (spec.maximumWeight() != null) {
+            caffeine.maximumWeight(spec.maximumWeight().toBytes()).weigher(new CacheEntryWeigher());
+        }
+        if (spec.expireAfterWrite() != null) {
+            caffeine.expireAfterWrite(spec.expireAfterWrite());
+        }
+        if (spec.expireAfterAccess() != null) {
+            caffeine.expireAfterAccess(spec.expireAfterAccess());
+        }
+        if (spec.recordStats()) {
+            caffeine.recordStats();
+        }
+        return caffeine;
     }
 }
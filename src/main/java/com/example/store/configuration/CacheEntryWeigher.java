@@ -0,0 +1,98 @@
+package com.example.store.configuration;
+
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.dto.PageDTO;
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductSummaryDTO;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.util.Collection;
+
+/*
+   Approximate heap size in bytes of a cached DTO, for the caches bounded by maximum-weight.
+
+   This is an estimate from the shape of the DTOs (object headers, boxed ids, strings and list backing arrays) rather
+   than a measurement, which would mean walking the object graph with reflection on every put. It is in the right
+   ballpark for a 64 bit JVM with compressed references, which is all the bound needs. Anything not recognised
+   weighs OTHER.
+
+   The weight is taken when the entry is cached. The cached DTOs are never modified afterwards.
+*/
+public class CacheEntryWeigher implements Weigher<Object, Object> {
+
+    static final int OBJECT = 16;
+    static final int REFERENCE = 4;
+    static final int LONG = OBJECT + 8;
+    static final int OTHER = 64;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        return (int) Math.min(Integer.MAX_VALUE, weigh(key) + weigh(value));
+    }
+
+    static long weigh(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Long) {
+            return LONG;
+        }
+        if (value instanceof String string) {
+            // Header, hash and coder plus the byte array. Our strings are almost always latin1, one byte per char.
+            return OBJECT + 8 + OBJECT + string.length();
+        }
+        if (value instanceof Collection<?> collection) {
+            long weight = OBJECT + 8 + OBJECT + (long) REFERENCE * collection.size();
+            for (Object item : collection) {
+                weight += weigh(item);
+            }
+            return weight;
+        }
+        if (value instanceof PageDTO<?> page) {
+            return OBJECT + 2 * REFERENCE + weigh(page.getItems()) + weigh(page.getNext());
+        }
+        if (value instanceof OrderDTO order) {
+            return OBJECT
+                    + 4 * REFERENCE
+                    + weigh(order.getId())
+                    + weigh(order.getDescription())
+                    + weigh(order.getCustomer())
+                    + weigh(order.getProducts());
+        }
+        if (value instanceof OrderCustomerDTO customer) {
+            return OBJECT + 2 * REFERENCE + weigh(customer.getId()) + weigh(customer.getName());
+        }
+        if (value instanceof OrderProductDTO product) {
+            return OBJECT + 2 * REFERENCE + weigh(product.getId()) + weigh(product.getDescription());
+        }
+        if (value instanceof CustomerDTO customer) {
+            return OBJECT
+                    + 3 * REFERENCE
+                    + weigh(customer.getId())
+                    + weigh(customer.getName())
+                    + weigh(customer.getOrders());
+        }
+        if (value instanceof CustomerOrderDTO order) {
+            return OBJECT + 2 * REFERENCE + weigh(order.getId()) + weigh(order.getDescription());
+        }
+        if (value instanceof ProductDTO product) {
+            return OBJECT
+                    + 3 * REFERENCE
+                    + weigh(product.getId())
+                    + weigh(product.getDescription())
+                    + weigh(product.getOrders());
+        }
+        if (value instanceof ProductSummaryDTO product) {
+            return OBJECT
+                    + 3 * REFERENCE
+                    + weigh(product.getId())
+                    + weigh(product.getDescription())
+                    + weigh(product.getOrders());
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.store.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Map;
+
+/*
+   Sizing and expiry of the application caches, see CacheConfiguration.
+   * defaults - used for any cache without its own entry
+   * caches - per cache settings, keyed by cache name. Names containing '_' must be written as "[all_orders]" in yaml,
+     otherwise the binder strips the '_' from the key.
+
+   A cache which sets either bound replaces both bounds of the defaults, and one which sets either expiry replaces
+   both expiries, so a cache can switch from a size to a weight bound without inheriting the other one.
+*/
+@ConfigurationProperties("store.cache")
+public record CacheProperties(@DefaultValue Spec defaults, @DefaultValue Map<String, Spec> caches) {
+
+    public Spec specFor(String name) {
+        Spec spec = caches.get(name);
+        if (spec == null) {
+            return defaults;
+        }
+        boolean bounded = spec.maximumSize() != null || spec.maximumWeight() != null;
+        boolean expiring = spec.expireAfterWrite() != null || spec.expireAfterAccess() != null;
+        return new Spec(
+                bounded ? spec.maximumSize() : defaults.maximumSize(),
+                bounded ? spec.maximumWeight() : defaults.maximumWeight(),
+                expiring ? spec.expireAfterWrite() : defaults.expireAfterWrite(),
+                expiring ? spec.expireAfterAccess() : defaults.expireAfterAccess(),
+                spec.recordStats());
+    }
+
+    /*
+       * maximumSize - bound on the number of entries
+       * maximumWeight - bound on the approximate heap used by the entries, see CacheEntryWeigher. Not both.
+       * expireAfterWrite - entries are dropped this long after they were cached, however often they are read
+       * expireAfterAccess - entries are dropped when they have not been read for this long
+       * recordStats - hit, miss, eviction and load time statistics, published as the cache.* metrics
+    */
+    public record Spec(
+            Long maximumSize,
+            DataSize maximumWeight,
+            Duration expireAfterWrite,
+            Duration expireAfterAccess,
+            @DefaultValue("true") boolean recordStats) {}
+}
@@ -1,25 +1,43 @@
 package com.example.store.controller;
 
+import com.example.store.cache.VersionedBy;
+import com.example.store.cache.VersionedCollection;
 import com.example.store.configuration.CacheConfiguration;
 import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerSuggestionDTO;
+import com.example.store.dto.PageDTO;
 import com.example.store.entity.Customer;
+import com.example.store.event.CustomerCreatedEvent;
 import com.example.store.mapper.CustomerMapper;
 import com.example.store.presentation.CustomerSearchRequest;
+import com.example.store.readmodel.ReadModel;
 import com.example.store.repository.CustomerRepository;
+import com.example.store.search.CustomerNameIndex;
+import com.example.store.warmup.WarmUp;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 
 import lombok.RequiredArgsConstructor;
 
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
@@ -29,50 +47,122 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 @Validated
 public class CustomerController {
 
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final CustomerRepository customerRepository;
     private final CustomerMapper customerMapper;
-    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomerNameIndex customerNameIndex;
+    private final ObjectProvider<ReadModel> readModel;
+
+    @Value("${store.customer.search.engine:like}")
+    private CustomerSearchEngine searchEngine = CustomerSearchEngine.LIKE;
 
+    /*
+       Concurrent misses share one load, see OrderController.getAllOrders.
+    */
     @GetMapping
-    @Cacheable(value = CacheConfiguration.ALL_CUSTOMERS)
+    @Cacheable(value = CacheConfiguration.ALL_CUSTOMERS, sync = true)
+    @VersionedBy({VersionedCollection.CUSTOMERS, VersionedCollection.ORDERS})
+    @WarmUp
     public List<CustomerDTO> getAllCustomers() {
-        return customerMapper.customersToCustomerDTOs(customerRepository.findAll());
+        return ReadModel.serving(readModel)
+                .map(ReadModel::customers)
+                .orElseGet(() -> customerMapper.customersToCustomerDTOs(customerRepository.findAll()));
+    }
+
+    /*
+       Opt-in keyset pagination, see OrderController.getOrderPage.
+    */
+    @GetMapping(params = "limit", produces = APPLICATION_JSON_VALUE)
+    @Cacheable(value = CacheConfiguration.ALL_CUSTOMERS, key = "'page:' + #after + ':' + #limit", sync = true)
+    @VersionedBy({VersionedCollection.CUSTOMERS, VersionedCollection.ORDERS})
+    public PageDTO<CustomerDTO> getCustomerPage(
+            @RequestParam(name = "after", defaultValue = "0") @PositiveOrZero Long after,
+            @RequestParam(name = "limit") @Positive @Max(PageDTO.MAX_LIMIT) Integer limit) {
+        Optional<ReadModel> servingReadModel = ReadModel.serving(readModel);
+        if (servingReadModel.isPresent()) {
+            return servingReadModel.get().customerPage(after, limit);
+        }
+        List<Long> ids = customerRepository.findIdsAfter(after, PageRequest.ofSize(limit));
+        List<Customer> customers = ids.isEmpty() ? List.of() : customerRepository.findByIdInOrderByIdAsc(ids);
+        return PageDTO.of(customerMapper.customersToCustomerDTOs(customers), limit, CustomerDTO::getId);
     }
 
+    /*
+       The new customer is added to the cached listings by CacheMaintainer rather than evicting them. A new customer
+       has no orders, so the order caches are unaffected.
+    */
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    @Caching(
-            evict = {
-                @CacheEvict(value = CacheConfiguration.ALL_ORDERS, allEntries = true),
-                @CacheEvict(value = CacheConfiguration.ORDERS, allEntries = true),
-                @CacheEvict(value = CacheConfiguration.ALL_CUSTOMERS, allEntries = true)
-            })
     public CustomerDTO createCustomer(@RequestBody Customer customer) {
         Customer customerEntity = customerRepository.save(customer);
         CustomerDTO customerDTO = customerMapper.customerToCustomerDTO(customerEntity);
-        try {
-            cacheManager.getCache(CacheConfiguration.CUSTOMERS).putIfAbsent(customerDTO.getId(), customerDTO);
-        } catch (RuntimeException ex) {
-            // If the caching isn't working we don't want the application to fail.
-            // TODO log this
-        }
+        customerNameIndex.add(customerEntity.getId(), customerEntity.getName());
+        eventPublisher.publishEvent(new CustomerCreatedEvent(customerDTO));
         return customerDTO;
     }
 
+    /*
+       Type-ahead suggestions, served from the in memory index without touching the database.
+    */
+    @GetMapping(path = "/autocomplete", produces = APPLICATION_JSON_VALUE)
+    @VersionedBy(VersionedCollection.CUSTOMERS)
+    public List<CustomerSuggestionDTO> autocompleteCustomerName(
+            @RequestParam(name = "prefix") @NotBlank @Size(max = 255) String prefix,
+            @RequestParam(name = "limit", defaultValue = "10") @Positive @Max(MAX_SUGGESTIONS) Integer limit) {
+        return customerNameIndex.complete(prefix, limit);
+    }
+
     /*
        This could be a GET with query params instead of a POST.
        I have made the assumption that given then input "John Smith" that the result set should contain all records where
        the customer name contains either John or Smith.  Case-insensitive.
+
+       Results are cached by what the search means (see CustomerSearchKey), so "John Smith" and "smith  JOHN" share an
+       entry. CacheMaintainer evicts only the searches a new customer's name matches, and adds new orders to the
+       customers in the cached results. Concurrent misses share one search, see OrderController.getAllOrders.
     */
     @PostMapping(path = "/search", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
     @ResponseBody
+    @Cacheable(
+            value = CacheConfiguration.CUSTOMER_SEARCH,
+            key = "#root.target.searchKey(#customerSearchRequest)",
+            sync = true)
     public List<CustomerDTO> findCustomersByName(@RequestBody @Valid CustomerSearchRequest customerSearchRequest) {
         /*
            I would, at this point, consider creating a CustomerService class. A refactor of the current structure is
            OoS for a code challenge.
         */
-        List<Customer> foundCustomers =
-                customerRepository.findAll(CustomerSpecs.findByNameSpec(customerSearchRequest.getName()));
+        return searchEngine == CustomerSearchEngine.TRIGRAM
+                ? findCustomersByNameSimilarity(customerSearchRequest)
+                : customerMapper.customersToCustomerDTOs(
+                        customerRepository.findAll(CustomerSpecs.findByNameSpec(customerSearchRequest.getName())));
+    }
+
+    // Public for the @Cacheable key of findCustomersByName
+    public CustomerSearchKey searchKey(CustomerSearchRequest customerSearchRequest) {
+        return CustomerSearchKey.of(searchEngine, customerSearchRequest);
+    }
+
+    private List<CustomerDTO> findCustomersByNameSimilarity(CustomerSearchRequest customerSearchRequest) {
+        int limit = customerSearchRequest.getLimit() == null
+                ? CustomerSearchRequest.DEFAULT_LIMIT
+                : customerSearchRequest.getLimit();
+        List<Long> rankedIds = customerRepository.findIdsByNameSimilarity(
+                CustomerSpecs.tokenize(customerSearchRequest.getName()), limit);
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+        // The ranking is done by the first query, the second only fetches the customers with their orders.
+        // Built by position rather than with indexOf, which would make it quadratic in the limit
+        Map<Long, Integer> rank = HashMap.newHashMap(rankedIds.size());
+        for (int i = 0; i < rankedIds.size(); i++) {
+            rank.put(rankedIds.get(i), i);
+        }
+        List<Customer> foundCustomers = customerRepository.findByIdInOrderByIdAsc(rankedIds).stream()
+                .sorted(Comparator.comparingInt(c -> rank.get(c.getId())))
+                .toList();
         return customerMapper.customersToCustomerDTOs(foundCustomers);
     }
 }
@@ -0,0 +1,17 @@
+package com.example.store.controller;
+
+/*
+   Selected with 'store.customer.search.engine'. Both engines return customers whose name contains any of the
+   search tokens as a substring.
+*/
+public enum CustomerSearchEngine {
+    /*
+       Criteria API LIKE predicates, see CustomerSpecs. Unranked and unbounded.
+    */
+    LIKE,
+    /*
+       Native query served by the pg_trgm GIN index on lower(name). Results are ranked by word similarity and bounded
+       by the request limit.
+    */
+    TRIGRAM
+}
@@ -0,0 +1,39 @@
+package com.example.store.controller;
+
+import com.example.store.presentation.CustomerSearchRequest;
+
+import java.util.List;
+
+/*
+   What a customer search means, and so the key its result is cached and shared under, see
+   CustomerController.findCustomersByName. Searches with the same words, in any order, case or spacing, have the same
+   key. The limit only applies to the trigram engine, so it is null for the others.
+*/
+public record CustomerSearchKey(CustomerSearchEngine engine, List<String> tokens, Integer limit) {
+
+    public static CustomerSearchKey of(CustomerSearchEngine engine, CustomerSearchRequest customerSearchRequest) {
+        List<String> tokens = CustomerSpecs.tokenize(customerSearchRequest.getName()).stream()
+                .sorted()
+                .toList();
+        if (engine != CustomerSearchEngine.TRIGRAM) {
+            return new CustomerSearchKey(engine, tokens, null);
+        }
+        int limit = customerSearchRequest.getLimit() == null
+                ? CustomerSearchRequest.DEFAULT_LIMIT
+                : customerSearchRequest.getLimit();
+        return new CustomerSearchKey(engine, tokens, limit);
+    }
+
+    /*
+       Whether a customer of this name can be in the result. Both engines only find names containing one of the tokens,
+       so any other name leaves the result as it is, however the trigram engine ranks it. A % or _ in a token is not a
+       wildcard to them either, see CustomerSearchRepository.containsPattern.
+    */
+    public boolean matches(String name) {
+        if (name == null) {
+            return false;
+        }
+        String lowerCaseName = name.toLowerCase();
+        return tokens.stream().anyMatch(lowerCaseName::contains);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.store.controller;
 
 import com.example.store.entity.Customer;
+import com.example.store.repository.CustomerSearchRepository;
 
 import jakarta.persistence.criteria.Predicate;
 
@@ -12,18 +13,17 @@ import java.util.List;
 public class CustomerSpecs {
 
     public static Specification<Customer> findByNameSpec(String name) {
-        String sanitizedName = name == null ? "" : name.replaceAll("\\s", " ");
-        final List<String> nameComponents = Arrays.stream(sanitizedName.split(" "))
-                .filter(n -> !n.isBlank())
-                .distinct()
-                .toList();
+        final List<String> nameComponents = tokenize(name);
         /*
            Depending on the requirements we should throw here if the size of this list is maliciously long.
            Like queries are expensive.
         */
         return (root, query, builder) -> {
             List<Predicate> predicates = nameComponents.stream()
-                    .map(n -> builder.like(builder.lower(root.get("name")), "%" + n.toLowerCase() + "%"))
+                    .map(n -> builder.like(
+                            builder.lower(root.get("name")),
+                            CustomerSearchRepository.containsPattern(n),
+                            CustomerSearchRepository.LIKE_ESCAPE))
                     .toList();
             /*
                Note here that if the requirement is that the result must contain all of the search terms then
@@ -32,4 +32,17 @@ public class CustomerSpecs {
             return builder.or(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /*
+       Splits a search input into the distinct, lower case, tokens which are each matched as a substring of the name.
+       Shared by every search engine so that they agree on what a query means.
+    */
+    public static List<String> tokenize(String name) {
+        String sanitizedName = name == null ? "" : name.replaceAll("\\s", " ");
+        return Arrays.stream(sanitizedName.split(" "))
+                .filter(n -> !n.isBlank())
+                .map(String::toLowerCase)
+                .distinct()
+                .toList();
+    }
 }
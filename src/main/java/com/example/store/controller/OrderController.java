@@ -1,28 +1,44 @@
 package com.example.store.controller;
 
+import com.example.store.cache.VersionedBy;
+import com.example.store.cache.VersionedCollection;
+import com.example.store.catalog.ProductCatalog;
 import com.example.store.configuration.CacheConfiguration;
+import com.example.store.dto.BulkOrderImportDTO;
+import com.example.store.dto.OrderCustomerDTO;
 import com.example.store.dto.OrderDTO;
-import com.example.store.entity.Customer;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.dto.PageDTO;
 import com.example.store.entity.Order;
 import com.example.store.entity.Product;
+import com.example.store.event.OrderCreatedEvent;
 import com.example.store.exception.api.ApiBadRequestException;
 import com.example.store.exception.api.ApiNotFoundException;
 import com.example.store.mapper.OrderMapper;
-import com.example.store.repository.CustomerRepository;
+import com.example.store.readmodel.ReadModel;
+import com.example.store.repository.OrderInsertResult;
 import com.example.store.repository.OrderRepository;
-import com.example.store.repository.ProductRepository;
+import com.example.store.service.BulkOrderImportService;
+import com.example.store.warmup.WarmUp;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 
 import lombok.RequiredArgsConstructor;
 
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -30,9 +46,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,65 +63,167 @@ import java.util.Optional;
 @Validated
 public class OrderController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private static final int STREAM_FLUSH_INTERVAL = 100;
+
     private final OrderRepository orderRepository;
     private final OrderMapper orderMapper;
-    private final CacheManager cacheManager;
-    private final CustomerRepository customerRepository;
-    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final BulkOrderImportService bulkOrderImportService;
+    private final ObjectProvider<ReadModel> readModel;
+    private final ProductCatalog productCatalog;
 
+    /*
+       The GETs are served from the read model when it is enabled and connected, see ReadModelConfiguration
+
+       Concurrent misses share one load without holding a lock, so a caller stuck behind a slow load gives up with a
+       503 and is counted, see CoalescingCaffeineCache.
+    */
     @GetMapping
-    @Cacheable(value = CacheConfiguration.ALL_ORDERS)
+    @Cacheable(value = CacheConfiguration.ALL_ORDERS, sync = true)
+    @VersionedBy(VersionedCollection.ORDERS)
+    @WarmUp(hotIdCache = CacheConfiguration.ORDERS)
     public List<OrderDTO> getAllOrders() {
-        return orderMapper.ordersToOrderDTOs(orderRepository.findAll());
+        return ReadModel.serving(readModel)
+                .map(ReadModel::orders)
+                .orElseGet(() -> orderMapper.ordersToOrderDTOs(orderRepository.findAll()));
+    }
+
+    /*
+       Opt-in keyset pagination. Supplying 'limit' selects this mapping over the unpaged one above, so existing
+       callers are unaffected. Each page is cached under its own key so the cache never holds the whole table.
+       Concurrent misses share one load, as for getAllOrders.
+    */
+    @GetMapping(params = "limit", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Cacheable(value = CacheConfiguration.ALL_ORDERS, key = "'page:' + #after + ':' + #limit", sync = true)
+    @VersionedBy(VersionedCollection.ORDERS)
+    public PageDTO<OrderDTO> getOrderPage(
+            @RequestParam(name = "after", defaultValue = "0") @PositiveOrZero Long after,
+            @RequestParam(name = "limit") @Positive @Max(PageDTO.MAX_LIMIT) Integer limit) {
+        Optional<ReadModel> servingReadModel = ReadModel.serving(readModel);
+        if (servingReadModel.isPresent()) {
+            return servingReadModel.get().orderPage(after, limit);
+        }
+        List<Long> ids = orderRepository.findIdsAfter(after, PageRequest.ofSize(limit));
+        List<Order> orders = ids.isEmpty() ? List.of() : orderRepository.findByIdInOrderByIdAsc(ids);
+        return PageDTO.of(orderMapper.ordersToOrderDTOs(orders), limit, OrderDTO::getId);
     }
 
+    /*
+       For clients which genuinely need every order. Each order is written as a line of JSON as soon as it has been
+       read, so neither the entities, the DTOs nor the response body are ever held in memory as a whole.
+       This is intentionally not cached; caching it would reintroduce the whole table on the heap. Nor is it
+       conditional: the body is written after the handler returns, so there is no point at which it is known to have
+       succeeded before the headers go out.
+    */
+    @GetMapping(path = "/stream", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllOrders() {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper
+                    .writerFor(OrderDTO.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                int[] written = {0};
+                orderRepository.streamAll(orderDTO -> {
+                    try {
+                        writer.write(orderDTO);
+                        // Flush the first order straight away so the client sees bytes immediately.
+                        if (written[0]++ % STREAM_FLUSH_INTERVAL == 0) {
+                            writer.flush();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    /*
+       The new order is added to the cached listings by CacheMaintainer rather than evicting them.
+    */
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    @Caching(
-            evict = {
-                @CacheEvict(value = CacheConfiguration.ALL_ORDERS, allEntries = true),
-                @CacheEvict(value = CacheConfiguration.ALL_CUSTOMERS, allEntries = true),
-                @CacheEvict(value = CacheConfiguration.CUSTOMERS, allEntries = true)
-            })
     public OrderDTO createOrder(@RequestBody @Valid final Order order) {
         Long customerId = order.getCustomer().getId();
-        Optional<Customer> customerOptional = customerRepository.findById(customerId);
-        if (customerOptional.isEmpty()) {
-            throw new ApiNotFoundException(customerId, "Customer");
-        }
-        Customer customerEntity = customerOptional.get();
         /*
-        Copying the order. Allowing the caller to send an entity with an ID will lead to all sorts of issues.
+        Allowing the caller to send an entity with an ID will lead to all sorts of issues, so only the description,
+        customer.id and products[n].id are read from the request.
         The request objects should have all been model object with the appropriate fields.
         For example, in the real world a product would also be associated with a quantity so
         the model for this endpoint would need only, description, customer.id and products[n].id with
         products[n].quantity.
         */
-        final Order orderEntity = new Order();
-        orderEntity.setCustomer(customerEntity);
-        customerEntity.getOrders().add(orderEntity);
-        orderEntity.setDescription(order.getDescription());
         if (CollectionUtils.isEmpty(order.getProducts())) {
             // If we were using a model object then this could be annotated on the request object
             throw new ApiBadRequestException("At least one product is required", "order.product.size");
         }
-        order.getProducts().forEach(p -> {
-            Optional<Product> productOptional = productRepository.findById(p.getId());
-            if (productOptional.isEmpty()) {
-                throw new ApiNotFoundException(p.getId(), "Product");
-            }
-            Product product = productOptional.get();
-            orderEntity.getProducts().add(product);
-            product.getOrders().add(orderEntity);
-        });
-        Order savedOrder = orderRepository.save(orderEntity);
-        OrderDTO orderDTO = orderMapper.orderToOrderDTO(savedOrder);
-        try {
-            cacheManager.getCache(CacheConfiguration.ORDERS).putIfAbsent(orderDTO.getId(), orderDTO);
-        } catch (RuntimeException ex) {
-            // If the caching isn't working we don't want the application to fail.
-            // TODO log this
+        List<Long> productIds = order.getProducts().stream().map(Product::getId).toList();
+        if (productIds.contains(null)) {
+            throw new ApiBadRequestException("Every product requires an ID", "api.bad.request");
+        }
+        /*
+        order_product holds one row per product of an order, so a repeated product would be stored once but listed
+        twice in the response and the cached listings. Until there is a quantity it is turned away.
+        */
+        if (productIds.stream().distinct().count() != productIds.size()) {
+            throw new ApiBadRequestException("A product may only be listed once", "order.product.duplicate");
+        }
+        // Checked against the ProductCatalog, so an unknown product is turned away without a round trip
+        List<Long> missingProductIds = productCatalog.missing(productIds);
+        if (!missingProductIds.isEmpty()) {
+            throw new ApiNotFoundException(missingProductIds.get(0), "Product");
+        }
+        /*
+        The customer and product lookups and the inserts are a single statement. Over a high latency link that is one
+        round trip instead of 2N+3.
+        */
+        OrderInsertResult result = orderRepository.insertOrder(customerId, order.getDescription(), productIds);
+        if (!result.customerFound()) {
+            throw new ApiNotFoundException(customerId, "Customer");
+        }
+        if (!result.missingProductIds().isEmpty()) {
+            throw new ApiNotFoundException(result.missingProductIds().get(0), "Product");
         }
+        OrderDTO orderDTO = toOrderDTO(result, customerId, order.getDescription(), productIds);
+        eventPublisher.publishEvent(new OrderCreatedEvent(orderDTO));
+        return orderDTO;
+    }
+
+    /*
+       Bulk ingest of newline delimited orders, each line shaped like the body of POST /order.
+       The body is read as a stream rather than bound, so arbitrarily large uploads never sit in memory.
+       Lines which fail validation are reported in the response and do not stop the import.
+       The service tells the caches about the import itself, since it may fail after committing some of it.
+    */
+    @PostMapping(path = "/bulk", consumes = APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public BulkOrderImportDTO importOrders(HttpServletRequest request) throws IOException {
+        return bulkOrderImportService.importOrders(request.getInputStream());
+    }
+
+    private OrderDTO toOrderDTO(
+            OrderInsertResult result, Long customerId, String description, List<Long> productIds) {
+        OrderCustomerDTO customer = new OrderCustomerDTO();
+        customer.setId(customerId);
+        customer.setName(result.customerName());
+        List<OrderProductDTO> products = new ArrayList<>(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            OrderProductDTO product = new OrderProductDTO();
+            product.setId(productIds.get(i));
+            product.setDescription(result.productDescriptions().get(i));
+            products.add(product);
+        }
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setId(result.orderId());
+        orderDTO.setDescription(description);
+        orderDTO.setCustomer(customer);
+        orderDTO.setProducts(products);
         return orderDTO;
     }
 
@@ -109,8 +232,14 @@ public class OrderController {
     (unless you are writing the spec first and generating the code from that).
     */
     @GetMapping(path = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    @Cacheable(value = CacheConfiguration.ORDERS)
+    @Cacheable(value = CacheConfiguration.ORDERS, sync = true)
+    @VersionedBy(VersionedCollection.ORDERS)
     public OrderDTO getOrderById(@PathVariable(name = "id") @Positive Long id) {
+        // An order the read model does not have yet may still be in the database
+        Optional<OrderDTO> fromReadModel = ReadModel.serving(readModel).flatMap(model -> model.order(id));
+        if (fromReadModel.isPresent()) {
+            return fromReadModel.get();
+        }
         Optional<Order> order = orderRepository.findById(id);
         if (order.isEmpty()) {
             throw new ApiNotFoundException(id, "Order");
@@ -1,20 +1,29 @@
 package com.example.store.controller;
 
+import com.example.store.cache.VersionedBy;
+import com.example.store.cache.VersionedCollection;
+import com.example.store.catalog.ProductCatalog;
+import com.example.store.configuration.CacheConfiguration;
 import com.example.store.dto.ProductDTO;
 import com.example.store.dto.ProductSummaryDTO;
 import com.example.store.entity.Product;
-import com.example.store.entity.ProductSummaryProjection;
+import com.example.store.event.ProductCreatedEvent;
 import com.example.store.exception.api.ApiBadRequestException;
 import com.example.store.exception.api.ApiNotFoundException;
 import com.example.store.mapper.ProductMapper;
 import com.example.store.presentation.CreateProductRequest;
+import com.example.store.readmodel.ReadModel;
 import com.example.store.repository.ProductRepository;
+import com.example.store.warmup.WarmUp;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -45,41 +54,50 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 public class ProductController {
 
     /*
-       Note here that I am not implementing caching for products due to the time it would take.
-       Were this a production application then I would.
+       Only the listing is cached, in ALL_PRODUCTS and kept up to date by CacheMaintainer. A single product is a
+       cheap lookup by primary key.
     */
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<ReadModel> readModel;
+    private final ProductCatalog productCatalog;
 
+    /*
+       Concurrent misses share one load, see OrderController.getAllOrders.
+    */
     @GetMapping(produces = APPLICATION_JSON_VALUE)
+    @Cacheable(value = CacheConfiguration.ALL_PRODUCTS, sync = true)
+    @VersionedBy({VersionedCollection.PRODUCTS, VersionedCollection.ORDERS})
+    @WarmUp
     public List<ProductSummaryDTO> getAllProducts() {
-        List<ProductSummaryProjection> productSummaries = productRepository.findAllBy();
-        return productSummaries.stream()
-                .map(s -> ProductSummaryDTO.builder()
-                        .id(s.getId())
-                        .description(s.getDescription())
-                        .orders(s.getOrders().stream()
-                                .map(ProductSummaryProjection.OrderProjection::getId)
-                                .toList())
-                        .build())
-                .toList();
+        return ReadModel.serving(readModel).map(ReadModel::products).orElseGet(productRepository::findAllSummaries);
     }
 
+    /*
+       Without the read model the description comes from the ProductCatalog and only the order IDs are read, from an
+       index. A product the catalog doesn't have is read whole and added to it.
+    */
     @GetMapping(path = "/{id}", produces = APPLICATION_JSON_VALUE)
+    @VersionedBy({VersionedCollection.PRODUCTS, VersionedCollection.ORDERS})
     public ProductSummaryDTO getProductById(@PathVariable("id") @Positive Long id) {
-        Optional<ProductSummaryProjection> productSummary = productRepository.findProjectionById(id);
+        Optional<ProductSummaryDTO> productSummary = ReadModel.serving(readModel)
+                .flatMap(model -> model.product(id))
+                .or(() -> productCatalog.description(id).map(description -> ProductSummaryDTO.builder()
+                        .id(id)
+                        .description(description)
+                        .orders(productRepository.findOrderIdsByProductId(id))
+                        .build()))
+                .or(() -> {
+                    Optional<ProductSummaryDTO> found = productRepository.findSummaryById(id);
+                    found.ifPresent(summary -> productCatalog.put(summary.getId(), summary.getDescription()));
+                    return found;
+                });
         if (productSummary.isEmpty()) {
             throw new ApiNotFoundException(id, "Product");
         }
-        ProductSummaryProjection product = productSummary.get();
-        return ProductSummaryDTO.builder()
-                .id(product.getId())
-                .description(product.getDescription())
-                .orders(product.getOrders().stream()
-                        .map(ProductSummaryProjection.OrderProjection::getId)
-                        .toList())
-                .build();
+        return productSummary.get();
     }
 
     @PostMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
@@ -93,6 +111,8 @@ public class ProductController {
         Product product = new Product();
         product.setDescription(request.getDescription());
         Product saved = productRepository.save(product);
-        return productMapper.productToProductDTO(saved);
+        ProductDTO productDTO = productMapper.productToProductDTO(saved);
+        eventPublisher.publishEvent(new ProductCreatedEvent(productDTO));
+        return productDTO;
     }
 }
@@ -0,0 +1,47 @@
+package com.example.store.datasource;
+
+import java.time.Duration;
+
+/*
+   Decides when reads must go to the primary despite being read-only.
+
+   A request is pinned when it writes, or when its client wrote within the sticky window, whichever instance the
+   client lands on. The client carries the time of its last write in a cookie (see ReadYourWritesFilter), so one
+   client's writes never pin another's reads.
+
+   Nothing pins the instance as a whole. Listings evicted by another instance's write (see CacheMaintainer) may be
+   reloaded from a replica which has not caught up, and are then stale until they expire.
+*/
+public class ReadYourWrites {
+
+    private final ThreadLocal<Boolean> pinned = ThreadLocal.withInitial(() -> false);
+    private final Duration window;
+
+    public ReadYourWrites(Duration window) {
+        this.window = window;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    /*
+       The write time comes from the client, and from another instance's clock. One in the future pins until the
+       cookie carrying it expires.
+    */
+    public boolean isWithinWindow(long writtenAtMillis) {
+        return System.currentTimeMillis() - writtenAtMillis < window.toMillis();
+    }
+
+    public void pinCurrentThread() {
+        pinned.set(true);
+    }
+
+    public void unpinCurrentThread() {
+        pinned.remove();
+    }
+
+    public boolean isPinned() {
+        return pinned.get();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.store.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.Set;
+
+/*
+   Pins a request to the primary when it writes, or when the same client wrote within the sticky window.
+   The cookie holds the time of the client's last write, in epoch milliseconds, and expires with the window. So a client
+   which stops writing goes back to the replicas by itself, even one which keeps the cookie.
+*/
+@RequiredArgsConstructor
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE_NAME = "store-primary";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ReadYourWrites readYourWrites;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean write = !READ_METHODS.contains(request.getMethod());
+        if (write) {
+            /*
+               Set up front, the response may be committed by the time the chain returns. So the window runs from the
+               start of the write rather than its commit, which is shorter by the time the write takes.
+            */
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(System.currentTimeMillis()));
+            cookie.setMaxAge(Math.max(1, (int) readYourWrites.getWindow().toSeconds()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+        if (write || wroteWithinWindow(request)) {
+            readYourWrites.pinCurrentThread();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            readYourWrites.unpinCurrentThread();
+        }
+    }
+
+    private boolean wroteWithinWindow(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            return readYourWrites.isWithinWindow(Long.parseLong(cookie.getValue()));
+        } catch (NumberFormatException ex) {
+            // Not one of ours
+            return false;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.store.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/*
+   Read replicas, see ReplicaRoutingConfiguration. The primary is still configured by spring.datasource.
+   * retryAfter - how long a replica which failed to hand out a connection is skipped before it is tried again
+   * connectionTimeout - kept short, so an unreachable replica costs little before falling back to the primary
+   * stickyWindow - how long a client's reads go to the primary after it writes, see ReadYourWrites
+*/
+@ConfigurationProperties("store.datasource")
+public record ReplicaProperties(
+        @DefaultValue List<Replica> replicas,
+        @DefaultValue("30s") Duration retryAfter,
+        @DefaultValue("2s") Duration connectionTimeout,
+        @DefaultValue("5s") Duration stickyWindow) {
+
+    public record Replica(String url, String username, String password) {}
+}
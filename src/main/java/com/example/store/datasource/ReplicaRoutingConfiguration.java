@@ -0,0 +1,97 @@
+package com.example.store.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+   Sends read-only transactions to the replicas and everything else to the primary. Only active when at least one
+   replica is configured:
+
+   store:
+     datasource:
+       replicas:
+         - url: jdbc:postgresql://localhost:5434/store
+           username: admin
+           password: admin
+
+   LazyConnectionDataSourceProxy only fetches the real connection at the first statement, by which point the
+   transaction manager has marked it read-only or not. Every @Transactional(readOnly = true) method, including the
+   Spring Data finders, therefore reads from a replica without the code having to know about it.
+
+   The primary pool is still built from spring.datasource, so the rest of the configuration is unaffected.
+*/
+@Configuration
+@ConditionalOnProperty("store.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfiguration implements DisposableBean {
+
+    private final List<HikariDataSource> replicaPools = new ArrayList<>();
+
+    @Bean
+    public ReadYourWrites readYourWrites(ReplicaProperties replicaProperties) {
+        return new ReadYourWrites(replicaProperties.stickyWindow());
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadYourWrites readYourWrites) {
+        return new ReadYourWritesFilter(readYourWrites);
+    }
+
+    /*
+       The routing DataSource below is @Primary, so everything which injects a DataSource gets that one instead.
+    */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties
+                .initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            ReplicaProperties replicaProperties,
+            ReadYourWrites readYourWrites) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.replicas().size(); i++) {
+            ReplicaProperties.Replica replica = replicaProperties.replicas().get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + i);
+            pool.setJdbcUrl(replica.url());
+            pool.setUsername(replica.username());
+            pool.setPassword(replica.password());
+            pool.setReadOnly(true);
+            pool.setConnectionTimeout(replicaProperties.connectionTimeout().toMillis());
+            // Don't fail startup when a replica is down, the routing falls back to the primary
+            pool.setInitializationFailTimeout(-1);
+            replicaPools.add(pool);
+            replicas.add(pool);
+        }
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(
+                primary, replicas, readYourWrites, replicaProperties.retryAfter()));
+        return dataSource;
+    }
+
+    @Override
+    public void destroy() {
+        replicaPools.forEach(HikariDataSource::close);
+    }
+}
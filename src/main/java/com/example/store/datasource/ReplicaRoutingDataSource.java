@@ -0,0 +1,75 @@
+package com.example.store.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+   The read-only side of the routing. Hands out connections from the replicas in turn.
+
+   A replica which fails to hand out a connection is skipped for retryAfter and the next one is tried. When no replica
+   is available, or ReadYourWrites says the caller must see its own writes, the connection comes from the primary.
+   Only connection failures count: a replica which is up but lagging is the job of the sticky window.
+*/
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final long retryAfterNanos;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLongArray unavailableUntilNanos;
+
+    public ReplicaRoutingDataSource(
+            DataSource primary, List<DataSource> replicas, ReadYourWrites readYourWrites, Duration retryAfter) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWrites = readYourWrites;
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.unavailableUntilNanos = new AtomicLongArray(replicas.size());
+        long now = System.nanoTime();
+        for (int i = 0; i < replicas.size(); i++) {
+            unavailableUntilNanos.set(i, now);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readYourWrites.isPinned()) {
+            return primary.getConnection();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            if (System.nanoTime() - unavailableUntilNanos.get(index) < 0) {
+                continue;
+            }
+            try {
+                return replicas.get(index).getConnection();
+            } catch (SQLException ex) {
+                log.warn("Replica {} is unavailable, skipping it for {} ms", index, retryAfterNanos / 1_000_000, ex);
+                unavailableUntilNanos.set(index, System.nanoTime() + retryAfterNanos);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /*
+       The replicas each have their own credentials, so connections are only handed out with those
+    */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Credentials are configured per replica");
+    }
+}
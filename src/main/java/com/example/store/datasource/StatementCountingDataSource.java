@@ -0,0 +1,109 @@
+package com.example.store.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+
+/*
+   Records every statement execution in StatementStatistics. A JDBC batch is sent in one go, so executeBatch counts
+   as a single statement however many rows it holds.
+
+   With an injected latency (store.datasource.injected-latency) every execution, commit and rollback first sleeps for
+   it, as if the database were that much further away. This is for benchmarking against a local database, see
+   LoadBenchmark, and is off by default. The sleep counts towards the recorded statement time.
+*/
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("createStatement", "prepareStatement", "prepareCall");
+    private static final Set<String> EXECUTIONS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final Set<String> ROUND_TRIPS = Set.of("commit", "rollback");
+
+    private final Duration injectedLatency;
+
+    public StatementCountingDataSource(DataSource dataSource) {
+        this(dataSource, Duration.ZERO);
+    }
+
+    public StatementCountingDataSource(DataSource dataSource, Duration injectedLatency) {
+        super(dataSource);
+        this.injectedLatency = injectedLatency;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private Connection counting(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            if (ROUND_TRIPS.contains(method.getName())) {
+                delay();
+            }
+            Object result = invoke(connection, method, args);
+            if (STATEMENT_FACTORIES.contains(method.getName())) {
+                return counting((Statement) result);
+            }
+            return result;
+        });
+    }
+
+    private Statement counting(Statement statement) {
+        Class<? extends Statement> type = statement instanceof CallableStatement
+                ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return proxy(type, (proxy, method, args) -> {
+            if (!EXECUTIONS.contains(method.getName())) {
+                return invoke(statement, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                delay();
+                return invoke(statement, method, args);
+            } finally {
+                StatementStatistics.record(System.nanoTime() - start);
+            }
+        });
+    }
+
+    private void delay() throws SQLException {
+        if (injectedLatency.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(injectedLatency);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted during the injected latency", ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.store.datasource;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/*
+   Wraps the application DataSource in a StatementCountingDataSource.
+   When there are several DataSource beans, as with ReplicaRoutingConfiguration, only the @Primary one is wrapped. It
+   sits in front of the others, so wrapping them as well would count their statements twice.
+   A post processor is created before configuration properties can be bound, so the injected latency is read from the
+   Environment.
+*/
+@Component
+public class StatementCountingPostProcessor implements BeanPostProcessor, BeanFactoryAware, EnvironmentAware {
+
+    private ConfigurableListableBeanFactory beanFactory;
+    private Duration injectedLatency = Duration.ZERO;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.injectedLatency =
+                environment.getProperty("store.datasource.injected-latency", Duration.class, Duration.ZERO);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof DataSource dataSource
+                && !(bean instanceof StatementCountingDataSource)
+                && isApplicationDataSource(beanName)) {
+            return new StatementCountingDataSource(dataSource, injectedLatency);
+        }
+        return bean;
+    }
+
+    private boolean isApplicationDataSource(String beanName) {
+        String[] dataSourceNames = beanFactory.getBeanNamesForType(DataSource.class, true, false);
+        if (dataSourceNames.length <= 1) {
+            return true;
+        }
+        return beanFactory.containsBeanDefinition(beanName)
+                && beanFactory.getBeanDefinition(beanName).isPrimary();
+    }
+}
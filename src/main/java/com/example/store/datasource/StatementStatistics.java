@@ -0,0 +1,56 @@
+package com.example.store.datasource;
+
+import java.time.Duration;
+
+/*
+   The JDBC statements executed by the current HTTP request, and the time spent executing them. With the database far
+   away from the application each statement is at least one network round trip, so the count is the number to watch.
+
+   Bound to the request thread by StatementStatisticsFilter and fed by StatementCountingDataSource. Statements
+   executed on other threads, for example by GET /order/stream, are not attributed to the request.
+*/
+public final class StatementStatistics {
+
+    public static final String STATEMENTS_HEADER = "X-DB-Statements";
+    public static final String TIME_HEADER = "X-DB-Time";
+
+    private static final ThreadLocal<StatementStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long nanos;
+
+    private StatementStatistics() {}
+
+    static StatementStatistics start() {
+        StatementStatistics statistics = new StatementStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    /*
+       Null outside of a request.
+    */
+    public static StatementStatistics current() {
+        return CURRENT.get();
+    }
+
+    static void record(long nanos) {
+        StatementStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+            statistics.nanos += nanos;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public Duration getTime() {
+        return Duration.ofNanos(nanos);
+    }
+}
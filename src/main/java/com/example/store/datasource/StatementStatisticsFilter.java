@@ -0,0 +1,42 @@
+package com.example.store.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/*
+   Collects the StatementStatistics of each request and logs them at debug level. The counts also go out as response
+   headers, see StatementStatisticsResponseAdvice, which is how the tests hold each endpoint to a statement budget.
+*/
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class StatementStatisticsFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementStatistics statistics = StatementStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            StatementStatistics.stop();
+            log.debug(
+                    "{} {} executed {} statements in {} ms",
+                    request.getMethod(),
+                    request.getRequestURI(),
+                    statistics.getStatements(),
+                    statistics.getTime().toMillis());
+        }
+    }
+}
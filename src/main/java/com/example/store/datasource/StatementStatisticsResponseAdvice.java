@@ -0,0 +1,43 @@
+package com.example.store.datasource;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/*
+   Adds the StatementStatistics of the request to the response headers. This runs after the handler, including any
+   exception handler, and before the body is written, so the headers carry every statement the response depended on.
+*/
+@ControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StatementStatisticsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(
+            Object body,
+            MethodParameter returnType,
+            MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType,
+            ServerHttpRequest request,
+            ServerHttpResponse response) {
+        StatementStatistics statistics = StatementStatistics.current();
+        if (statistics != null) {
+            HttpHeaders headers = response.getHeaders();
+            headers.set(StatementStatistics.STATEMENTS_HEADER, String.valueOf(statistics.getStatements()));
+            headers.set(StatementStatistics.TIME_HEADER, String.valueOf(statistics.getTime().toMillis()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.store.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderErrorDTO {
+    private long line;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package com.example.store.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkOrderImportDTO {
+    private long accepted;
+    private long rejected;
+    private List<BulkOrderErrorDTO> errors = new ArrayList<>();
+    /*
+       True when more lines were rejected than are reported in 'errors'.
+    */
+    private boolean errorsTruncated;
+}
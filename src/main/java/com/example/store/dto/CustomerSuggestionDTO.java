@@ -0,0 +1,9 @@
+package com.example.store.dto;
+
+import lombok.Data;
+
+@Data
+public class CustomerSuggestionDTO {
+    private Long id;
+    private String name;
+}
@@ -0,0 +1,34 @@
+package com.example.store.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/*
+   A single page of a keyset (cursor) paginated listing. The caller passes 'next' back as the 'after' parameter to
+   fetch the following page. When 'next' is null there are no more rows.
+*/
+@Data
+@Builder
+public class PageDTO<T> {
+
+    public static final int MAX_LIMIT = 1000;
+
+    @Builder.Default
+    private List<T> items = new ArrayList<>();
+
+    private Long next;
+
+    public static <T> PageDTO<T> of(List<T> items, int limit, Function<T, Long> idExtractor) {
+        /*
+           A short page means we have reached the end of the table. A full page may still be the last one, in which
+           case the caller will receive one extra, empty, page. That is cheaper than issuing a count or fetching
+           limit + 1 rows and trimming.
+        */
+        Long next = items.size() < limit ? null : idExtractor.apply(items.get(items.size() - 1));
+        return PageDTO.<T>builder().items(items).next(next).build();
+    }
+}
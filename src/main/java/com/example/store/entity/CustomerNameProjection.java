@@ -0,0 +1,8 @@
+package com.example.store.entity;
+
+public interface CustomerNameProjection {
+
+    Long getId();
+
+    String getName();
+}
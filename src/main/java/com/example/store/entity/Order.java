@@ -5,12 +5,17 @@ import jakarta.validation.Valid;
 
 import lombok.Data;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Data
 @Table(name = "\"order\"")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,5 +33,6 @@ public class Order {
             name = "order_product",
             joinColumns = @JoinColumn(name = "order_id"),
             inverseJoinColumns = @JoinColumn(name = "product_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<@Valid Product> products = new ArrayList<>();
 }
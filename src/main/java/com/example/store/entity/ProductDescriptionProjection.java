@@ -0,0 +1,8 @@
+package com.example.store.entity;
+
+public interface ProductDescriptionProjection {
+
+    Long getId();
+
+    String getDescription();
+}
@@ -0,0 +1,7 @@
+package com.example.store.event;
+
+/*
+   Published when writes by other instances may have been missed, because the connection they are reported on was
+   lost. Anything cached may be stale.
+*/
+public record CacheCoherenceLostEvent() {}
@@ -0,0 +1,8 @@
+package com.example.store.event;
+
+import com.example.store.dto.CustomerDTO;
+
+/*
+   Published once a new customer has been committed.
+*/
+public record CustomerCreatedEvent(CustomerDTO customer) {}
@@ -0,0 +1,8 @@
+package com.example.store.event;
+
+import com.example.store.dto.OrderDTO;
+
+/*
+   Published once a new order has been committed.
+*/
+public record OrderCreatedEvent(OrderDTO order) {}
@@ -0,0 +1,6 @@
+package com.example.store.event;
+
+/*
+   Published once a bulk import has committed all of its chunks. Only the number of orders is known, not the orders.
+*/
+public record OrdersImportedEvent(long accepted) {}
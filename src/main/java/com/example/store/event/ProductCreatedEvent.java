@@ -0,0 +1,8 @@
+package com.example.store.event;
+
+import com.example.store.dto.ProductDTO;
+
+/*
+   Published once a new product has been committed.
+*/
+public record ProductCreatedEvent(ProductDTO product) {}
@@ -0,0 +1,9 @@
+package com.example.store.event;
+
+import com.example.store.cache.VersionedCollection;
+
+/*
+   Published when another instance reports a write, see CacheInvalidationListener. Only what changed is known, not the
+   new rows. customerId is the customer of a new order, null when it is not known, as after a bulk import.
+*/
+public record RemoteChangeEvent(VersionedCollection collection, Long customerId) {}
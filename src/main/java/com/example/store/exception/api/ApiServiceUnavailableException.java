@@ -0,0 +1,16 @@
+package com.example.store.exception.api;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class ApiServiceUnavailableException extends RuntimeException {
+
+    private Duration retryAfter;
+
+    public ApiServiceUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -59,6 +59,23 @@ public class StoreExceptionHandler extends ResponseEntityExceptionHandler {
                 ex, problemDetail, HttpHeaders.EMPTY, HttpStatusCode.valueOf(HttpStatus.BAD_REQUEST.value()), request);
     }
 
+    /*
+       The request may well succeed if retried, so the client is told when. Retry-After is in whole seconds.
+    */
+    @ExceptionHandler(ApiServiceUnavailableException.class)
+    public ResponseEntity<Object> handleApiServiceUnavailableException(
+            ApiServiceUnavailableException ex, WebRequest request) {
+        logger.warn(ex.getMessage());
+        ProblemDetail problemDetail = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        problemDetail.setTitle(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase());
+        String message = getMessageSource().getMessage("api.service.unavailable", new Object[0], Locale.getDefault());
+        problemDetail.setDetail(message);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ex.getRetryAfter().toSeconds())));
+        return handleExceptionInternal(
+                ex, problemDetail, headers, HttpStatusCode.valueOf(HttpStatus.SERVICE_UNAVAILABLE.value()), request);
+    }
+
     @ExceptionHandler(PersistenceException.class)
     public ResponseEntity<Object> handlePersistenceException(PersistenceException ex, WebRequest request) {
         logger.error(ex.getMessage(), ex);
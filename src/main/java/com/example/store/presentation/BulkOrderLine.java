@@ -0,0 +1,39 @@
+package com.example.store.presentation;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import lombok.Data;
+
+import java.util.List;
+
+/*
+   One line of a bulk order upload. The shape matches the body of POST /order so that upstream systems can send the
+   same documents to either endpoint.
+*/
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Data
+public class BulkOrderLine {
+
+    @NotBlank
+    @Size(max = 255)
+    private String description;
+
+    @NotNull @Valid private Reference customer;
+
+    @NotEmpty(message = "{order.product.size}")
+    private List<@NotNull @Valid Reference> products;
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @Data
+    public static class Reference {
+
+        @NotNull @Positive private Long id;
+    }
+}
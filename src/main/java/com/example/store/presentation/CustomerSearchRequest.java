@@ -2,7 +2,9 @@ package com.example.store.presentation;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 
 import lombok.Data;
@@ -11,7 +13,17 @@ import lombok.Data;
 @Data
 public class CustomerSearchRequest {
 
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
     @Size(min = 2, max = 255, message = "{customer.search.input}")
     @NotBlank(message = "{customer.search.input}")
     private String name;
+
+    /*
+       Only applied by the trigram search engine, which returns the best matches first.
+    */
+    @Positive(message = "{customer.search.limit}")
+    @Max(value = MAX_LIMIT, message = "{customer.search.limit}")
+    private Integer limit;
 }
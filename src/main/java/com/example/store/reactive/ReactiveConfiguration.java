@@ -0,0 +1,120 @@
+package com.example.store.reactive;
+
+import com.example.store.controller.CustomerSearchEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import reactor.netty.resources.LoopResources;
+
+/*
+   A non-blocking alternative to the read endpoints, GET /order, GET /order/{id}, GET /products, GET /products/{id}
+   and POST /customer/search, on WebFlux over R2DBC. Off by default. Turn it on with:
+
+   store:
+     reactive:
+       enabled: true
+
+   and the same paths answer on store.reactive.port as well as on the usual port. Writes stay on the servlet stack.
+
+   The server and the database driver share store.reactive.event-loop-threads threads. No request holds one while it
+   waits, so a few threads carry as many concurrent requests as the connection pool has room for, and those beyond it
+   queue for a connection without a thread each.
+
+   The connections go to spring.datasource, or to store.reactive.url, which may well be a replica since the path is
+   read only. The credentials of spring.datasource are used unless the URL has its own.
+*/
+@Configuration
+@ConditionalOnProperty(name = "store.reactive.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReactiveProperties.class)
+public class ReactiveConfiguration {
+
+    @Bean(destroyMethod = "dispose")
+    public LoopResources reactiveLoopResources(ReactiveProperties properties) {
+        return LoopResources.create("store-reactive", properties.eventLoopThreads(), true);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReactiveReadRepository reactiveReadRepository(
+            DataSourceProperties dataSourceProperties,
+            ReactiveProperties properties,
+            LoopResources reactiveLoopResources) {
+        String url = properties.url() == null ? r2dbcUrl(dataSourceProperties.determineUrl()) : properties.url();
+        ConnectionFactoryOptions parsed = ConnectionFactoryOptions.parse(url);
+        ConnectionFactoryOptions.Builder options =
+                parsed.mutate().option(PostgresqlConnectionFactoryProvider.LOOP_RESOURCES, reactiveLoopResources);
+        if (!parsed.hasOption(ConnectionFactoryOptions.USER) && dataSourceProperties.determineUsername() != null) {
+            options.option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername());
+            if (dataSourceProperties.determinePassword() != null) {
+                options.option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.determinePassword());
+            }
+        }
+        ConnectionPool connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(
+                        ConnectionFactories.get(options.build()))
+                .name("store-reactive")
+                .initialSize(0)
+                .maxSize(properties.maxConnections())
+                .build());
+        return new ReactiveReadRepository(connectionPool, properties.fetchSize());
+    }
+
+    @Bean
+    public ReactiveReadHandler reactiveReadHandler(
+            ReactiveReadRepository reactiveReadRepository,
+            @Value("${store.customer.search.engine:like}") CustomerSearchEngine searchEngine,
+            Validator validator,
+            MessageSource messageSource) {
+        return new ReactiveReadHandler(reactiveReadRepository, searchEngine, validator, messageSource);
+    }
+
+    /*
+       The application's ObjectMapper, so that the bodies are written exactly as the controllers write them
+    */
+    @Bean
+    public ReactiveServer reactiveServer(
+            ReactiveReadHandler reactiveReadHandler,
+            ObjectMapper objectMapper,
+            ReactiveProperties properties,
+            LoopResources reactiveLoopResources) {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        return new ReactiveServer(
+                RouterFunctions.toHttpHandler(reactiveReadHandler.routes(), strategies),
+                properties.port(),
+                reactiveLoopResources);
+    }
+
+    /*
+       jdbc:postgresql://host:port/database?options to r2dbc:postgresql://host:port/database. The JDBC options, such as
+       reWriteBatchedInserts, mean nothing to R2DBC.
+    */
+    static String r2dbcUrl(String jdbcUrl) {
+        if (jdbcUrl == null || !jdbcUrl.startsWith("jdbc:postgresql:")) {
+            throw new IllegalStateException("store.reactive.url is required unless spring.datasource.url is a "
+                    + "jdbc:postgresql: URL, but it is " + jdbcUrl);
+        }
+        int query = jdbcUrl.indexOf('?');
+        return "r2dbc:" + jdbcUrl.substring("jdbc:".length(), query < 0 ? jdbcUrl.length() : query);
+    }
+}
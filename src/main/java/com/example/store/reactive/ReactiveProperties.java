@@ -0,0 +1,29 @@
+package com.example.store.reactive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/*
+   The reactive read path, see ReactiveConfiguration.
+   * port - the port its own server listens on, beside Tomcat's. 0 picks a free one.
+   * eventLoopThreads - the threads serving every connection, to the clients and to the database alike
+   * url - an R2DBC URL such as r2dbc:postgresql://replica:5432/store. Defaults to spring.datasource.url.
+   * maxConnections - the size of the R2DBC pool. Requests beyond it wait for a connection without holding a thread.
+   * fetchSize - the rows fetched per round trip. The next batch is only fetched once the client has taken the last.
+*/
+@ConfigurationProperties("store.reactive")
+public record ReactiveProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("8081") int port,
+        @DefaultValue("4") int eventLoopThreads,
+        String url,
+        @DefaultValue("20") int maxConnections,
+        @DefaultValue("500") int fetchSize) {
+
+    public ReactiveProperties {
+        if (eventLoopThreads < 1 || maxConnections < 1 || fetchSize < 1) {
+            throw new IllegalArgumentException(
+                    "store.reactive.event-loop-threads, max-connections and fetch-size must be positive");
+        }
+    }
+}
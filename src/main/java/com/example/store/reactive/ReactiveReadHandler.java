@@ -0,0 +1,180 @@
+package com.example.store.reactive;
+
+import com.example.store.controller.CustomerSearchEngine;
+import com.example.store.controller.CustomerSearchKey;
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.ProductSummaryDTO;
+import com.example.store.exception.api.ApiBadRequestException;
+import com.example.store.exception.api.ApiNotFoundException;
+import com.example.store.presentation.CustomerSearchRequest;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+/*
+   The read endpoints of OrderController, ProductController and CustomerController on WebFlux, answering with the
+   same bodies and the same problem details. Lists are written as they are read, as a JSON array, or one document per
+   line for clients accepting application/x-ndjson.
+
+   These read the database every time. The application caches, the read model, the ETags and the statement headers
+   all belong to the servlet stack and are not consulted here.
+
+   A list is only read as its response is written, after these handlers have returned. A read failing before the
+   first element is therefore answered 500 without a problem body, and one failing part way through can only cut the
+   response short.
+*/
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveReadHandler {
+
+    private final ReactiveReadRepository repository;
+    private final CustomerSearchEngine searchEngine;
+    private final Validator validator;
+    private final MessageSource messageSource;
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/order", this::getAllOrders)
+                .GET("/order/{id}", this::getOrderById)
+                .GET("/products", this::getAllProducts)
+                .GET("/products/{id}", this::getProductById)
+                .POST("/customer/search", this::findCustomersByName)
+                .onError(Exception.class, this::error)
+                .build();
+    }
+
+    Mono<ServerResponse> getAllOrders(ServerRequest request) {
+        return list(request, repository.findAllOrders(), OrderDTO.class);
+    }
+
+    Mono<ServerResponse> getOrderById(ServerRequest request) {
+        return id(request).flatMap(id -> repository
+                .findOrderById(id)
+                .switchIfEmpty(Mono.error(() -> new ApiNotFoundException(id, "Order")))
+                .flatMap(order -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(order)));
+    }
+
+    Mono<ServerResponse> getAllProducts(ServerRequest request) {
+        return list(request, repository.findAllSummaries(), ProductSummaryDTO.class);
+    }
+
+    Mono<ServerResponse> getProductById(ServerRequest request) {
+        return id(request).flatMap(id -> repository
+                .findSummaryById(id)
+                .switchIfEmpty(Mono.error(() -> new ApiNotFoundException(id, "Product")))
+                .flatMap(product -> ServerResponse.ok().contentType(APPLICATION_JSON).bodyValue(product)));
+    }
+
+    Mono<ServerResponse> findCustomersByName(ServerRequest request) {
+        return request.bodyToMono(CustomerSearchRequest.class)
+                .switchIfEmpty(
+                        Mono.error(() -> new ApiBadRequestException("A search request is required", "api.bad.request")))
+                .flatMap(customerSearchRequest -> {
+                    Set<ConstraintViolation<CustomerSearchRequest>> violations =
+                            validator.validate(customerSearchRequest);
+                    if (!violations.isEmpty()) {
+                        return Mono.error(new ConstraintViolationException(violations));
+                    }
+                    return list(
+                            request,
+                            repository.findCustomersByName(CustomerSearchKey.of(searchEngine, customerSearchRequest)),
+                            CustomerDTO.class);
+                });
+    }
+
+    /*
+       As the @Positive path variables of the controllers.
+    */
+    private static Mono<Long> id(ServerRequest request) {
+        try {
+            long id = Long.parseLong(request.pathVariable("id"));
+            if (id > 0) {
+                return Mono.just(id);
+            }
+        } catch (NumberFormatException ex) {
+            // Answered as any other invalid ID
+        }
+        return Mono.error(new ApiBadRequestException("The ID must be a positive number", "api.bad.request"));
+    }
+
+    private static <T> Mono<ServerResponse> list(ServerRequest request, Flux<T> elements, Class<T> elementClass) {
+        MediaType mediaType =
+                request.headers().accept().contains(APPLICATION_NDJSON) ? APPLICATION_NDJSON : APPLICATION_JSON;
+        return ServerResponse.ok().contentType(mediaType).body(elements, elementClass);
+    }
+
+    /*
+       As StoreExceptionHandler answers the controllers.
+    */
+    private Mono<ServerResponse> error(Throwable ex, ServerRequest request) {
+        return switch (ex) {
+            case ApiNotFoundException notFound -> problem(
+                    HttpStatus.NOT_FOUND,
+                    message("api.resource.not.found", notFound.getResourceType(), notFound.getId()),
+                    Map.of());
+            case ApiBadRequestException badRequest -> problem(
+                    HttpStatus.BAD_REQUEST, message(badRequest.getMessageKey()), Map.of());
+            case ServerWebInputException unreadable -> {
+                log.debug(unreadable.getMessage());
+                yield problem(HttpStatus.BAD_REQUEST, message("api.bad.request"), Map.of());
+            }
+            // Unsupported media types and the like
+            case ResponseStatusException rejected -> problem(
+                    HttpStatus.valueOf(rejected.getStatusCode().value()), rejected.getReason(), Map.of());
+            case ConstraintViolationException invalid -> {
+                final Map<String, Set<String>> failures = new HashMap<>();
+                invalid.getConstraintViolations()
+                        .forEach(e -> failures
+                                .computeIfAbsent(e.getPropertyPath().toString(), field -> new HashSet<>())
+                                .add(e.getMessage()));
+                yield problem(HttpStatus.BAD_REQUEST, message("api.bad.request"), Map.of("failures", failures));
+            }
+            default -> {
+                log.error(ex.getMessage(), ex);
+                yield problem(HttpStatus.INTERNAL_SERVER_ERROR, message("api.internal.server.error"), Map.of());
+            }
+        };
+    }
+
+    private Mono<ServerResponse> problem(HttpStatus status, String detail, Map<String, Object> properties) {
+        ProblemDetail problemDetail = ProblemDetail.forStatus(status.value());
+        problemDetail.setTitle(status.getReasonPhrase());
+        problemDetail.setDetail(detail);
+        properties.forEach(problemDetail::setProperty);
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .bodyValue(problemDetail);
+    }
+
+    private String message(String key, Object... args) {
+        return messageSource.getMessage(key, args, Locale.getDefault());
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.store.reactive;
+
+import com.example.store.controller.CustomerSearchEngine;
+import com.example.store.controller.CustomerSearchKey;
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.dto.ProductSummaryDTO;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/*
+   The reads of the reactive path, each a single statement over R2DBC, as the JDBC repositories do it (see
+   OrderStreamRepositoryImpl, ProductSummaryRepositoryImpl and CustomerSearchRepositoryImpl). Nothing here blocks: a
+   statement is written to the connection and the rows are emitted as they arrive, on the event loop.
+
+   Rows are fetched fetchSize at a time, and the next batch is only asked for once the batch before has been taken, so
+   a slow client holds back the query rather than the rows piling up in memory. The joined rows of one order or
+   customer are adjacent, since the statements order by its ID, so bufferUntilChanged folds them into a DTO without
+   holding more than the one in hand.
+
+   The pool is owned here rather than being a bean. A ConnectionFactory bean would turn off the JDBC DataSource
+   auto-configuration.
+*/
+public class ReactiveReadRepository implements AutoCloseable {
+
+    private static final String ORDERS_SQL =
+            """
+            SELECT o.id AS order_id, o.description AS order_description,
+                   c.id AS customer_id, c.name AS customer_name,
+                   p.id AS product_id, p.description AS product_description
+            FROM "order" o
+            JOIN customer c ON c.id = o.customer_id
+            LEFT JOIN order_product op ON op.order_id = o.id
+            LEFT JOIN product p ON p.id = op.product_id
+            """;
+
+    private static final String FIND_ALL_ORDERS_SQL = ORDERS_SQL + " ORDER BY o.id";
+
+    private static final String FIND_ORDER_BY_ID_SQL = ORDERS_SQL + " WHERE o.id = $1";
+
+    private static final String SUMMARY_SQL =
+            """
+            SELECT p.id, p.description,
+                   COALESCE(array_agg(op.order_id ORDER BY op.order_id) FILTER (WHERE op.order_id IS NOT NULL), '{}')
+                       AS orders
+            FROM product p
+            LEFT JOIN order_product op ON op.product_id = p.id
+            """;
+
+    private static final String FIND_ALL_SUMMARIES_SQL = SUMMARY_SQL + " GROUP BY p.id ORDER BY p.id";
+
+    private static final String FIND_SUMMARY_BY_ID_SQL = SUMMARY_SQL + " WHERE p.id = $1 GROUP BY p.id";
+
+    private record OrderRow(
+            long orderId,
+            String orderDescription,
+            long customerId,
+            String customerName,
+            Long productId,
+            String productDescription) {}
+
+    private record CustomerRow(long customerId, String customerName, Long orderId, String orderDescription) {}
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+
+    public ReactiveReadRepository(ConnectionPool connectionPool, int fetchSize) {
+        this.connectionPool = connectionPool;
+        this.databaseClient = DatabaseClient.create(connectionPool);
+        this.fetchSize = fetchSize;
+    }
+
+    public Flux<OrderDTO> findAllOrders() {
+        return orders(databaseClient.sql(FIND_ALL_ORDERS_SQL));
+    }
+
+    public Mono<OrderDTO> findOrderById(Long id) {
+        return orders(databaseClient.sql(FIND_ORDER_BY_ID_SQL).bind(0, id)).next();
+    }
+
+    public Flux<ProductSummaryDTO> findAllSummaries() {
+        return summaries(databaseClient.sql(FIND_ALL_SUMMARIES_SQL));
+    }
+
+    public Mono<ProductSummaryDTO> findSummaryById(Long id) {
+        return summaries(databaseClient.sql(FIND_SUMMARY_BY_ID_SQL).bind(0, id)).next();
+    }
+
+    /*
+       The same customers as the engine in the key finds through JPA, each with their orders. The trigram engine ranks
+       and limits the customers first, so the limit counts customers rather than joined rows.
+    */
+    public Flux<CustomerDTO> findCustomersByName(CustomerSearchKey searchKey) {
+        List<String> tokens = searchKey.tokens();
+        if (tokens.isEmpty()) {
+            return Flux.empty();
+        }
+        List<Object> parameters = new ArrayList<>();
+        List<String> predicates = new ArrayList<>();
+        tokens.forEach(token -> {
+            parameters.add("%" + token + "%");
+            predicates.add("lower(c.name) LIKE $" + parameters.size());
+        });
+        String matching = "SELECT c.id, c.name%s FROM customer c WHERE " + String.join(" OR ", predicates);
+        String sql;
+        if (searchKey.engine() == CustomerSearchEngine.TRIGRAM) {
+            List<String> similarities = new ArrayList<>();
+            tokens.forEach(token -> {
+                parameters.add(token);
+                similarities.add("word_similarity($" + parameters.size() + ", lower(c.name))");
+            });
+            parameters.add(searchKey.limit());
+            sql = "WITH matched AS ("
+                    + matching.formatted(", GREATEST(" + String.join(", ", similarities) + ") AS similarity")
+                    + " ORDER BY similarity DESC, c.id LIMIT $" + parameters.size() + ")"
+                    + " SELECT m.id AS customer_id, m.name AS customer_name,"
+                    + " o.id AS order_id, o.description AS order_description"
+                    + " FROM matched m LEFT JOIN \"order\" o ON o.customer_id = m.id"
+                    + " ORDER BY m.similarity DESC, m.id, o.id";
+        } else {
+            sql = "WITH matched AS (" + matching.formatted("") + ")"
+                    + " SELECT m.id AS customer_id, m.name AS customer_name,"
+                    + " o.id AS order_id, o.description AS order_description"
+                    + " FROM matched m LEFT JOIN \"order\" o ON o.customer_id = m.id"
+                    + " ORDER BY m.id, o.id";
+        }
+        GenericExecuteSpec spec = databaseClient.sql(sql);
+        for (int i = 0; i < parameters.size(); i++) {
+            spec = spec.bind(i, parameters.get(i));
+        }
+        return fetched(spec)
+                .map(ReactiveReadRepository::customerRow)
+                .all()
+                .bufferUntilChanged(CustomerRow::customerId)
+                .map(ReactiveReadRepository::toCustomer);
+    }
+
+    @Override
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    private Flux<OrderDTO> orders(GenericExecuteSpec spec) {
+        return fetched(spec)
+                .map(ReactiveReadRepository::orderRow)
+                .all()
+                .bufferUntilChanged(OrderRow::orderId)
+                .map(ReactiveReadRepository::toOrder);
+    }
+
+    private Flux<ProductSummaryDTO> summaries(GenericExecuteSpec spec) {
+        return fetched(spec).map(ReactiveReadRepository::toSummary).all();
+    }
+
+    private GenericExecuteSpec fetched(GenericExecuteSpec spec) {
+        return spec.filter(statement -> statement.fetchSize(fetchSize));
+    }
+
+    private static OrderRow orderRow(Readable row) {
+        return new OrderRow(
+                Objects.requireNonNull(row.get("order_id", Long.class)),
+                row.get("order_description", String.class),
+                Objects.requireNonNull(row.get("customer_id", Long.class)),
+                row.get("customer_name", String.class),
+                row.get("product_id", Long.class),
+                row.get("product_description", String.class));
+    }
+
+    private static CustomerRow customerRow(Readable row) {
+        return new CustomerRow(
+                Objects.requireNonNull(row.get("customer_id", Long.class)),
+                row.get("customer_name", String.class),
+                row.get("order_id", Long.class),
+                row.get("order_description", String.class));
+    }
+
+    private static ProductSummaryDTO toSummary(Readable row) {
+        Long[] orders = row.get("orders", Long[].class);
+        return ProductSummaryDTO.builder()
+                .id(row.get("id", Long.class))
+                .description(row.get("description", String.class))
+                .orders(orders == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(orders)))
+                .build();
+    }
+
+    private static OrderDTO toOrder(List<OrderRow> rows) {
+        OrderRow first = rows.get(0);
+        OrderDTO order = new OrderDTO();
+        order.setId(first.orderId());
+        order.setDescription(first.orderDescription());
+        OrderCustomerDTO customer = new OrderCustomerDTO();
+        customer.setId(first.customerId());
+        customer.setName(first.customerName());
+        order.setCustomer(customer);
+        order.setProducts(new ArrayList<>());
+        rows.stream().filter(row -> row.productId() != null).forEach(row -> {
+            OrderProductDTO product = new OrderProductDTO();
+            product.setId(row.productId());
+            product.setDescription(row.productDescription());
+            order.getProducts().add(product);
+        });
+        return order;
+    }
+
+    private static CustomerDTO toCustomer(List<CustomerRow> rows) {
+        CustomerRow first = rows.get(0);
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(first.customerId());
+        customer.setName(first.customerName());
+        customer.setOrders(new ArrayList<>());
+        rows.stream().filter(row -> row.orderId() != null).forEach(row -> {
+            CustomerOrderDTO order = new CustomerOrderDTO();
+            order.setId(row.orderId());
+            order.setDescription(row.orderDescription());
+            customer.getOrders().add(order);
+        });
+        return customer;
+    }
+}
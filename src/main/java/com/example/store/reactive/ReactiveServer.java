@@ -0,0 +1,70 @@
+package com.example.store.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+
+/*
+   A Reactor Netty server of its own for the reactive read path. Spring Boot runs one web server per application, and
+   with Spring MVC on the classpath that is Tomcat, so this one is started beside it on store.reactive.port.
+*/
+@Slf4j
+public class ReactiveServer implements SmartLifecycle {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final HttpHandler httpHandler;
+    private final int port;
+    private final LoopResources loopResources;
+
+    private volatile DisposableServer server;
+
+    public ReactiveServer(HttpHandler httpHandler, int port, LoopResources loopResources) {
+        this.httpHandler = httpHandler;
+        this.port = port;
+        this.loopResources = loopResources;
+    }
+
+    @Override
+    public void start() {
+        server = HttpServer.create()
+                .port(port)
+                .runOn(loopResources)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Reactive read path listening on port {}", server.port());
+    }
+
+    @Override
+    public void stop() {
+        DisposableServer running = server;
+        server = null;
+        if (running != null) {
+            running.disposeNow(SHUTDOWN_TIMEOUT);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /*
+       The port bound, which differs from store.reactive.port when that is 0
+    */
+    public int getPort() {
+        DisposableServer running = server;
+        if (running == null) {
+            throw new IllegalStateException("The reactive server is not running");
+        }
+        return running.port();
+    }
+}
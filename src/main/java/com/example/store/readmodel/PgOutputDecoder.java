@@ -0,0 +1,164 @@
+package com.example.store.readmodel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+   Decodes the messages of the pgoutput plugin, protocol version 1, into row changes. See "Logical Replication
+   Message Formats" in the PostgreSQL documentation.
+
+   Every column arrives as text, keyed here by column name. A TOASTed column which an update left unchanged is sent
+   without its value and is left out of the map, so the caller keeps what it had.
+
+   Relation messages precede the first change to each table on a connection, so a decoder lives as long as its
+   replication connection.
+*/
+class PgOutputDecoder {
+
+    enum Kind {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    sealed interface Message permits Begin, Commit, RowChange, Truncate {}
+
+    record Begin() implements Message {}
+
+    record Commit() implements Message {}
+
+    /*
+       oldKey is the replica identity of the row before an update or delete. It is only sent with an update when the
+       key changed, and is null otherwise.
+    */
+    record RowChange(Kind kind, String table, Map<String, String> oldKey, Map<String, String> values)
+            implements Message {}
+
+    record Truncate(List<String> tables) implements Message {}
+
+    private record Relation(String table, List<String> columns) {}
+
+    private final Map<Integer, Relation> relations = new HashMap<>();
+
+    /*
+       Returns null for the messages which carry nothing for the read model: relation, type and origin messages.
+    */
+    Message decode(ByteBuffer buffer) {
+        char type = (char) buffer.get();
+        return switch (type) {
+            case 'B' -> new Begin();
+            case 'C' -> new Commit();
+            case 'R' -> {
+                readRelation(buffer);
+                yield null;
+            }
+            case 'I' -> {
+                Relation relation = relation(buffer.getInt());
+                expect(buffer, 'N');
+                yield new RowChange(Kind.INSERT, relation.table(), null, readTuple(buffer, relation));
+            }
+            case 'U' -> {
+                Relation relation = relation(buffer.getInt());
+                Map<String, String> oldKey = null;
+                char next = (char) buffer.get();
+                if (next == 'K' || next == 'O') {
+                    oldKey = readTuple(buffer, relation);
+                    next = (char) buffer.get();
+                }
+                if (next != 'N') {
+                    throw new IllegalStateException("Unexpected tuple type " + next + " in an update");
+                }
+                yield new RowChange(Kind.UPDATE, relation.table(), oldKey, readTuple(buffer, relation));
+            }
+            case 'D' -> {
+                Relation relation = relation(buffer.getInt());
+                char next = (char) buffer.get();
+                if (next != 'K' && next != 'O') {
+                    throw new IllegalStateException("Unexpected tuple type " + next + " in a delete");
+                }
+                yield new RowChange(Kind.DELETE, relation.table(), readTuple(buffer, relation), null);
+            }
+            case 'T' -> {
+                int count = buffer.getInt();
+                buffer.get(); // CASCADE and RESTART IDENTITY, which make no difference here
+                List<String> tables = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    tables.add(relation(buffer.getInt()).table());
+                }
+                yield new Truncate(tables);
+            }
+            case 'O', 'Y', 'M' -> null;
+            default -> throw new IllegalStateException("Unknown pgoutput message type " + type);
+        };
+    }
+
+    private void readRelation(ByteBuffer buffer) {
+        int id = buffer.getInt();
+        readString(buffer); // namespace
+        String table = readString(buffer);
+        buffer.get(); // replica identity setting
+        int columnCount = buffer.getShort();
+        List<String> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            buffer.get(); // flags
+            columns.add(readString(buffer));
+            buffer.getInt(); // type
+            buffer.getInt(); // type modifier
+        }
+        relations.put(id, new Relation(table, columns));
+    }
+
+    private Relation relation(int id) {
+        Relation relation = relations.get(id);
+        if (relation == null) {
+            throw new IllegalStateException("No relation message for relation " + id);
+        }
+        return relation;
+    }
+
+    private static Map<String, String> readTuple(ByteBuffer buffer, Relation relation) {
+        int columnCount = buffer.getShort();
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            String column = relation.columns().get(i);
+            char kind = (char) buffer.get();
+            switch (kind) {
+                case 'n' -> values.put(column, null);
+                case 'u' -> {
+                    // Unchanged TOASTed value
+                }
+                case 't' -> {
+                    byte[] bytes = new byte[buffer.getInt()];
+                    buffer.get(bytes);
+                    values.put(column, new String(bytes, StandardCharsets.UTF_8));
+                }
+                default -> throw new IllegalStateException("Unknown column kind " + kind);
+            }
+        }
+        return values;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int start = buffer.position();
+        while (buffer.get() != 0) {
+            // Up to the terminating zero byte
+        }
+        byte[] bytes = new byte[buffer.position() - start - 1];
+        buffer.position(start);
+        buffer.get(bytes);
+        buffer.get();
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void expect(ByteBuffer buffer, char expected) {
+        char actual = (char) buffer.get();
+        if (actual != expected) {
+            throw new IllegalStateException("Expected tuple type " + expected + " but was " + actual);
+        }
+    }
+}
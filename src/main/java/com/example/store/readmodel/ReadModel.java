@@ -0,0 +1,579 @@
+package com.example.store.readmodel;
+
+import com.example.store.cache.VersionedCollection;
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.dto.PageDTO;
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductSummaryDTO;
+import com.example.store.entity.Customer;
+import com.example.store.entity.Product;
+import com.example.store.event.CacheCoherenceLostEvent;
+import com.example.store.event.CustomerCreatedEvent;
+import com.example.store.event.OrderCreatedEvent;
+import com.example.store.event.ProductCreatedEvent;
+import com.example.store.event.RemoteChangeEvent;
+import com.example.store.readmodel.PgOutputDecoder.Kind;
+import com.example.store.readmodel.PgOutputDecoder.Message;
+import com.example.store.readmodel.PgOutputDecoder.RowChange;
+import com.example.store.readmodel.PgOutputDecoder.Truncate;
+
+import org.hibernate.Cache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/*
+   The customer, order and product documents the GET endpoints return, built in memory from the rows of the four
+   tables and kept up to date from the write-ahead log (see ReadModelReplication). Serving a read is a map lookup, so
+   it costs no round trip to the database and no join, and writes made outside the application show up too.
+
+   The rows are only touched by one writer at a time, under a ReentrantLock: request threads applying their own writes
+   can wait on the replication thread's snapshot load, and a virtual thread waiting on a monitor would hold its carrier.
+   Each transaction is applied whole, after which the documents it changed are rebuilt and replaced. A document is never
+   modified once published, so readers need no lock and can share it with the application caches. A reader may see one
+   document of a transaction before another.
+
+   The application's own writes are applied as soon as they commit, from their events, so a client reads its own
+   writes without waiting for them to come round through replication. When they do, nothing has changed and they are
+   skipped. Anything else that changed the rows came from outside this instance, so the application and second level
+   caches are told: a RemoteChangeEvent for inserts, which is all the application itself does, and a
+   CacheCoherenceLostEvent when rows were updated or deleted.
+
+   While there is no replication connection (isServing is false) the endpoints read the database as before.
+*/
+public class ReadModel {
+
+    private static final String CUSTOMER_ORDERS_ROLE = Customer.class.getName() + ".orders";
+    private static final String PRODUCT_ORDERS_ROLE = Product.class.getName() + ".orders";
+
+    record CustomerRow(long id, String name) {}
+
+    record OrderRow(long id, String description, long customerId) {}
+
+    record ProductRow(long id, String description) {}
+
+    /*
+       The rows and the indexes the documents are built with
+    */
+    static class Tables {
+        final Map<Long, CustomerRow> customers = new HashMap<>();
+        final Map<Long, OrderRow> orders = new HashMap<>();
+        final Map<Long, ProductRow> products = new HashMap<>();
+        final Map<Long, NavigableSet<Long>> productIdsByOrder = new HashMap<>();
+        final Map<Long, NavigableSet<Long>> orderIdsByProduct = new HashMap<>();
+        final Map<Long, NavigableSet<Long>> orderIdsByCustomer = new HashMap<>();
+
+        void putOrder(OrderRow row) {
+            OrderRow previous = orders.put(row.id(), row);
+            if (previous != null) {
+                unlink(orderIdsByCustomer, previous.customerId(), row.id());
+            }
+            orderIdsByCustomer.computeIfAbsent(row.customerId(), id -> new TreeSet<>()).add(row.id());
+        }
+
+        boolean link(long orderId, long productId) {
+            orderIdsByProduct.computeIfAbsent(productId, id -> new TreeSet<>()).add(orderId);
+            return productIdsByOrder.computeIfAbsent(orderId, id -> new TreeSet<>()).add(productId);
+        }
+
+        boolean unlink(long orderId, long productId) {
+            unlink(orderIdsByProduct, productId, orderId);
+            return unlink(productIdsByOrder, orderId, productId);
+        }
+
+        private static boolean unlink(Map<Long, NavigableSet<Long>> index, long key, long value) {
+            NavigableSet<Long> values = index.get(key);
+            if (values == null || !values.remove(value)) {
+                return false;
+            }
+            if (values.isEmpty()) {
+                index.remove(key);
+            }
+            return true;
+        }
+    }
+
+    /*
+       What a transaction changed
+    */
+    private static class Changes {
+        final Set<Long> orderIds = new HashSet<>();
+        final Set<Long> customerIds = new HashSet<>();
+        final Set<Long> productIds = new HashSet<>();
+        final Set<VersionedCollection> inserted = new HashSet<>();
+        final Set<Long> customersWithNewOrders = new HashSet<>();
+        boolean updatedOrDeleted;
+        boolean truncated;
+
+        boolean isEmpty() {
+            return orderIds.isEmpty() && customerIds.isEmpty() && productIds.isEmpty() && !truncated;
+        }
+    }
+
+    private record Documents(
+            NavigableMap<Long, OrderDTO> orders,
+            NavigableMap<Long, CustomerDTO> customers,
+            NavigableMap<Long, ProductSummaryDTO> products) {
+
+        Documents() {
+            this(new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>());
+        }
+    }
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache secondLevelCache;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Tables tables = new Tables();
+    private volatile Documents documents = new Documents();
+    private volatile boolean serving;
+
+    public ReadModel(ApplicationEventPublisher eventPublisher, Cache secondLevelCache) {
+        this.eventPublisher = eventPublisher;
+        this.secondLevelCache = secondLevelCache;
+    }
+
+    /*
+       The read model, for the callers which fall back to the database when there is none or it is not serving
+    */
+    public static Optional<ReadModel> serving(ObjectProvider<ReadModel> readModel) {
+        return Optional.ofNullable(readModel.getIfAvailable()).filter(ReadModel::isServing);
+    }
+
+    public boolean isServing() {
+        return serving;
+    }
+
+    public List<OrderDTO> orders() {
+        return new ArrayList<>(documents.orders().values());
+    }
+
+    public PageDTO<OrderDTO> orderPage(long after, int limit) {
+        return page(documents.orders(), after, limit, OrderDTO::getId);
+    }
+
+    public Optional<OrderDTO> order(long id) {
+        return Optional.ofNullable(documents.orders().get(id));
+    }
+
+    public List<CustomerDTO> customers() {
+        return new ArrayList<>(documents.customers().values());
+    }
+
+    public PageDTO<CustomerDTO> customerPage(long after, int limit) {
+        return page(documents.customers(), after, limit, CustomerDTO::getId);
+    }
+
+    public List<ProductSummaryDTO> products() {
+        return new ArrayList<>(documents.products().values());
+    }
+
+    public Optional<ProductSummaryDTO> product(long id) {
+        return Optional.ofNullable(documents.products().get(id));
+    }
+
+    private static <T> PageDTO<T> page(
+            NavigableMap<Long, T> documents, long after, int limit, Function<T, Long> idExtractor) {
+        List<T> items = new ArrayList<>(limit);
+        for (T document : documents.tailMap(after, false).values()) {
+            if (items.size() == limit) {
+                break;
+            }
+            items.add(document);
+        }
+        return PageDTO.of(items, limit, idExtractor);
+    }
+
+    /*
+       Replaces everything with the rows of a snapshot, and starts serving
+    */
+    void load(Tables snapshot) {
+        lock.lock();
+        try {
+            Documents rebuilt = new Documents();
+            snapshot.orders.keySet().forEach(id -> rebuildOrder(snapshot, rebuilt, id));
+            snapshot.customers.keySet().forEach(id -> rebuildCustomer(snapshot, rebuilt, id));
+            snapshot.products.keySet().forEach(id -> rebuildProduct(snapshot, rebuilt, id));
+            tables = snapshot;
+            documents = rebuilt;
+            serving = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void stopServing() {
+        serving = false;
+    }
+
+    /*
+       Applies a transaction streamed from the write-ahead log
+    */
+    void apply(List<Message> transaction) {
+        Changes changes = new Changes();
+        lock.lock();
+        try {
+            for (Message message : transaction) {
+                if (message instanceof RowChange change) {
+                    apply(change, changes);
+                } else if (message instanceof Truncate truncate) {
+                    truncate(truncate.tables(), changes);
+                }
+            }
+            rebuild(changes);
+        } finally {
+            lock.unlock();
+        }
+        if (!changes.isEmpty()) {
+            publish(changes);
+        }
+    }
+
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        OrderDTO order = event.order();
+        List<RowChange> rows = new ArrayList<>();
+        rows.add(insert(
+                "order",
+                Map.of(
+                        "id", order.getId().toString(),
+                        "description", order.getDescription(),
+                        "customer_id", order.getCustomer().getId().toString())));
+        for (OrderProductDTO product : order.getProducts()) {
+            rows.add(insert(
+                    "order_product",
+                    Map.of("order_id", order.getId().toString(), "product_id", product.getId().toString())));
+        }
+        applyOwn(rows);
+    }
+
+    @EventListener
+    public void onCustomerCreated(CustomerCreatedEvent event) {
+        CustomerDTO customer = event.customer();
+        applyOwn(List.of(insert("customer", Map.of("id", customer.getId().toString(), "name", customer.getName()))));
+    }
+
+    @EventListener
+    public void onProductCreated(ProductCreatedEvent event) {
+        ProductDTO product = event.product();
+        applyOwn(List.of(insert(
+                "product", Map.of("id", product.getId().toString(), "description", product.getDescription()))));
+    }
+
+    private static RowChange insert(String table, Map<String, String> values) {
+        return new RowChange(Kind.INSERT, table, null, values);
+    }
+
+    /*
+       The caches already have the application's own writes, see CacheMaintainer
+    */
+    private void applyOwn(List<RowChange> rows) {
+        if (!serving) {
+            // Will be in the next snapshot
+            return;
+        }
+        lock.lock();
+        try {
+            Changes changes = new Changes();
+            for (RowChange row : rows) {
+                apply(row, changes);
+            }
+            rebuild(changes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(RowChange change, Changes changes) {
+        switch (change.table()) {
+            case "customer" -> applyCustomer(change, changes);
+            case "order" -> applyOrder(change, changes);
+            case "product" -> applyProduct(change, changes);
+            case "order_product" -> applyOrderProduct(change, changes);
+            default -> {
+                // Not published, see db.changelog-6.yaml
+            }
+        }
+    }
+
+    private void applyCustomer(RowChange change, Changes changes) {
+        if (change.oldKey() != null) {
+            long id = id(change.oldKey(), "id");
+            if (change.kind() == Kind.DELETE || id != id(change.values(), "id")) {
+                if (tables.customers.remove(id) != null) {
+                    changes.customerIds.add(id);
+                    changes.updatedOrDeleted = true;
+                }
+                if (change.kind() == Kind.DELETE) {
+                    return;
+                }
+            }
+        }
+        long id = id(change.values(), "id");
+        CustomerRow previous = tables.customers.get(id);
+        String name = change.values().containsKey("name")
+                ? change.values().get("name")
+                : previous == null ? null : previous.name();
+        CustomerRow row = new CustomerRow(id, name);
+        if (row.equals(previous)) {
+            return;
+        }
+        tables.customers.put(id, row);
+        changes.customerIds.add(id);
+        // The orders carry the customer's name
+        changes.orderIds.addAll(tables.orderIdsByCustomer.getOrDefault(id, new TreeSet<>()));
+        if (previous == null) {
+            changes.inserted.add(VersionedCollection.CUSTOMERS);
+        } else {
+            changes.updatedOrDeleted = true;
+        }
+    }
+
+    private void applyOrder(RowChange change, Changes changes) {
+        if (change.oldKey() != null) {
+            long id = id(change.oldKey(), "id");
+            if (change.kind() == Kind.DELETE || id != id(change.values(), "id")) {
+                OrderRow removed = tables.orders.remove(id);
+                if (removed != null) {
+                    Tables.unlink(tables.orderIdsByCustomer, removed.customerId(), id);
+                    changes.orderIds.add(id);
+                    changes.customerIds.add(removed.customerId());
+                    changes.updatedOrDeleted = true;
+                }
+                if (change.kind() == Kind.DELETE) {
+                    return;
+                }
+            }
+        }
+        long id = id(change.values(), "id");
+        OrderRow previous = tables.orders.get(id);
+        String description = change.values().containsKey("description")
+                ? change.values().get("description")
+                : previous == null ? null : previous.description();
+        OrderRow row = new OrderRow(id, description, id(change.values(), "customer_id"));
+        if (row.equals(previous)) {
+            return;
+        }
+        tables.putOrder(row);
+        changes.orderIds.add(id);
+        changes.customerIds.add(row.customerId());
+        if (previous == null) {
+            changes.inserted.add(VersionedCollection.ORDERS);
+            changes.customersWithNewOrders.add(row.customerId());
+        } else {
+            changes.customerIds.add(previous.customerId());
+            changes.updatedOrDeleted = true;
+        }
+    }
+
+    private void applyProduct(RowChange change, Changes changes) {
+        if (change.oldKey() != null) {
+            long id = id(change.oldKey(), "id");
+            if (change.kind() == Kind.DELETE || id != id(change.values(), "id")) {
+                if (tables.products.remove(id) != null) {
+                    changes.productIds.add(id);
+                    changes.updatedOrDeleted = true;
+                }
+                if (change.kind() == Kind.DELETE) {
+                    return;
+                }
+            }
+        }
+        long id = id(change.values(), "id");
+        ProductRow previous = tables.products.get(id);
+        String description = change.values().containsKey("description")
+                ? change.values().get("description")
+                : previous == null ? null : previous.description();
+        ProductRow row = new ProductRow(id, description);
+        if (row.equals(previous)) {
+            return;
+        }
+        tables.products.put(id, row);
+        changes.productIds.add(id);
+        // The orders carry the product's description
+        changes.orderIds.addAll(tables.orderIdsByProduct.getOrDefault(id, new TreeSet<>()));
+        if (previous == null) {
+            changes.inserted.add(VersionedCollection.PRODUCTS);
+        } else {
+            changes.updatedOrDeleted = true;
+        }
+    }
+
+    private void applyOrderProduct(RowChange change, Changes changes) {
+        if (change.oldKey() != null) {
+            long orderId = id(change.oldKey(), "order_id");
+            long productId = id(change.oldKey(), "product_id");
+            if (tables.unlink(orderId, productId)) {
+                changes.orderIds.add(orderId);
+                changes.productIds.add(productId);
+                changes.updatedOrDeleted = true;
+            }
+            if (change.kind() == Kind.DELETE) {
+                return;
+            }
+        }
+        long orderId = id(change.values(), "order_id");
+        long productId = id(change.values(), "product_id");
+        if (tables.link(orderId, productId)) {
+            changes.orderIds.add(orderId);
+            changes.productIds.add(productId);
+            changes.inserted.add(VersionedCollection.ORDERS);
+            OrderRow order = tables.orders.get(orderId);
+            if (order != null) {
+                changes.customerIds.add(order.customerId());
+                changes.customersWithNewOrders.add(order.customerId());
+            }
+        }
+    }
+
+    private void truncate(List<String> truncated, Changes changes) {
+        for (String table : truncated) {
+            switch (table) {
+                case "customer" -> tables.customers.clear();
+                case "order" -> {
+                    tables.orders.clear();
+                    tables.orderIdsByCustomer.clear();
+                }
+                case "product" -> tables.products.clear();
+                case "order_product" -> {
+                    tables.productIdsByOrder.clear();
+                    tables.orderIdsByProduct.clear();
+                }
+                default -> {
+                    // Not published
+                }
+            }
+        }
+        changes.truncated = true;
+        changes.updatedOrDeleted = true;
+    }
+
+    private void rebuild(Changes changes) {
+        Documents current = documents;
+        if (changes.truncated) {
+            Documents rebuilt = new Documents();
+            tables.orders.keySet().forEach(id -> rebuildOrder(tables, rebuilt, id));
+            tables.customers.keySet().forEach(id -> rebuildCustomer(tables, rebuilt, id));
+            tables.products.keySet().forEach(id -> rebuildProduct(tables, rebuilt, id));
+            documents = rebuilt;
+            return;
+        }
+        changes.orderIds.forEach(id -> rebuildOrder(tables, current, id));
+        changes.customerIds.forEach(id -> rebuildCustomer(tables, current, id));
+        changes.productIds.forEach(id -> rebuildProduct(tables, current, id));
+    }
+
+    private static void rebuildOrder(Tables tables, Documents documents, Long id) {
+        OrderRow row = tables.orders.get(id);
+        if (row == null) {
+            documents.orders().remove(id);
+            return;
+        }
+        OrderCustomerDTO customer = new OrderCustomerDTO();
+        customer.setId(row.customerId());
+        CustomerRow customerRow = tables.customers.get(row.customerId());
+        customer.setName(customerRow == null ? null : customerRow.name());
+        List<OrderProductDTO> products = new ArrayList<>();
+        for (Long productId : tables.productIdsByOrder.getOrDefault(id, new TreeSet<>())) {
+            OrderProductDTO product = new OrderProductDTO();
+            product.setId(productId);
+            ProductRow productRow = tables.products.get(productId);
+            product.setDescription(productRow == null ? null : productRow.description());
+            products.add(product);
+        }
+        OrderDTO order = new OrderDTO();
+        order.setId(id);
+        order.setDescription(row.description());
+        order.setCustomer(customer);
+        order.setProducts(products);
+        documents.orders().put(id, order);
+    }
+
+    private static void rebuildCustomer(Tables tables, Documents documents, Long id) {
+        CustomerRow row = tables.customers.get(id);
+        if (row == null) {
+            documents.customers().remove(id);
+            return;
+        }
+        List<CustomerOrderDTO> orders = new ArrayList<>();
+        for (Long orderId : tables.orderIdsByCustomer.getOrDefault(id, new TreeSet<>())) {
+            CustomerOrderDTO order = new CustomerOrderDTO();
+            order.setId(orderId);
+            order.setDescription(tables.orders.get(orderId).description());
+            orders.add(order);
+        }
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(id);
+        customer.setName(row.name());
+        customer.setOrders(orders);
+        documents.customers().put(id, customer);
+    }
+
+    private static void rebuildProduct(Tables tables, Documents documents, Long id) {
+        ProductRow row = tables.products.get(id);
+        if (row == null) {
+            documents.products().remove(id);
+            return;
+        }
+        Collection<Long> orderIds = tables.orderIdsByProduct.getOrDefault(id, new TreeSet<>());
+        documents
+                .products()
+                .put(
+                        id,
+                        ProductSummaryDTO.builder()
+                                .id(id)
+                                .description(row.description())
+                                .orders(new ArrayList<>(orderIds))
+                                .build());
+    }
+
+    /*
+       Changes which did not come from this instance's own writes
+    */
+    private void publish(Changes changes) {
+        if (changes.updatedOrDeleted) {
+            secondLevelCache.evictAllRegions();
+            eventPublisher.publishEvent(new CacheCoherenceLostEvent());
+            return;
+        }
+        if (changes.inserted.contains(VersionedCollection.CUSTOMERS)) {
+            eventPublisher.publishEvent(new RemoteChangeEvent(VersionedCollection.CUSTOMERS, null));
+        }
+        if (changes.inserted.contains(VersionedCollection.PRODUCTS)) {
+            eventPublisher.publishEvent(new RemoteChangeEvent(VersionedCollection.PRODUCTS, null));
+        }
+        if (changes.inserted.contains(VersionedCollection.ORDERS)) {
+            changes.customersWithNewOrders.forEach(
+                    customerId -> secondLevelCache.evictCollectionData(CUSTOMER_ORDERS_ROLE, customerId));
+            secondLevelCache.evictCollectionData(PRODUCT_ORDERS_ROLE);
+            Long customerId = changes.customersWithNewOrders.size() == 1
+                    ? changes.customersWithNewOrders.iterator().next()
+                    : null;
+            eventPublisher.publishEvent(new RemoteChangeEvent(VersionedCollection.ORDERS, customerId));
+        }
+    }
+
+    private static long id(Map<String, String> values, String column) {
+        return Long.parseLong(Objects.requireNonNull(values.get(column), column));
+    }
+}
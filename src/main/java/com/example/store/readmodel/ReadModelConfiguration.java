@@ -0,0 +1,48 @@
+package com.example.store.readmodel;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+   Serves the GET endpoints of orders, customers and products from memory, kept up to date by logical replication.
+   Off by default, since it holds every row of the four tables on the heap and needs wal_level=logical. Turn it on
+   with:
+
+   store:
+     read-model:
+       enabled: true
+
+   The replication connection goes to the primary with the spring.datasource settings.
+*/
+@Configuration
+@ConditionalOnProperty(name = "store.read-model.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadModelProperties.class)
+public class ReadModelConfiguration {
+
+    @Bean
+    public ReadModel readModel(ApplicationEventPublisher eventPublisher, EntityManagerFactory entityManagerFactory) {
+        return new ReadModel(eventPublisher, entityManagerFactory.getCache().unwrap(Cache.class));
+    }
+
+    @Bean
+    public ReadModelReplication readModelReplication(
+            DataSourceProperties dataSourceProperties,
+            ReadModelProperties properties,
+            ReadModel readModel,
+            ApplicationEventPublisher eventPublisher) {
+        return new ReadModelReplication(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword(),
+                properties,
+                readModel,
+                eventPublisher);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.store.readmodel;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/*
+   The read model fed by logical replication, see ReadModelConfiguration.
+   * publication - the publication streamed from, created by db.changelog-6.yaml
+   * statusInterval - how often the position applied so far is reported to the server, which keeps the WAL from then on
+   * maxReconnectDelay - the longest wait between attempts to reconnect. The GET endpoints read the database meanwhile.
+*/
+@ConfigurationProperties("store.read-model")
+public record ReadModelProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("store_read_model") String publication,
+        @DefaultValue("10s") Duration statusInterval,
+        @DefaultValue("5s") Duration maxReconnectDelay) {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    public ReadModelProperties {
+        if (!IDENTIFIER.matcher(publication).matches()) {
+            throw new IllegalArgumentException("store.read-model.publication must be a lower case identifier");
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.store.readmodel;
+
+import com.example.store.event.CacheCoherenceLostEvent;
+import com.example.store.readmodel.PgOutputDecoder.Begin;
+import com.example.store.readmodel.PgOutputDecoder.Commit;
+import com.example.store.readmodel.PgOutputDecoder.Message;
+import com.example.store.readmodel.ReadModel.CustomerRow;
+import com.example.store.readmodel.ReadModel.OrderRow;
+import com.example.store.readmodel.ReadModel.ProductRow;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.PGReplicationStream;
+import org.postgresql.replication.ReplicationSlotInfo;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+   Feeds the ReadModel from the write-ahead log of the primary, through a logical replication slot using the pgoutput
+   plugin and the publication created by db.changelog-6.yaml.
+
+   The slot is temporary, so the server drops it when the connection goes, with this instance or otherwise, and never
+   holds WAL for a consumer which is not coming back. Starting from nothing each time:
+   * the slot is created, which exports a snapshot of the database as of the slot's starting point
+   * the four tables are read in that snapshot, on a second connection, and loaded into the read model
+   * the changes are streamed from the starting point, so none is missed and none applied twice
+
+   A transaction is buffered until its commit and applied whole. Once applied its position is acknowledged, which
+   lets the server recycle the WAL before it.
+
+   When the connection fails the read model stops serving and the endpoints read the database, until a new slot and
+   snapshot have been loaded. Writes made meanwhile by other instances or outside the application went unseen by the
+   caches, so they are flushed then.
+
+   Needs wal_level=logical, and a user with the REPLICATION attribute or owning the database.
+*/
+@Slf4j
+public class ReadModelReplication implements SmartLifecycle, Runnable {
+
+    private static final int SNAPSHOT_FETCH_SIZE = 10_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final ReadModelProperties properties;
+    private final ReadModel readModel;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread thread;
+
+    public ReadModelReplication(
+            String url,
+            String username,
+            String password,
+            ReadModelProperties properties,
+            ReadModel readModel,
+            ApplicationEventPublisher eventPublisher) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.properties = properties;
+        this.readModel = readModel;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this, "read-model-replication");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeQuietly(connection);
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void run() {
+        Duration reconnectDelay = Duration.ofMillis(100);
+        boolean loadedBefore = false;
+        while (running) {
+            try (Connection replicationConnection = DriverManager.getConnection(url, replicationProperties())) {
+                connection = replicationConnection;
+                PGConnection pgConnection = replicationConnection.unwrap(PGConnection.class);
+                String slotName = "store_read_model_" + UUID.randomUUID().toString().replace("-", "");
+                ReplicationSlotInfo slot = pgConnection
+                        .getReplicationAPI()
+                        .createReplicationSlot()
+                        .logical()
+                        .withSlotName(slotName)
+                        .withOutputPlugin("pgoutput")
+                        .withTemporaryOption()
+                        .make();
+                // The snapshot is only usable until the next command on the replication connection
+                long start = System.currentTimeMillis();
+                ReadModel.Tables snapshot = readSnapshot(slot.getSnapshotName());
+                readModel.load(snapshot);
+                log.info(
+                        "Loaded the read model with {} customers, {} orders and {} products in {}ms",
+                        snapshot.customers.size(),
+                        snapshot.orders.size(),
+                        snapshot.products.size(),
+                        System.currentTimeMillis() - start);
+                if (loadedBefore) {
+                    eventPublisher.publishEvent(new CacheCoherenceLostEvent());
+                }
+                loadedBefore = true;
+                reconnectDelay = Duration.ofMillis(100);
+                try (PGReplicationStream stream = pgConnection
+                        .getReplicationAPI()
+                        .replicationStream()
+                        .logical()
+                        .withSlotName(slotName)
+                        .withStartPosition(slot.getConsistentPoint())
+                        .withSlotOption("proto_version", 1)
+                        .withSlotOption("publication_names", properties.publication())
+                        .withStatusInterval((int) properties.statusInterval().toMillis(), TimeUnit.MILLISECONDS)
+                        .start()) {
+                    stream(stream);
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (running) {
+                    log.warn("Lost the read model replication, retrying in {}", reconnectDelay, ex);
+                }
+            } finally {
+                readModel.stopServing();
+                connection = null;
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(reconnectDelay.toMillis());
+            } catch (InterruptedException ex) {
+                return;
+            }
+            reconnectDelay = min(reconnectDelay.multipliedBy(2), properties.maxReconnectDelay());
+        }
+    }
+
+    private void stream(PGReplicationStream stream) throws SQLException {
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        List<Message> transaction = new ArrayList<>();
+        while (running) {
+            ByteBuffer buffer = stream.read();
+            Message message = decoder.decode(buffer);
+            if (message instanceof Begin) {
+                transaction.clear();
+            } else if (message instanceof Commit) {
+                readModel.apply(transaction);
+                transaction = new ArrayList<>();
+                stream.setAppliedLSN(stream.getLastReceiveLSN());
+                stream.setFlushedLSN(stream.getLastReceiveLSN());
+            } else if (message != null) {
+                transaction.add(message);
+            }
+        }
+    }
+
+    private ReadModel.Tables readSnapshot(String snapshotName) throws SQLException {
+        Properties connectionProperties = new Properties();
+        PGProperty.USER.set(connectionProperties, username);
+        PGProperty.PASSWORD.set(connectionProperties, password);
+        PGProperty.APPLICATION_NAME.set(connectionProperties, "store-read-model-snapshot");
+        ReadModel.Tables tables = new ReadModel.Tables();
+        try (Connection snapshotConnection = DriverManager.getConnection(url, connectionProperties)) {
+            snapshotConnection.setAutoCommit(false);
+            snapshotConnection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            snapshotConnection.setReadOnly(true);
+            try (Statement statement = snapshotConnection.createStatement()) {
+                // Fetched a batch at a time rather than the whole table at once
+                statement.setFetchSize(SNAPSHOT_FETCH_SIZE);
+                statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotName + "'");
+                try (ResultSet rows = statement.executeQuery("SELECT id, name FROM customer")) {
+                    while (rows.next()) {
+                        tables.customers.put(rows.getLong(1), new CustomerRow(rows.getLong(1), rows.getString(2)));
+                    }
+                }
+                try (ResultSet rows = statement.executeQuery("SELECT id, description, customer_id FROM \"order\"")) {
+                    while (rows.next()) {
+                        tables.putOrder(new OrderRow(rows.getLong(1), rows.getString(2), rows.getLong(3)));
+                    }
+                }
+                try (ResultSet rows = statement.executeQuery("SELECT id, description FROM product")) {
+                    while (rows.next()) {
+                        tables.products.put(rows.getLong(1), new ProductRow(rows.getLong(1), rows.getString(2)));
+                    }
+                }
+                try (ResultSet rows = statement.executeQuery("SELECT order_id, product_id FROM order_product")) {
+                    while (rows.next()) {
+                        tables.link(rows.getLong(1), rows.getLong(2));
+                    }
+                }
+            }
+            snapshotConnection.commit();
+        }
+        return tables;
+    }
+
+    private Properties replicationProperties() {
+        Properties connectionProperties = new Properties();
+        PGProperty.USER.set(connectionProperties, username);
+        PGProperty.PASSWORD.set(connectionProperties, password);
+        PGProperty.APPLICATION_NAME.set(connectionProperties, "store-read-model");
+        PGProperty.REPLICATION.set(connectionProperties, "database");
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(connectionProperties, "10");
+        // The replication protocol only takes simple queries
+        PGProperty.PREFER_QUERY_MODE.set(connectionProperties, "simple");
+        return connectionProperties;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            // Closing anyway
+        }
+    }
+}
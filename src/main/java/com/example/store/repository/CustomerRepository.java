@@ -1,17 +1,52 @@
 package com.example.store.repository;
 
 import com.example.store.entity.Customer;
+import com.example.store.entity.CustomerNameProjection;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer> {
+/*
+   The reads used by the controllers fetch the orders with the customer. See OrderRepository.
+*/
+public interface CustomerRepository
+        extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer>, CustomerSearchRepository {
 
     /*
         This is only used for test setup and should be moved to a test component.
         I will leave this as is because Spring is managing the implementation so no test is required.
     */
     Optional<Customer> findByName(String name);
+
+    @Override
+    @EntityGraph(attributePaths = "orders")
+    List<Customer> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "orders")
+    List<Customer> findAll(Specification<Customer> spec);
+
+    /*
+       Keyset pagination on the primary key. See OrderRepository.
+    */
+    @Query("select c.id from Customer c where c.id > :after order by c.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @EntityGraph(attributePaths = "orders")
+    List<Customer> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    /*
+       Used to build the autocomplete index. Only the columns the index needs are selected.
+    */
+    @Query("select c.id as id, c.name as name from Customer c")
+    List<CustomerNameProjection> findAllNames();
 }
@@ -0,0 +1,32 @@
+package com.example.store.repository;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface CustomerSearchRepository {
+
+    char LIKE_ESCAPE = '\\';
+
+    /*
+       The LIKE pattern matching names which contain the token as it is. A % or _ in the token is escaped, so it is
+       matched literally, the same as CustomerSearchKey.matches does, rather than as a wildcard.
+    */
+    static String containsPattern(String token) {
+        StringBuilder pattern = new StringBuilder(token.length() + 2).append('%');
+        for (char c : token.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    /*
+       Returns the IDs of customers whose lower case name contains any of the tokens, best match first.
+       The tokens are expected to be lower case already, see CustomerSpecs.tokenize.
+    */
+    @Transactional(readOnly = true)
+    List<Long> findIdsByNameSimilarity(List<String> tokens, int limit);
+}
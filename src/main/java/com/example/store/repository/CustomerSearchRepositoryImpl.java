@@ -0,0 +1,42 @@
+package com.example.store.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+   The OR of LIKE predicates lets the planner combine one bitmap scan of customer_name_trgm_idx per token.
+   LIKE ANY(array) would be neater but GIN indexes cannot be used for array comparisons, so the statement is built
+   for the number of tokens. The tokens are escaped with the LIKE_ESCAPE character, PostgreSQL's default, spelled out
+   in the statement.
+*/
+class CustomerSearchRepositoryImpl implements CustomerSearchRepository {
+
+    private static final String CONTAINS_TOKEN = "lower(c.name) LIKE ? ESCAPE '" + LIKE_ESCAPE + "'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    CustomerSearchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> findIdsByNameSimilarity(List<String> tokens, int limit) {
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        String predicates = String.join(" OR ", Collections.nCopies(tokens.size(), CONTAINS_TOKEN));
+        String similarities =
+                String.join(", ", Collections.nCopies(tokens.size(), "word_similarity(?, lower(c.name))"));
+        String sql = "SELECT c.id FROM customer c WHERE " + predicates
+                + " ORDER BY GREATEST(" + similarities + ") DESC, c.id LIMIT ?";
+
+        List<Object> parameters = new ArrayList<>();
+        tokens.forEach(t -> parameters.add(CustomerSearchRepository.containsPattern(t)));
+        parameters.addAll(tokens);
+        parameters.add(limit);
+        return jdbcTemplate.queryForList(sql, Long.class, parameters.toArray());
+    }
+}
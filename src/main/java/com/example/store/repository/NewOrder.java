@@ -0,0 +1,8 @@
+package com.example.store.repository;
+
+import java.util.List;
+
+/*
+   An order row, and its product links, ready to be inserted with a pre-allocated ID.
+*/
+public record NewOrder(Long id, String description, Long customerId, List<Long> productIds) {}
@@ -0,0 +1,15 @@
+package com.example.store.repository;
+
+import java.util.List;
+
+/*
+   The outcome of OrderWriteRepository.insertOrder. When the customer or any product is missing nothing was inserted
+   and orderId is null.
+   productDescriptions follows the order of the requested product IDs.
+*/
+public record OrderInsertResult(
+        Long orderId,
+        boolean customerFound,
+        String customerName,
+        List<Long> missingProductIds,
+        List<String> productDescriptions) {}
@@ -2,6 +2,38 @@ package com.example.store.repository;
 
 import com.example.store.entity.Order;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {}
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/*
+   Every read used by the controllers declares the associations that OrderMapper will touch, so that the
+   customer and products are fetched in the same statement rather than lazily, one batch at a time.
+*/
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderStreamRepository, OrderWriteRepository {
+
+    @Override
+    @EntityGraph(attributePaths = {"customer", "products"})
+    List<Order> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"customer", "products"})
+    Optional<Order> findById(Long id);
+
+    /*
+       Keyset pagination. Seeking on the primary key means that every page is an index range scan and costs the same
+       regardless of how deep into the table the caller is, unlike OFFSET which has to walk and discard the skipped rows.
+       Only the IDs are paged here: limiting a query which fetch joins a collection makes Hibernate page in memory.
+    */
+    @Query("select o.id from Order o where o.id > :after order by o.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"customer", "products"})
+    List<Order> findByIdInOrderByIdAsc(Collection<Long> ids);
+}
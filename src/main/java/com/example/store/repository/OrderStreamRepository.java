@@ -0,0 +1,18 @@
+package com.example.store.repository;
+
+import com.example.store.dto.OrderDTO;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+
+public interface OrderStreamRepository {
+
+    /*
+       Reads every order through a server side cursor and hands each one to the consumer as soon as its last row has
+       been read. Nothing is retained between orders, so memory use does not grow with the size of the table.
+       PostgreSQL only honours the fetch size inside a transaction, hence the annotation.
+    */
+    @Transactional(readOnly = true)
+    void streamAll(Consumer<OrderDTO> consumer);
+}
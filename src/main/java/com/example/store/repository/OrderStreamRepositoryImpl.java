@@ -0,0 +1,90 @@
+package com.example.store.repository;
+
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+
+/*
+   This deliberately bypasses Hibernate. Streaming entities would fill the persistence context (or require it to be
+   cleared part way through a fetch join) and the lazy associations would each cost a round trip.
+   A single joined statement, ordered by order ID, lets the rows for one order be folded into a DTO and released.
+*/
+class OrderStreamRepositoryImpl implements OrderStreamRepository {
+
+    static final int FETCH_SIZE = 500;
+
+    private static final String STREAM_ALL_SQL =
+            """
+            SELECT o.id AS order_id, o.description AS order_description,
+                   c.id AS customer_id, c.name AS customer_name,
+                   p.id AS product_id, p.description AS product_description
+            FROM "order" o
+            JOIN customer c ON c.id = o.customer_id
+            LEFT JOIN order_product op ON op.order_id = o.id
+            LEFT JOIN product p ON p.id = op.product_id
+            ORDER BY o.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    OrderStreamRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @Override
+    public void streamAll(Consumer<OrderDTO> consumer) {
+        OrderRowFolder folder = new OrderRowFolder(consumer);
+        jdbcTemplate.query(STREAM_ALL_SQL, folder);
+        folder.finish();
+    }
+
+    private static final class OrderRowFolder implements RowCallbackHandler {
+
+        private final Consumer<OrderDTO> consumer;
+        private OrderDTO current;
+
+        private OrderRowFolder(Consumer<OrderDTO> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long orderId = rs.getLong("order_id");
+            if (current == null || current.getId() != orderId) {
+                finish();
+                current = new OrderDTO();
+                current.setId(orderId);
+                current.setDescription(rs.getString("order_description"));
+                OrderCustomerDTO customer = new OrderCustomerDTO();
+                customer.setId(rs.getLong("customer_id"));
+                customer.setName(rs.getString("customer_name"));
+                current.setCustomer(customer);
+                current.setProducts(new ArrayList<>());
+            }
+            long productId = rs.getLong("product_id");
+            if (!rs.wasNull()) {
+                OrderProductDTO product = new OrderProductDTO();
+                product.setId(productId);
+                product.setDescription(rs.getString("product_description"));
+                current.getProducts().add(product);
+            }
+        }
+
+        private void finish() {
+            if (current != null) {
+                consumer.accept(current);
+                current = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.store.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/*
+   Order writes which bypass Hibernate to minimise round trips. Unless stated otherwise these must be called within a
+   transaction.
+*/
+public interface OrderWriteRepository {
+
+    /*
+       Validates the customer and products and, only if they all exist, inserts the order and its product links.
+       All of that is a single statement, so a single round trip, and atomic without an enclosing transaction.
+    */
+    OrderInsertResult insertOrder(Long customerId, String description, List<Long> productIds);
+
+    Set<Long> findExistingCustomerIds(Collection<Long> ids);
+
+    Set<Long> findExistingProductIds(Collection<Long> ids);
+
+    /*
+       Allocates IDs from the order sequence in a single round trip.
+    */
+    List<Long> allocateOrderIds(int count);
+
+    void insertAll(List<NewOrder> orders);
+}
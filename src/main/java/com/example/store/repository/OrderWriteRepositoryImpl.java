@@ -0,0 +1,169 @@
+package com.example.store.repository;
+
+import com.example.store.entity.Customer;
+import com.example.store.entity.Product;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+   Order uses GenerationType.IDENTITY, which stops Hibernate from batching inserts because it must read back each
+   generated key. Allocating a block of IDs up front lets every order and order_product row go out as JDBC batches.
+   A single order is written with one statement instead of the lookups and inserts Hibernate would issue.
+   Since Hibernate doesn't see these writes, the second level cache has to be told about them, see
+   evictOrderCollections.
+*/
+class OrderWriteRepositoryImpl implements OrderWriteRepository {
+
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO \"order\" (id, description, customer_id) VALUES (?, ?, ?)";
+    private static final String INSERT_ORDER_PRODUCT_SQL =
+            "INSERT INTO order_product (order_id, product_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    /*
+       Data modifying CTEs all run against the same snapshot, and the inserted_order rows are visible to the
+       inserted_links insert through RETURNING. The order is only inserted when the customer exists and every
+       requested product was found; the final SELECT reports what was missing so the caller can raise the right error.
+       A product listed twice is linked once, order_product is keyed on (order_id, product_id).
+    */
+    private static final String INSERT_ORDER_CTE_SQL =
+            """
+            WITH requested AS (
+                SELECT r.product_id, r.ord
+                FROM unnest(?::bigint[]) WITH ORDINALITY AS r(product_id, ord)
+            ), customer_row AS (
+                SELECT id, name FROM customer WHERE id = ?
+            ), product_rows AS (
+                SELECT id, description FROM product WHERE id IN (SELECT product_id FROM requested)
+            ), inserted_order AS (
+                INSERT INTO "order" (description, customer_id)
+                SELECT ?, c.id FROM customer_row c
+                WHERE NOT EXISTS (
+                    SELECT 1 FROM requested r WHERE r.product_id NOT IN (SELECT id FROM product_rows))
+                RETURNING id
+            ), inserted_links AS (
+                INSERT INTO order_product (order_id, product_id)
+                SELECT o.id, r.product_id FROM inserted_order o CROSS JOIN requested r
+                ON CONFLICT DO NOTHING
+            )
+            SELECT (SELECT id FROM inserted_order) AS order_id,
+                   EXISTS (SELECT 1 FROM customer_row) AS customer_found,
+                   (SELECT name FROM customer_row) AS customer_name,
+                   ARRAY(SELECT r.product_id FROM requested r
+                         WHERE r.product_id NOT IN (SELECT id FROM product_rows)
+                         ORDER BY r.ord) AS missing_product_ids,
+                   ARRAY(SELECT p.description FROM requested r JOIN product_rows p ON p.id = r.product_id
+                         ORDER BY r.ord) AS product_descriptions
+            """;
+
+    private static final String CUSTOMER_ORDERS_ROLE = Customer.class.getName() + ".orders";
+    private static final String PRODUCT_ORDERS_ROLE = Product.class.getName() + ".orders";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache secondLevelCache;
+
+    OrderWriteRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.secondLevelCache = entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
+    @Override
+    public OrderInsertResult insertOrder(Long customerId, String description, List<Long> productIds) {
+        OrderInsertResult result = jdbcTemplate.queryForObject(
+                INSERT_ORDER_CTE_SQL,
+                (rs, rowNum) -> {
+                    Array missingProductIds = rs.getArray("missing_product_ids");
+                    Array productDescriptions = rs.getArray("product_descriptions");
+                    try {
+                        return new OrderInsertResult(
+                                rs.getObject("order_id", Long.class),
+                                rs.getBoolean("customer_found"),
+                                rs.getString("customer_name"),
+                                Arrays.asList((Long[]) missingProductIds.getArray()),
+                                Arrays.asList((String[]) productDescriptions.getArray()));
+                    } finally {
+                        missingProductIds.free();
+                        productDescriptions.free();
+                    }
+                },
+                productIds.toArray(new Long[0]),
+                customerId,
+                description);
+        if (result.orderId() != null) {
+            evictOrderCollections(Set.of(customerId), new HashSet<>(productIds));
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Long> findExistingCustomerIds(Collection<Long> ids) {
+        return findExistingIds("SELECT id FROM customer WHERE id = ANY(?)", ids);
+    }
+
+    @Override
+    public Set<Long> findExistingProductIds(Collection<Long> ids) {
+        return findExistingIds("SELECT id FROM product WHERE id = ANY(?)", ids);
+    }
+
+    @Override
+    public List<Long> allocateOrderIds(int count) {
+        return jdbcTemplate.queryForList(
+                "SELECT nextval('order_id_seq') FROM generate_series(1, ?)", Long.class, count);
+    }
+
+    @Override
+    public void insertAll(List<NewOrder> orders) {
+        List<Object[]> orderRows = new ArrayList<>(orders.size());
+        List<Object[]> orderProductRows = new ArrayList<>();
+        orders.forEach(o -> {
+            orderRows.add(new Object[] {o.id(), o.description(), o.customerId()});
+            o.productIds().forEach(p -> orderProductRows.add(new Object[] {o.id(), p}));
+        });
+        jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, orderRows);
+        jdbcTemplate.batchUpdate(INSERT_ORDER_PRODUCT_SQL, orderProductRows);
+        evictOrderCollections(
+                orders.stream().map(NewOrder::customerId).collect(Collectors.toSet()),
+                orders.stream().flatMap(o -> o.productIds().stream()).collect(Collectors.toSet()));
+    }
+
+    /*
+       The cached Customer.orders and Product.orders collections no longer hold every order once these rows exist.
+       Evicting straight away is not enough inside a transaction: a concurrent reader can cache the old collection again
+       before the commit. So in that case the collections are evicted again once the transaction has completed.
+    */
+    private void evictOrderCollections(Set<Long> customerIds, Set<Long> productIds) {
+        Runnable evict = () -> {
+            customerIds.forEach(id -> secondLevelCache.evictCollectionData(CUSTOMER_ORDERS_ROLE, id));
+            productIds.forEach(id -> secondLevelCache.evictCollectionData(PRODUCT_ORDERS_ROLE, id));
+        };
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private Set<Long> findExistingIds(String sql, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, (Object) ids.toArray(new Long[0])));
+    }
+}
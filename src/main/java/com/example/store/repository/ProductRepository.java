@@ -1,20 +1,28 @@
 package com.example.store.repository;
 
 import com.example.store.entity.Product;
-import com.example.store.entity.ProductSummaryProjection;
+import com.example.store.entity.ProductDescriptionProjection;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends CrudRepository<Product, Long> {
-
-    List<ProductSummaryProjection> findAllBy();
+public interface ProductRepository extends CrudRepository<Product, Long>, ProductSummaryRepository {
 
     Optional<Product> findByDescriptionIgnoreCase(String description);
 
-    Optional<ProductSummaryProjection> findProjectionById(Long id);
+    /*
+       Used to build the product catalog. Only the columns the catalog needs are selected.
+    */
+    @Query("select p.id as id, p.description as description from Product p")
+    List<ProductDescriptionProjection> findAllDescriptions();
+
+    @Query("select p.id as id, p.description as description from Product p where p.id in :ids")
+    List<ProductDescriptionProjection> findDescriptionsByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,27 @@
+package com.example.store.repository;
+
+import com.example.store.dto.ProductSummaryDTO;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductSummaryRepository {
+
+    /*
+       Each summary, including the IDs of the orders containing the product, is read with a single grouped statement.
+    */
+    @Transactional(readOnly = true)
+    List<ProductSummaryDTO> findAllSummaries();
+
+    @Transactional(readOnly = true)
+    Optional<ProductSummaryDTO> findSummaryById(Long id);
+
+    /*
+       The rest of a summary when the description is known, see ProductCatalog. Read from the (product_id, order_id)
+       index alone.
+    */
+    @Transactional(readOnly = true)
+    List<Long> findOrderIdsByProductId(Long id);
+}
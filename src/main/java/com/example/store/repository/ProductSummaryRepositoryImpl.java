@@ -0,0 +1,72 @@
+package com.example.store.repository;
+
+import com.example.store.dto.ProductSummaryDTO;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/*
+   Loading the summaries through JPA projections meant one lazy load of the order list per product.
+   Aggregating the order IDs in the database returns exactly the shape of ProductSummaryDTO in one round trip.
+*/
+class ProductSummaryRepositoryImpl implements ProductSummaryRepository {
+
+    private static final String SUMMARY_SQL =
+            """
+            SELECT p.id, p.description,
+                   COALESCE(array_agg(op.order_id ORDER BY op.order_id) FILTER (WHERE op.order_id IS NOT NULL), '{}')
+                       AS orders
+            FROM product p
+            LEFT JOIN order_product op ON op.product_id = p.id
+            """;
+
+    private static final String FIND_ALL_SQL = SUMMARY_SQL + " GROUP BY p.id ORDER BY p.id";
+
+    private static final String FIND_BY_ID_SQL = SUMMARY_SQL + " WHERE p.id = ? GROUP BY p.id";
+
+    private static final String FIND_ORDER_IDS_SQL =
+            "SELECT order_id FROM order_product WHERE product_id = ? ORDER BY order_id";
+
+    private static final RowMapper<ProductSummaryDTO> SUMMARY_ROW_MAPPER = ProductSummaryRepositoryImpl::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProductSummaryRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<ProductSummaryDTO> findAllSummaries() {
+        return jdbcTemplate.query(FIND_ALL_SQL, SUMMARY_ROW_MAPPER);
+    }
+
+    @Override
+    public Optional<ProductSummaryDTO> findSummaryById(Long id) {
+        return jdbcTemplate.query(FIND_BY_ID_SQL, SUMMARY_ROW_MAPPER, id).stream().findFirst();
+    }
+
+    @Override
+    public List<Long> findOrderIdsByProductId(Long id) {
+        return jdbcTemplate.queryForList(FIND_ORDER_IDS_SQL, Long.class, id);
+    }
+
+    private static ProductSummaryDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Array orders = rs.getArray("orders");
+        try {
+            return ProductSummaryDTO.builder()
+                    .id(rs.getLong("id"))
+                    .description(rs.getString("description"))
+                    .orders(Arrays.asList((Long[]) orders.getArray()))
+                    .build();
+        } finally {
+            orders.free();
+        }
+    }
+}
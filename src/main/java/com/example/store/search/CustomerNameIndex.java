@@ -0,0 +1,190 @@
+package com.example.store.search;
+
+import com.example.store.cache.VersionedCollection;
+import com.example.store.controller.CustomerSpecs;
+import com.example.store.dto.CustomerSuggestionDTO;
+import com.example.store.entity.CustomerNameProjection;
+import com.example.store.event.CacheCoherenceLostEvent;
+import com.example.store.event.RemoteChangeEvent;
+import com.example.store.repository.CustomerRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/*
+   An in process prefix index over the tokens of customer names, used for type-ahead so that each keystroke does not
+   cost a database round trip.
+   The tokens are held in a sorted map, so every token starting with a prefix is one contiguous range of keys. That is
+   the same lookup a trie would give us, but the skip list is already safe for concurrent reads and writes.
+
+   Note that each pod builds its own index. Customers created through another pod are read in again when it reports
+   them (see RemoteChangeEvent), and so is every customer when writes may have gone unseen (see
+   CacheCoherenceLostEvent). The other pod does not send the new customer's name, so each of those reads every name.
+*/
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerNameIndex {
+
+    private static final Comparator<String> SHORTEST_FIRST =
+            Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    private final CustomerRepository customerRepository;
+
+    private final ConcurrentSkipListMap<String, Set<Long>> customerIdsByToken = new ConcurrentSkipListMap<>();
+    private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+
+    /*
+       Built on ApplicationStartedEvent rather than ApplicationReadyEvent so that the index is complete before the
+       application reports itself ready.
+    */
+    @EventListener(ApplicationStartedEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        List<CustomerNameProjection> customers = customerRepository.findAllNames();
+        customers.forEach(c -> add(c.getId(), c.getName()));
+        log.info(
+                "Built customer name index for {} customers in {}ms",
+                customers.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /*
+       Before CollectionVersions moves the CUSTOMERS ETag on, so a client given the new ETag gets the new customer.
+    */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRemoteChange(RemoteChangeEvent event) {
+        if (event.collection() == VersionedCollection.CUSTOMERS) {
+            rebuild();
+        }
+    }
+
+    @EventListener
+    public void onCacheCoherenceLost(CacheCoherenceLostEvent event) {
+        rebuild();
+    }
+
+    /*
+       Published on the threads keeping the caches coherent, as for ProductCatalog.onCacheCoherenceLost. Customers are
+       only ever added, so building again over the current index adds whichever are missing.
+    */
+    private void rebuild() {
+        try {
+            build();
+        } catch (RuntimeException ex) {
+            log.warn("Could not rebuild the customer name index, keeping the current one", ex);
+        }
+    }
+
+    public void add(Long id, String name) {
+        if (id == null || name == null) {
+            return;
+        }
+        namesById.put(id, name);
+        CustomerSpecs.tokenize(name)
+                .forEach(token -> customerIdsByToken
+                        .computeIfAbsent(token, t -> new ConcurrentSkipListSet<>())
+                        .add(id));
+    }
+
+    /*
+       The last token of the input is treated as a prefix, any earlier tokens must each be the prefix of a word in the
+       name. So "john sm" suggests "John Smith" but not "John Doe". Suggestions are ordered by the completed token,
+       shortest completion first and then alphabetically, and then by customer ID.
+
+       The skip list gives the completions alphabetically, and a short prefix can have thousands, so rather than sort
+       them all on every keystroke only the best limit of them are kept, see shortest. Each completion has at least one
+       customer, so that is enough unless the qualifiers rule some out or a name has several of the completions. Then
+       twice as many are taken, and so on, and the ones already walked are skipped.
+    */
+    public List<CustomerSuggestionDTO> complete(String input, int limit) {
+        List<String> tokens = CustomerSpecs.tokenize(input);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        String prefix = tokens.get(tokens.size() - 1);
+        List<String> qualifiers = tokens.subList(0, tokens.size() - 1);
+        NavigableMap<String, Set<Long>> completions = withPrefix(prefix);
+
+        Set<Long> matches = new LinkedHashSet<>();
+        int walked = 0;
+        for (int wanted = limit; ; wanted *= 2) {
+            List<Map.Entry<String, Set<Long>>> best = shortest(completions, wanted);
+            for (Map.Entry<String, Set<Long>> completion : best.subList(Math.min(walked, best.size()), best.size())) {
+                for (Long id : completion.getValue()) {
+                    if (matches.size() >= limit) {
+                        return toSuggestions(matches);
+                    }
+                    String name = namesById.get(id);
+                    if (name != null && matchesQualifiers(name, qualifiers)) {
+                        matches.add(id);
+                    }
+                }
+            }
+            if (best.size() < wanted || matches.size() >= limit) {
+                return toSuggestions(matches);
+            }
+            walked = best.size();
+        }
+    }
+
+    /*
+       The first count completions by SHORTEST_FIRST, in that order. The heap holds the worst of those kept on top, so
+       this costs n log count for n completions rather than n log n.
+    */
+    private static List<Map.Entry<String, Set<Long>>> shortest(
+            NavigableMap<String, Set<Long>> completions, int count) {
+        PriorityQueue<Map.Entry<String, Set<Long>>> kept =
+                new PriorityQueue<>(Map.Entry.<String, Set<Long>>comparingByKey(SHORTEST_FIRST.reversed()));
+        for (Map.Entry<String, Set<Long>> completion : completions.entrySet()) {
+            if (kept.size() < count) {
+                kept.add(completion);
+            } else if (SHORTEST_FIRST.compare(completion.getKey(), kept.peek().getKey()) < 0) {
+                kept.poll();
+                kept.add(completion);
+            }
+        }
+        List<Map.Entry<String, Set<Long>>> best = new ArrayList<>(kept);
+        best.sort(Map.Entry.comparingByKey(SHORTEST_FIRST));
+        return best;
+    }
+
+    private NavigableMap<String, Set<Long>> withPrefix(String prefix) {
+        return customerIdsByToken.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private boolean matchesQualifiers(String name, List<String> qualifiers) {
+        List<String> nameTokens = CustomerSpecs.tokenize(name);
+        return qualifiers.stream().allMatch(q -> nameTokens.stream().anyMatch(t -> t.startsWith(q)));
+    }
+
+    private List<CustomerSuggestionDTO> toSuggestions(Set<Long> ids) {
+        List<CustomerSuggestionDTO> suggestions = new ArrayList<>(ids.size());
+        ids.forEach(id -> {
+            CustomerSuggestionDTO suggestion = new CustomerSuggestionDTO();
+            suggestion.setId(id);
+            suggestion.setName(namesById.get(id));
+            suggestions.add(suggestion);
+        });
+        return suggestions;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.store.service;
+
+import com.example.store.dto.BulkOrderErrorDTO;
+import com.example.store.dto.BulkOrderImportDTO;
+import com.example.store.event.OrdersImportedEvent;
+import com.example.store.presentation.BulkOrderLine;
+import com.example.store.repository.NewOrder;
+import com.example.store.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+   Imports newline delimited orders in chunks. Only one chunk of parsed lines is held at a time and each chunk is
+   validated with one lookup per table and written with JDBC batches in its own transaction, so memory use stays flat
+   however large the upload is. A failed line is reported and skipped, it does not fail the rest of the upload.
+
+   The errors are reported in line order, although a chunk's missing customers and products are only found after the
+   lines following it have been parsed. Once MAX_REPORTED_ERRORS have been reported they are the lowest lines.
+
+   The caches are told about the import once it is over, however it ends. A chunk which failed, or an upload which
+   could not be read to the end, still leaves the orders of the chunks before it committed.
+*/
+@Service
+@Slf4j
+public class BulkOrderImportService {
+
+    static final int CHUNK_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ObjectReader lineReader;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final MessageSource messageSource;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BulkOrderImportService(
+            ObjectMapper objectMapper,
+            OrderRepository orderRepository,
+            TransactionTemplate transactionTemplate,
+            Validator validator,
+            MessageSource messageSource,
+            ApplicationEventPublisher eventPublisher) {
+        this.lineReader = objectMapper.readerFor(BulkOrderLine.class);
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.messageSource = messageSource;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public BulkOrderImportDTO importOrders(InputStream inputStream) throws IOException {
+        BulkOrderImportDTO result = new BulkOrderImportDTO();
+        try {
+            importOrders(inputStream, result);
+        } finally {
+            if (result.getAccepted() > 0) {
+                eventPublisher.publishEvent(new OrdersImportedEvent(result.getAccepted()));
+            }
+        }
+        log.info("Bulk order import accepted {} and rejected {} orders", result.getAccepted(), result.getRejected());
+        return result;
+    }
+
+    private void importOrders(InputStream inputStream, BulkOrderImportDTO result) throws IOException {
+        List<ParsedLine> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                ParsedLine parsed = parse(lineNumber, line, result);
+                if (parsed != null) {
+                    chunk.add(parsed);
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+    }
+
+    private ParsedLine parse(long lineNumber, String line, BulkOrderImportDTO result) {
+        BulkOrderLine orderLine;
+        try {
+            orderLine = lineReader.readValue(line);
+        } catch (JsonProcessingException ex) {
+            orderLine = null;
+        }
+        if (orderLine == null) {
+            reject(result, lineNumber, message("order.bulk.malformed"));
+            return null;
+        }
+        Set<ConstraintViolation<BulkOrderLine>> violations = validator.validate(orderLine);
+        if (!violations.isEmpty()) {
+            reject(
+                    result,
+                    lineNumber,
+                    violations.stream()
+                            .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining(", ")));
+            return null;
+        }
+        List<Long> productIds = orderLine.getProducts().stream()
+                .map(BulkOrderLine.Reference::getId)
+                .toList();
+        // As POST /order, a product may only be listed once
+        if (productIds.stream().distinct().count() != productIds.size()) {
+            reject(result, lineNumber, message("order.product.duplicate"));
+            return null;
+        }
+        return new ParsedLine(lineNumber, orderLine.getDescription(), orderLine.getCustomer().getId(), productIds);
+    }
+
+    private void importChunk(List<ParsedLine> chunk, BulkOrderImportDTO result) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Long> customerIds = new HashSet<>();
+            Set<Long> productIds = new HashSet<>();
+            chunk.forEach(l -> {
+                customerIds.add(l.customerId());
+                productIds.addAll(l.productIds());
+            });
+            Set<Long> existingCustomerIds = orderRepository.findExistingCustomerIds(customerIds);
+            Set<Long> existingProductIds = orderRepository.findExistingProductIds(productIds);
+
+            List<ParsedLine> valid = new ArrayList<>(chunk.size());
+            for (ParsedLine l : chunk) {
+                if (!existingCustomerIds.contains(l.customerId())) {
+                    reject(result, l.lineNumber(), notFound("Customer", l.customerId()));
+                    continue;
+                }
+                Long missingProductId = l.productIds().stream()
+                        .filter(p -> !existingProductIds.contains(p))
+                        .findFirst()
+                        .orElse(null);
+                if (missingProductId != null) {
+                    reject(result, l.lineNumber(), notFound("Product", missingProductId));
+                    continue;
+                }
+                valid.add(l);
+            }
+            if (valid.isEmpty()) {
+                return;
+            }
+
+            Iterator<Long> ids = orderRepository.allocateOrderIds(valid.size()).iterator();
+            List<NewOrder> orders = valid.stream()
+                    .map(l -> new NewOrder(ids.next(), l.description(), l.customerId(), l.productIds()))
+                    .toList();
+            orderRepository.insertAll(orders);
+            result.setAccepted(result.getAccepted() + orders.size());
+        });
+    }
+
+    private void reject(BulkOrderImportDTO result, long lineNumber, String message) {
+        result.setRejected(result.getRejected() + 1);
+        List<BulkOrderErrorDTO> errors = result.getErrors();
+        int position = positionOf(errors, lineNumber);
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(position, new BulkOrderErrorDTO(lineNumber, message));
+            return;
+        }
+        result.setErrorsTruncated(true);
+        // Only a line from the chunk being imported can come before one already reported
+        if (position < errors.size()) {
+            errors.remove(errors.size() - 1);
+            errors.add(position, new BulkOrderErrorDTO(lineNumber, message));
+        }
+    }
+
+    /*
+       Where an error for the line goes among those reported so far, which are in line order. Usually at the end.
+    */
+    private static int positionOf(List<BulkOrderErrorDTO> errors, long lineNumber) {
+        int low = 0;
+        int high = errors.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (errors.get(middle).getLine() < lineNumber) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private String notFound(String resourceType, Long id) {
+        return messageSource.getMessage("api.resource.not.found", new Object[] {resourceType, id}, Locale.getDefault());
+    }
+
+    private String message(String key) {
+        return messageSource.getMessage(key, new Object[0], Locale.getDefault());
+    }
+
+    private record ParsedLine(long lineNumber, String description, Long customerId, List<Long> productIds) {}
+}
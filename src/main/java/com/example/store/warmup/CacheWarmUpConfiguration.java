@@ -0,0 +1,28 @@
+package com.example.store.warmup;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+   Warm-up and refresh-ahead of the @WarmUp listings. On by default, turn it off with:
+
+   store:
+     cache:
+       warm-up:
+         enabled: false
+*/
+@Configuration
+@ConditionalOnProperty(name = "store.cache.warm-up.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(CacheWarmUpProperties.class)
+public class CacheWarmUpConfiguration {
+
+    @Bean
+    public CacheWarmer cacheWarmer(
+            ApplicationContext applicationContext, CacheManager cacheManager, CacheWarmUpProperties properties) {
+        return new CacheWarmer(applicationContext, cacheManager, properties);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.store.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/*
+   See CacheWarmer.
+   * hotIds - how many of the newest items of a listing are also cached by id
+   * refreshAhead - how long before it expires a listing is reloaded
+   * checkInterval - how often the listings are checked. Keep it well below refreshAhead.
+*/
+@ConfigurationProperties("store.cache.warm-up")
+public record CacheWarmUpProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1000") int hotIds,
+        @DefaultValue("1m") Duration refreshAhead,
+        @DefaultValue("10s") Duration checkInterval) {}
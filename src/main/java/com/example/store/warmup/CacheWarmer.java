@@ -0,0 +1,232 @@
+package com.example.store.warmup;
+
+import com.example.store.configuration.CacheEntryWeigher;
+import com.github.benmanes.caffeine.cache.Policy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+   Loads the @WarmUp listings into their caches before the application reports ready, so the first callers after a
+   deploy or restart don't each pay for a cold load. Done on ApplicationStartedEvent, as for CustomerNameIndex.
+
+   Afterwards every checkInterval, each listing which is cached and within refreshAhead of its expire-after-write is
+   reloaded in the background. Readers keep getting the current entry meanwhile, so they never wait on a load. A
+   listing which is not cached is left to the next reader: it may have been evicted because it is heavier than its
+   cache allows, and loading it again would only be thrown away again. One which the cache turns away as soon as it is
+   loaded is not warmed up again at all.
+
+   A listing is reloaded by calling the handler method itself, on the object behind its proxy so the cache isn't
+   consulted. The result only replaces the entry it was loaded to replace: if a write has updated the entry since (see
+   CacheMaintainer) or evicted it, the reload may have read the tables before that write and is dropped.
+*/
+@Slf4j
+public class CacheWarmer implements DisposableBean {
+
+    private static final CacheEntryWeigher WEIGHER = new CacheEntryWeigher();
+
+    private record Listing(String name, Cache cache, Object target, Method method, String hotIdCache) {}
+
+    private final ApplicationContext applicationContext;
+    private final CacheManager cacheManager;
+    private final CacheWarmUpProperties properties;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-refresh-ahead");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private List<Listing> listings = List.of();
+    // Listings too heavy for their cache, by name
+    private final Set<String> rejected = ConcurrentHashMap.newKeySet();
+
+    public CacheWarmer(
+            ApplicationContext applicationContext, CacheManager cacheManager, CacheWarmUpProperties properties) {
+        this.applicationContext = applicationContext;
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStarted() {
+        listings = findListings();
+        warmUp();
+        long interval = properties.checkInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::refreshAhead, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+       Loads whichever listings are not cached
+    */
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        for (Listing listing : listings) {
+            if (!rejected.contains(listing.name())) {
+                refresh(listing, null);
+            }
+        }
+        log.info("Warmed up {} cached listings in {}ms", listings.size(), System.currentTimeMillis() - start);
+    }
+
+    private void refreshAhead() {
+        for (Listing listing : listings) {
+            if (!(listing.cache().getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> cache)) {
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> entries =
+                    (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache;
+            Object current = entries.getIfPresent(SimpleKey.EMPTY);
+            if (current != null && isDueForRefresh(entries)) {
+                refresh(listing, current);
+            }
+        }
+    }
+
+    private boolean isDueForRefresh(com.github.benmanes.caffeine.cache.Cache<Object, Object> entries) {
+        Optional<Policy.FixedExpiration<Object, Object>> expireAfterWrite = entries.policy().expireAfterWrite();
+        if (expireAfterWrite.isEmpty()) {
+            return false;
+        }
+        Duration refreshAt = expireAfterWrite.get().getExpiresAfter().minus(properties.refreshAhead());
+        return expireAfterWrite
+                .get()
+                .ageOf(SimpleKey.EMPTY)
+                .map(age -> age.compareTo(refreshAt) >= 0)
+                .orElse(false);
+    }
+
+    /*
+       Replaces current, or an absent entry when current is null
+    */
+    private void refresh(Listing listing, Object current) {
+        try {
+            Object loaded = ReflectionUtils.invokeMethod(listing.method(), listing.target());
+            if (loaded == null) {
+                return;
+            }
+            if (isTooHeavy(listing.cache(), loaded)) {
+                rejected.add(listing.name());
+                log.warn(
+                        "The {} listing is too heavy for the {} cache and will not be warmed up or refreshed",
+                        listing.name(),
+                        listing.cache().getName());
+                return;
+            }
+            if (!replace(listing.cache(), current, loaded)) {
+                return;
+            }
+            if (!listing.hotIdCache().isEmpty() && loaded instanceof List<?> items) {
+                cacheHotIds(listing.hotIdCache(), items);
+            }
+        } catch (RuntimeException ex) {
+            // A cold cache is slower, not broken
+            log.warn("Failed to load the {} listing into the {} cache", listing.name(), listing.cache().getName(), ex);
+        }
+    }
+
+    private static boolean replace(Cache cache, Object current, Object loaded) {
+        if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+            cache.put(SimpleKey.EMPTY, loaded);
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        ConcurrentMap<Object, Object> entries = (ConcurrentMap<Object, Object>) nativeCache.asMap();
+        return current == null
+                ? entries.putIfAbsent(SimpleKey.EMPTY, loaded) == null
+                : entries.replace(SimpleKey.EMPTY, current, loaded);
+    }
+
+    /*
+       A weight bounded cache accepts an entry heavier than its bound, and then evicts it straight away
+    */
+    private static boolean isTooHeavy(Cache cache, Object loaded) {
+        if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+            return false;
+        }
+        return nativeCache
+                .policy()
+                .eviction()
+                .filter(Policy.Eviction::isWeighted)
+                .map(eviction -> WEIGHER.weigh(SimpleKey.EMPTY, loaded) > eviction.getMaximum())
+                .orElse(false);
+    }
+
+    /*
+       The listings are in id order, so the newest are at the end
+    */
+    private void cacheHotIds(String cacheName, List<?> items) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        for (Object item : items.subList(Math.max(0, items.size() - properties.hotIds()), items.size())) {
+            Object id = new BeanWrapperImpl(item).getPropertyValue("id");
+            if (id != null) {
+                cache.putIfAbsent(id, item);
+            }
+        }
+    }
+
+    private List<Listing> findListings() {
+        List<Listing> found = new ArrayList<>();
+        for (Object bean : applicationContext.getBeansWithAnnotation(Controller.class).values()) {
+            Class<?> targetClass = AopUtils.getTargetClass(bean);
+            Object target = Optional.ofNullable(AopProxyUtils.getSingletonTarget(bean)).orElse(bean);
+            Map<Method, WarmUp> methods = MethodIntrospector.selectMethods(
+                    targetClass,
+                    (MethodIntrospector.MetadataLookup<WarmUp>)
+                            method -> AnnotatedElementUtils.findMergedAnnotation(method, WarmUp.class));
+            methods.forEach((method, warmUp) -> found.add(listing(target, method, warmUp)));
+        }
+        return found;
+    }
+
+    private Listing listing(Object target, Method method, WarmUp warmUp) {
+        String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        Cacheable cacheable = AnnotatedElementUtils.findMergedAnnotation(method, Cacheable.class);
+        if (method.getParameterCount() != 0 || cacheable == null || cacheable.cacheNames().length != 1) {
+            throw new IllegalStateException(name + " is @WarmUp but not a @Cacheable method of one cache without "
+                    + "parameters");
+        }
+        Cache cache = cacheManager.getCache(cacheable.cacheNames()[0]);
+        if (cache == null) {
+            throw new IllegalStateException("No cache " + cacheable.cacheNames()[0] + " for " + name);
+        }
+        ReflectionUtils.makeAccessible(method);
+        return new Listing(name, cache, target, method, warmUp.hotIdCache());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.store.warmup;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+   Marks a @Cacheable listing without parameters which CacheWarmer loads before the application reports ready, and
+   reloads in the background shortly before it expires.
+
+   hotIdCache names the cache of the single items by id, e.g. GET /order/{id}. The newest items of the listing are
+   put there too, as they are the ones most read. Each item needs an id property.
+*/
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WarmUp {
+
+    String hotIdCache() default "";
+}
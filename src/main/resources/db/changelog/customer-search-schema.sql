@@ -0,0 +1,5 @@
+-- Trigram index for substring searches on customer names
+-- Indexing lower(name) lets both the LIKE search in CustomerSpecs and the trigram similarity search use it
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX customer_name_trgm_idx ON customer USING gin (lower(name) gin_trgm_ops);
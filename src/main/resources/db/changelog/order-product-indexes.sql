@@ -0,0 +1,19 @@
+-- Keys and indexes for the order and order_product lookups
+
+-- order_product had no key, so repeated links could exist. Keep one of each before adding the primary key
+DELETE FROM order_product a
+    USING order_product b
+    WHERE a.ctid < b.ctid AND a.order_id = b.order_id AND a.product_id = b.product_id;
+
+-- Serves order -> products, and the foreign key on order_id
+ALTER TABLE order_product ADD CONSTRAINT order_product_pkey PRIMARY KEY (order_id, product_id);
+
+-- Serves product -> orders, and the foreign key on product_id. Covers both columns so the order IDs of a product are
+-- read from the index alone
+CREATE INDEX order_product_product_id_order_id_idx ON order_product (product_id, order_id);
+
+-- Serves customer -> orders, and the foreign key on customer_id
+CREATE INDEX order_customer_id_idx ON "order" (customer_id);
+
+-- ProductRepository.findByDescriptionIgnoreCase, which Hibernate renders as upper(description) = upper(?)
+CREATE INDEX product_description_upper_idx ON product (upper(description));
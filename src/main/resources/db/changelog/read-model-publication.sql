@@ -0,0 +1,3 @@
+-- The tables the read model is built from, streamed to it by logical replication. See ReadModelReplication.
+-- Every table has a primary key, which is the replica identity sent with updates and deletes.
+CREATE PUBLICATION store_read_model FOR TABLE customer, "order", product, order_product;
@@ -0,0 +1,34 @@
+package com.example.store.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class LoadBenchmarkTest {
+
+    // As printed by JDK 21 with -Djdk.tracePinnedThreads=short, between lines of application logging
+    private static final String PINNED_OUTPUT =
+            """
+            2024-05-01T10:15:30.123Z  INFO 1234 --- [store] [           main] c.e.s.StoreApplication : Started
+            Thread[#22,ForkJoinPool-1-worker-1,5,CarrierThreads]
+                java.base/java.lang.VirtualThread$VThreadContinuation.onPinned(VirtualThread.java:183)
+                com.example.store.cache.Example.load(Example.java:42) <== monitors:1
+            Thread[#25,ForkJoinPool-1-worker-4,5,CarrierThreads]
+                java.base/java.lang.VirtualThread$VThreadContinuation.onPinned(VirtualThread.java:183)
+                com.example.store.cache.Example.refresh(Example.java:57) <== monitors:1
+            2024-05-01T10:15:31.456Z  WARN 1234 --- [store] [omcat-handler-3] c.e.s.Other : Thread[#7,main,5,main]
+            """;
+
+    @Test
+    void thatEachPinnedStackIsCounted() {
+        assertThat(LoadBenchmark.countPinnedStacks(PINNED_OUTPUT.lines()), is(2L));
+    }
+
+    @Test
+    void thatNothingIsCountedWithoutPinning() {
+        assertThat(LoadBenchmark.countPinnedStacks(Stream.of("Started", "Stopped")), is(0L));
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.store.cache;
+
+import com.example.store.coalescing.CoalescingProperties;
+import com.example.store.coalescing.SingleFlight;
+import com.example.store.configuration.CacheConfiguration;
+import com.example.store.configuration.CacheProperties;
+import com.example.store.controller.CustomerSearchEngine;
+import com.example.store.controller.CustomerSearchKey;
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.dto.PageDTO;
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductSummaryDTO;
+import com.example.store.event.CustomerCreatedEvent;
+import com.example.store.event.OrderCreatedEvent;
+import com.example.store.event.ProductCreatedEvent;
+import com.example.store.event.RemoteChangeEvent;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+class CacheMaintainerTest {
+
+    private CacheManager cacheManager;
+    private CacheMaintainer classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        CacheProperties.Spec defaults = new CacheProperties.Spec(100L, null, Duration.ofMinutes(10), null, true);
+        SingleFlight singleFlight = new SingleFlight(new CoalescingProperties(Duration.ofSeconds(10), null), null);
+        cacheManager = new CacheConfiguration().cacheManager(new CacheProperties(defaults, Map.of()), singleFlight);
+        classUnderTest = new CacheMaintainer(cacheManager);
+    }
+
+    @Test
+    void thatANewOrderIsAppendedToTheCachedOrderList() {
+        List<OrderDTO> cached = List.of(order(1L, 1L), order(2L, 1L));
+        cache(CacheConfiguration.ALL_ORDERS).put(SimpleKey.EMPTY, cached);
+
+        classUnderTest.onOrderCreated(new OrderCreatedEvent(order(3L, 1L)));
+
+        List<?> all = cache(CacheConfiguration.ALL_ORDERS).get(SimpleKey.EMPTY, List.class);
+        assertThat(orderIds(all), contains(1L, 2L, 3L));
+        assertThat(cached.size(), is(2));
+        assertThat(cache(CacheConfiguration.ORDERS).get(3L, OrderDTO.class).getId(), is(3L));
+    }
+
+    @Test
+    void thatAnOrderAlreadyInTheCachedListIsNotAddedTwice() {
+        cache(CacheConfiguration.ALL_ORDERS).put(SimpleKey.EMPTY, List.of(order(1L, 1L), order(2L, 1L)));
+
+        classUnderTest.onOrderCreated(new OrderCreatedEvent(order(2L, 1L)));
+
+        assertThat(orderIds(cache(CacheConfiguration.ALL_ORDERS).get(SimpleKey.EMPTY, List.class)), contains(1L, 2L));
+    }
+
+    @Test
+    void thatANewOrderIsAddedOnlyToThePagesItFallsIn() {
+        Cache orders = cache(CacheConfiguration.ALL_ORDERS);
+        PageDTO<OrderDTO> first = PageDTO.of(List.of(order(1L, 1L), order(5L, 1L)), 2, OrderDTO::getId);
+        PageDTO<OrderDTO> second = PageDTO.of(List.of(order(6L, 1L), order(9L, 1L)), 2, OrderDTO::getId);
+        PageDTO<OrderDTO> last = PageDTO.of(List.of(order(10L, 1L)), 2, OrderDTO::getId);
+        orders.put("page:0:2", first);
+        orders.put("page:5:2", second);
+        orders.put("page:9:2", last);
+
+        classUnderTest.onOrderCreated(new OrderCreatedEvent(order(7L, 1L)));
+        classUnderTest.onOrderCreated(new OrderCreatedEvent(order(11L, 1L)));
+
+        assertThat(orders.get("page:0:2", PageDTO.class), sameInstance(first));
+        PageDTO<?> updated = orders.get("page:5:2", PageDTO.class);
+        assertThat(orderIds(updated.getItems()), contains(6L, 7L));
+        assertThat(updated.getNext(), is(7L));
+        PageDTO<?> filled = orders.get("page:9:2", PageDTO.class);
+        assertThat(orderIds(filled.getItems()), contains(10L, 11L));
+        assertThat(filled.getNext(), is(11L));
+    }
+
+    @Test
+    void thatANewOrderIsAddedToTheCachedCustomer() {
+        CustomerDTO customer = customer(1L);
+        cache(CacheConfiguration.CUSTOMERS).put(1L, customer);
+        cache(CacheConfiguration.CUSTOMERS).put(2L, customer(2L));
+        cache(CacheConfiguration.ALL_CUSTOMERS).put(SimpleKey.EMPTY, List.of(customer, customer(2L)));
+        cache(CacheConfiguration.ALL_CUSTOMERS)
+                .put("page:0:10", PageDTO.of(List.of(customer, customer(2L)), 10, CustomerDTO::getId));
+
+        classUnderTest.onOrderCreated(new OrderCreatedEvent(order(3L, 1L)));
+
+        assertThat(customerOrderIds(cache(CacheConfiguration.CUSTOMERS).get(1L, CustomerDTO.class)), contains(3L));
+        assertThat(customerOrderIds(cache(CacheConfiguration.CUSTOMERS).get(2L, CustomerDTO.class)), is(List.of()));
+        List<?> all = cache(CacheConfiguration.ALL_CUSTOMERS).get(SimpleKey.EMPTY, List.class);
+        assertThat(customerOrderIds((CustomerDTO) all.get(0)), contains(3L));
+        PageDTO<?> page = cache(CacheConfiguration.ALL_CUSTOMERS).get("page:0:10", PageDTO.class);
+        assertThat(customerOrderIds((CustomerDTO) page.getItems().get(0)), contains(3L));
+        assertThat(customer.getOrders(), is(List.of()));
+    }
+
+    @Test
+    void thatANewCustomerLeavesTheOrderCachesAlone() {
+        List<OrderDTO> cached = List.of(order(1L, 1L));
+        cache(CacheConfiguration.ALL_ORDERS).put(SimpleKey.EMPTY, cached);
+        cache(CacheConfiguration.ALL_CUSTOMERS).put(SimpleKey.EMPTY, List.of(customer(1L)));
+
+        classUnderTest.onCustomerCreated(new CustomerCreatedEvent(customer(2L)));
+
+        assertThat(cache(CacheConfiguration.ALL_ORDERS).get(SimpleKey.EMPTY, List.class), sameInstance(cached));
+        List<?> all = cache(CacheConfiguration.ALL_CUSTOMERS).get(SimpleKey.EMPTY, List.class);
+        assertThat(all.size(), is(2));
+        assertThat(cache(CacheConfiguration.CUSTOMERS).get(2L, CustomerDTO.class).getId(), is(2L));
+    }
+
+    @Test
+    void thatANewProductIsAppendedToTheCachedProductList() {
+        cache(CacheConfiguration.ALL_PRODUCTS).put(SimpleKey.EMPTY, List.of(product(1L)));
+        ProductDTO product = new ProductDTO();
+        product.setId(2L);
+        product.setDescription("Product 2");
+
+        classUnderTest.onProductCreated(new ProductCreatedEvent(product));
+
+        List<?> all = cache(CacheConfiguration.ALL_PRODUCTS).get(SimpleKey.EMPTY, List.class);
+        assertThat(productIds(all), contains(1L, 2L));
+        assertThat(((ProductSummaryDTO) all.get(1)).getOrders(), is(List.of()));
+    }
+
+    @Test
+    void thatANewOrderIsAddedToItsCachedProducts() {
+        ProductSummaryDTO first = product(1L);
+        cache(CacheConfiguration.ALL_PRODUCTS).put(SimpleKey.EMPTY, List.of(first, product(2L)));
+        OrderProductDTO orderProduct = new OrderProductDTO();
+        orderProduct.setId(1L);
+        orderProduct.setDescription("Product 1");
+        OrderDTO order = order(3L, 1L);
+        order.setProducts(List.of(orderProduct));
+
+        classUnderTest.onOrderCreated(new OrderCreatedEvent(order));
+
+        List<?> all = cache(CacheConfiguration.ALL_PRODUCTS).get(SimpleKey.EMPTY, List.class);
+        assertThat(((ProductSummaryDTO) all.get(0)).getOrders(), contains(3L));
+        assertThat(((ProductSummaryDTO) all.get(1)).getOrders(), is(List.of()));
+        assertThat(first.getOrders(), is(List.of()));
+    }
+
+    @Test
+    void thatAnOrderByAnotherInstanceEvictsWhatItCanChange() {
+        cache(CacheConfiguration.ORDERS).put(1L, order(1L, 1L));
+        cache(CacheConfiguration.ALL_ORDERS).put(SimpleKey.EMPTY, List.of(order(1L, 1L)));
+        cache(CacheConfiguration.CUSTOMERS).put(1L, customer(1L));
+        cache(CacheConfiguration.CUSTOMERS).put(2L, customer(2L));
+        cache(CacheConfiguration.ALL_CUSTOMERS).put(SimpleKey.EMPTY, List.of(customer(1L), customer(2L)));
+        cache(CacheConfiguration.ALL_PRODUCTS).put(SimpleKey.EMPTY, List.of(product(1L)));
+
+        classUnderTest.onRemoteChange(new RemoteChangeEvent(VersionedCollection.ORDERS, 1L));
+
+        assertThat(cache(CacheConfiguration.ALL_ORDERS).get(SimpleKey.EMPTY), is(nullValue()));
+        assertThat(cache(CacheConfiguration.ALL_CUSTOMERS).get(SimpleKey.EMPTY), is(nullValue()));
+        assertThat(cache(CacheConfiguration.ALL_PRODUCTS).get(SimpleKey.EMPTY), is(nullValue()));
+        assertThat(cache(CacheConfiguration.CUSTOMERS).get(1L), is(nullValue()));
+        assertThat(cache(CacheConfiguration.CUSTOMERS).get(2L, CustomerDTO.class).getId(), is(2L));
+        assertThat(cache(CacheConfiguration.ORDERS).get(1L, OrderDTO.class).getId(), is(1L));
+    }
+
+    @Test
+    void thatANewCustomerEvictsOnlyTheSearchesItsNameMatches() {
+        CustomerSearchKey johnSmith = new CustomerSearchKey(CustomerSearchEngine.LIKE, List.of("john", "smith"), null);
+        CustomerSearchKey doe = new CustomerSearchKey(CustomerSearchEngine.TRIGRAM, List.of("doe"), 20);
+        CustomerSearchKey jack = new CustomerSearchKey(CustomerSearchEngine.LIKE, List.of("jack"), null);
+        cache(CacheConfiguration.CUSTOMER_SEARCH).put(johnSmith, List.of(customer(1L)));
+        cache(CacheConfiguration.CUSTOMER_SEARCH).put(doe, List.of());
+        cache(CacheConfiguration.CUSTOMER_SEARCH).put(jack, List.of());
+        CustomerDTO created = customer(2L);
+        created.setName("Johnny DOE");
+
+        classUnderTest.onCustomerCreated(new CustomerCreatedEvent(created));
+
+        assertThat(cache(CacheConfiguration.CUSTOMER_SEARCH).get(johnSmith), is(nullValue()));
+        assertThat(cache(CacheConfiguration.CUSTOMER_SEARCH).get(doe), is(nullValue()));
+        assertThat(cache(CacheConfiguration.CUSTOMER_SEARCH).get(jack, List.class), is(List.of()));
+    }
+
+    @Test
+    void thatANewOrderIsAddedToItsCustomerInTheCachedSearches() {
+        CustomerSearchKey search = new CustomerSearchKey(CustomerSearchEngine.LIKE, List.of("customer"), null);
+        cache(CacheConfiguration.CUSTOMER_SEARCH).put(search, List.of(customer(1L), customer(2L)));
+
+        classUnderTest.onOrderCreated(new OrderCreatedEvent(order(3L, 1L)));
+
+        List<?> found = cache(CacheConfiguration.CUSTOMER_SEARCH).get(search, List.class);
+        assertThat(customerOrderIds((CustomerDTO) found.get(0)), contains(3L));
+        assertThat(customerOrderIds((CustomerDTO) found.get(1)), is(List.of()));
+    }
+
+    @Test
+    void thatAnOrderByAnotherInstanceEvictsTheSearchesFindingItsCustomer() {
+        CustomerSearchKey first = new CustomerSearchKey(CustomerSearchEngine.LIKE, List.of("1"), null);
+        CustomerSearchKey second = new CustomerSearchKey(CustomerSearchEngine.LIKE, List.of("2"), null);
+        cache(CacheConfiguration.CUSTOMER_SEARCH).put(first, List.of(customer(1L)));
+        cache(CacheConfiguration.CUSTOMER_SEARCH).put(second, List.of(customer(2L)));
+
+        classUnderTest.onRemoteChange(new RemoteChangeEvent(VersionedCollection.ORDERS, 1L));
+
+        assertThat(cache(CacheConfiguration.CUSTOMER_SEARCH).get(first), is(nullValue()));
+        assertThat(cache(CacheConfiguration.CUSTOMER_SEARCH).get(second, List.class).size(), is(1));
+    }
+
+    @Test
+    void thatUncachedListingsStayUncached() {
+        classUnderTest.onOrderCreated(new OrderCreatedEvent(order(1L, 1L)));
+
+        assertThat(cache(CacheConfiguration.ALL_ORDERS).get(SimpleKey.EMPTY), is(nullValue()));
+        assertThat(cache(CacheConfiguration.CUSTOMERS).get(1L), is(nullValue()));
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+
+    private static List<Long> orderIds(List<?> orders) {
+        return orders.stream().map(order -> ((OrderDTO) order).getId()).toList();
+    }
+
+    private static List<Long> productIds(List<?> products) {
+        return products.stream().map(product -> ((ProductSummaryDTO) product).getId()).toList();
+    }
+
+    private static List<Long> customerOrderIds(CustomerDTO customer) {
+        return customer.getOrders().stream().map(CustomerOrderDTO::getId).toList();
+    }
+
+    private static OrderDTO order(Long id, Long customerId) {
+        OrderCustomerDTO customer = new OrderCustomerDTO();
+        customer.setId(customerId);
+        customer.setName("Customer " + customerId);
+        OrderDTO order = new OrderDTO();
+        order.setId(id);
+        order.setDescription("Order " + id);
+        order.setCustomer(customer);
+        order.setProducts(List.of());
+        return order;
+    }
+
+    private static ProductSummaryDTO product(Long id) {
+        return ProductSummaryDTO.builder().id(id).description("Product " + id).build();
+    }
+
+    private static CustomerDTO customer(Long id) {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(id);
+        customer.setName("Customer " + id);
+        customer.setOrders(new ArrayList<>());
+        return customer;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.store.cache;
+
+import com.example.store.coalescing.CoalescingProperties;
+import com.example.store.coalescing.SingleFlight;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CoalescingCaffeineCacheTest {
+
+    private CoalescingCaffeineCache classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        SingleFlight singleFlight = new SingleFlight(new CoalescingProperties(Duration.ofSeconds(10), null), null);
+        classUnderTest = new CoalescingCaffeineCache("all_orders", Caffeine.newBuilder().build(), true, singleFlight);
+    }
+
+    @Test
+    void thatALoadIsCached() {
+        List<String> loaded = classUnderTest.get("key", () -> List.of("order"));
+
+        assertThat(loaded, is(List.of("order")));
+        assertThat(classUnderTest.get("key").get(), is(List.of("order")));
+        assertThat(classUnderTest.get("key", () -> List.of("reloaded")), is(List.of("order")));
+    }
+
+    @Test
+    void thatALoadRacingAWriteIsReturnedButNotCached() {
+        List<String> loaded = classUnderTest.get("key", () -> {
+            // CacheMaintainer applying a write while the load reads the tables
+            classUnderTest.invalidateLoads();
+            return List.of("stale");
+        });
+
+        assertThat(loaded, is(List.of("stale")));
+        assertThat(classUnderTest.get("key"), is(nullValue()));
+    }
+
+    @Test
+    void thatALoadRacingAnEvictionIsNotCached() {
+        List<String> loaded = classUnderTest.get("key", () -> {
+            classUnderTest.evict("other");
+            return List.of("stale");
+        });
+
+        assertThat(loaded, is(List.of("stale")));
+        assertThat(classUnderTest.get("key"), is(nullValue()));
+    }
+
+    @Test
+    void thatALoadRacingAWriteDoesNotReplaceTheWrittenEntry() {
+        List<String> loaded = classUnderTest.get("key", () -> {
+            classUnderTest.invalidateLoads();
+            classUnderTest.getNativeCache().put("key", List.of("written"));
+            return List.of("stale");
+        });
+
+        assertThat(loaded, is(List.of("stale")));
+        assertThat(classUnderTest.get("key").get(), is(List.of("written")));
+    }
+
+    @Test
+    void thatAFailedLoadIsNotCached() {
+        assertThrows(IllegalStateException.class, () -> classUnderTest.get("key", () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertThat(classUnderTest.get("key"), is(nullValue()));
+    }
+}
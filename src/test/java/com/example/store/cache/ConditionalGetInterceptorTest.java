@@ -0,0 +1,130 @@
+package com.example.store.cache;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class ConditionalGetInterceptorTest {
+
+    private CollectionVersions collectionVersions;
+    private ConditionalGetInterceptor classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        collectionVersions = new CollectionVersions();
+        classUnderTest = new ConditionalGetInterceptor(collectionVersions);
+    }
+
+    @Test
+    void thatAMatchingETagIsNotModified() throws Exception {
+        String etag = collectionVersions.etag(VersionedCollection.CUSTOMERS, VersionedCollection.ORDERS);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        boolean proceed = classUnderTest.preHandle(request("\"other\", " + etag), response, handler("customers"));
+
+        assertThat(proceed, is(false));
+        assertThat(response.getStatus(), is(HttpServletResponse.SC_NOT_MODIFIED));
+        assertThat(response.getHeader(HttpHeaders.ETAG), is(etag));
+    }
+
+    @Test
+    void thatTheGzipAndWeakFormsOfTheETagMatch() throws Exception {
+        String etag = collectionVersions.etag(VersionedCollection.ORDERS);
+        String gzipEtag = RenderedResponseAdvice.gzipEtag(etag);
+
+        MockHttpServletResponse gzipResponse = new MockHttpServletResponse();
+        assertThat(classUnderTest.preHandle(request(gzipEtag), gzipResponse, handler("orders")), is(false));
+        assertThat(gzipResponse.getHeader(HttpHeaders.ETAG), is(gzipEtag));
+
+        MockHttpServletResponse weakResponse = new MockHttpServletResponse();
+        assertThat(classUnderTest.preHandle(request("W/" + etag), weakResponse, handler("orders")), is(false));
+    }
+
+    @Test
+    void thatAWriteToAnyOfTheCollectionsChangesTheETag() throws Exception {
+        String etag = collectionVersions.etag(VersionedCollection.CUSTOMERS, VersionedCollection.ORDERS);
+        collectionVersions.bump(VersionedCollection.ORDERS);
+        MockHttpServletRequest request = request(etag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        boolean proceed = classUnderTest.preHandle(request, response, handler("customers"));
+
+        assertThat(proceed, is(true));
+        assertThat(response.getStatus(), is(HttpServletResponse.SC_OK));
+        assertThat(request.getAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE), is(not(etag)));
+        // Left to ConditionalGetResponseAdvice, once the handler has succeeded
+        assertThat(response.getHeader(HttpHeaders.ETAG), is(nullValue()));
+    }
+
+    @Test
+    void thatAHandlerWithParametersRunsBeforeTheETagIsMatched() throws Exception {
+        String etag = collectionVersions.etag(VersionedCollection.ORDERS);
+        MockHttpServletRequest request = request(etag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        boolean proceed = classUnderTest.preHandle(
+                request, response, new HandlerMethod(new Handlers(), Handlers.class.getMethod("order", Long.class)));
+
+        assertThat(proceed, is(true));
+        assertThat(response.getStatus(), is(HttpServletResponse.SC_OK));
+        assertThat(response.getHeader(HttpHeaders.ETAG), is(nullValue()));
+        assertThat(request.getAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE), is(etag));
+    }
+
+    @Test
+    void thatAWriteToAnotherCollectionKeepsTheETag() throws Exception {
+        String etag = collectionVersions.etag(VersionedCollection.ORDERS);
+        collectionVersions.bump(VersionedCollection.PRODUCTS);
+
+        boolean proceed = classUnderTest.preHandle(request(etag), new MockHttpServletResponse(), handler("orders"));
+
+        assertThat(proceed, is(false));
+    }
+
+    @Test
+    void thatUnversionedHandlersAreLeftAlone() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        MockHttpServletRequest request = request("*");
+
+        boolean proceed = classUnderTest.preHandle(request, response, handler("unversioned"));
+
+        assertThat(proceed, is(true));
+        assertThat(response.getHeader(HttpHeaders.ETAG), is(nullValue()));
+        assertThat(request.getAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE), is(nullValue()));
+    }
+
+    private static MockHttpServletRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return request;
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), Handlers.class.getMethod(name));
+    }
+
+    public static class Handlers {
+
+        @VersionedBy(VersionedCollection.ORDERS)
+        public void orders() {}
+
+        @VersionedBy({VersionedCollection.CUSTOMERS, VersionedCollection.ORDERS})
+        public void customers() {}
+
+        @VersionedBy(VersionedCollection.ORDERS)
+        public void order(Long id) {}
+
+        public void unversioned() {}
+    }
+}
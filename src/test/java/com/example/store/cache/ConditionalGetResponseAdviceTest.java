@@ -0,0 +1,87 @@
+package com.example.store.cache;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class ConditionalGetResponseAdviceTest {
+
+    private static final String ETAG = "\"1\"";
+    private static final Object BODY = new Object();
+
+    private final ConditionalGetResponseAdvice classUnderTest = new ConditionalGetResponseAdvice();
+
+    @Test
+    void thatASuccessfulResponseCarriesTheETag() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Object body = write(versionedRequest(), response);
+
+        assertThat(body, is(BODY));
+        assertThat(response.getHeader(HttpHeaders.ETAG), is(ETAG));
+    }
+
+    @Test
+    void thatAnErrorResponseCarriesNoETag() {
+        MockHttpServletRequest request = versionedRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+
+        Object body = write(request, response);
+
+        assertThat(body, is(BODY));
+        assertThat(response.getStatus(), is(HttpServletResponse.SC_NOT_FOUND));
+        assertThat(response.getHeader(HttpHeaders.ETAG), is(nullValue()));
+    }
+
+    @Test
+    void thatAMatchingETagIsNotModifiedOnceTheHandlerHasSucceeded() {
+        MockHttpServletRequest request = versionedRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/" + ETAG);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Object body = write(request, response);
+
+        assertThat(body, is(nullValue()));
+        assertThat(response.getStatus(), is(HttpServletResponse.SC_NOT_MODIFIED));
+        assertThat(response.getHeader(HttpHeaders.ETAG), is(ETAG));
+    }
+
+    @Test
+    void thatUnversionedResponsesAreLeftAlone() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Object body = write(new MockHttpServletRequest("GET", "/"), response);
+
+        assertThat(body, is(BODY));
+        assertThat(response.getHeader(HttpHeaders.ETAG), is(nullValue()));
+    }
+
+    private Object write(MockHttpServletRequest request, MockHttpServletResponse response) {
+        return classUnderTest.beforeBodyWrite(
+                BODY,
+                null,
+                MediaType.APPLICATION_JSON,
+                MappingJackson2HttpMessageConverter.class,
+                new ServletServerHttpRequest(request),
+                new ServletServerHttpResponse(response));
+    }
+
+    private static MockHttpServletRequest versionedRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/order/1");
+        request.setAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE, ETAG);
+        return request;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.store.cache;
+
+import com.example.store.dto.OrderDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RenderedResponseAdviceTest {
+
+    private ObjectMapper objectMapper;
+    private RenderedResponseAdvice classUnderTest;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        objectMapper = spy(new ObjectMapper());
+        classUnderTest = new RenderedResponseAdvice(objectMapper, DataSize.ofMegabytes(1), mock(ObjectProvider.class));
+    }
+
+    @Test
+    void thatTheSameBodyIsSerializedOnce() throws Exception {
+        List<OrderDTO> orders = orders(2);
+
+        MockHttpServletResponse first = write(orders, new MockHttpServletRequest());
+        MockHttpServletResponse second = write(orders, new MockHttpServletRequest());
+
+        verify(objectMapper, times(1)).writeValueAsBytes(orders);
+        assertThat(second.getContentAsString(), is(objectMapper.writeValueAsString(orders)));
+        assertThat(second.getContentAsString(), is(first.getContentAsString()));
+        assertThat(second.getContentType(), is(MediaType.APPLICATION_JSON_VALUE));
+        assertThat(second.getContentLength(), is(second.getContentAsByteArray().length));
+    }
+
+    @Test
+    void thatLargeBodiesAreGzippedForClientsWhichAcceptIt() throws Exception {
+        List<OrderDTO> orders = orders(100);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8");
+
+        MockHttpServletResponse response = write(orders, request);
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING), is("gzip"));
+        assertThat(response.getHeader(HttpHeaders.VARY), is(HttpHeaders.ACCEPT_ENCODING));
+        assertThat(gunzip(response.getContentAsByteArray()), is(objectMapper.writeValueAsString(orders)));
+    }
+
+    @Test
+    void thatSmallBodiesAndRefusedGzipAreSentAsIs() throws Exception {
+        MockHttpServletRequest refusing = new MockHttpServletRequest();
+        refusing.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+        MockHttpServletRequest accepting = new MockHttpServletRequest();
+        accepting.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        assertThat(write(orders(100), refusing).getHeader(HttpHeaders.CONTENT_ENCODING), is(nullValue()));
+        assertThat(write(orders(1), accepting).getHeader(HttpHeaders.CONTENT_ENCODING), is(nullValue()));
+    }
+
+    private MockHttpServletResponse write(Object body, MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(response);
+        Object result = classUnderTest.beforeBodyWrite(
+                body,
+                null,
+                MediaType.APPLICATION_JSON,
+                MappingJackson2HttpMessageConverter.class,
+                new ServletServerHttpRequest(request),
+                outputMessage);
+        assertThat(result, is(nullValue()));
+        outputMessage.flush();
+        return response;
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(gzipInputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<OrderDTO> orders(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    OrderDTO order = new OrderDTO();
+                    order.setId((long) i);
+                    order.setDescription("Order " + i);
+                    order.setProducts(List.of());
+                    return order;
+                })
+                .toList();
+    }
+}
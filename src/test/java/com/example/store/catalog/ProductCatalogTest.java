@@ -0,0 +1,104 @@
+package com.example.store.catalog;
+
+import com.example.store.entity.ProductDescriptionProjection;
+import com.example.store.event.CacheCoherenceLostEvent;
+import com.example.store.repository.ProductRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCatalogTest {
+
+    private ProductRepository productRepository;
+    private ProductCatalog classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findAllDescriptions())
+                .thenReturn(List.of(projection(1L, "Widget"), projection(2L, "Gadget")));
+        classUnderTest = new ProductCatalog(productRepository);
+        classUnderTest.build();
+    }
+
+    @Test
+    void thatTheCatalogIsBuiltFromTheRepository() {
+        assertThat(classUnderTest.size(), is(2));
+        assertThat(classUnderTest.description(1L), is(Optional.of("Widget")));
+        assertThat(classUnderTest.description(3L), is(Optional.empty()));
+    }
+
+    @Test
+    void thatKnownProductsAreNotLookedUp() {
+        assertThat(classUnderTest.missing(List.of(1L, 2L, 1L)), is(empty()));
+
+        verify(productRepository, never()).findDescriptionsByIdIn(any());
+    }
+
+    @Test
+    void thatUnknownProductsAreLookedUpAndAddedWhenFound() {
+        when(productRepository.findDescriptionsByIdIn(List.of(3L, 4L)))
+                .thenReturn(List.of(projection(3L, "Doohickey")));
+
+        assertThat(classUnderTest.missing(List.of(1L, 3L, 4L)), contains(4L));
+        assertThat(classUnderTest.description(3L), is(Optional.of("Doohickey")));
+        assertThat(classUnderTest.size(), is(3));
+    }
+
+    @Test
+    void thatAPutReplacesTheDescription() {
+        classUnderTest.put(1L, "Sprocket");
+        classUnderTest.put(5L, "Gizmo");
+
+        assertThat(classUnderTest.description(1L), is(Optional.of("Sprocket")));
+        assertThat(classUnderTest.description(5L), is(Optional.of("Gizmo")));
+    }
+
+    @Test
+    void thatARemovedProductIsNoLongerDescribed() {
+        classUnderTest.remove(2L);
+        classUnderTest.remove(9L);
+
+        assertThat(classUnderTest.description(2L), is(Optional.empty()));
+        assertThat(classUnderTest.size(), is(1));
+    }
+
+    @Test
+    void thatAFailedRebuildKeepsTheCurrentCatalog() {
+        when(productRepository.findAllDescriptions())
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        classUnderTest.onCacheCoherenceLost(new CacheCoherenceLostEvent());
+
+        assertThat(classUnderTest.size(), is(2));
+        assertThat(classUnderTest.description(1L), is(Optional.of("Widget")));
+    }
+
+    private ProductDescriptionProjection projection(Long id, String description) {
+        return new ProductDescriptionProjection() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+        };
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.store.coalescing;
+
+import com.example.store.exception.api.ApiServiceUnavailableException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    private static final int WAITERS = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private SingleFlight classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+        CoalescingProperties properties =
+                new CoalescingProperties(Duration.ofSeconds(10), Map.of("slow", Duration.ofMillis(50)));
+        classUnderTest = new SingleFlight(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void thatConcurrentCallersShareOneComputation() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object result = new Object();
+        Future<Object> leader = executor.submit(() -> classUnderTest.execute("orders", List.of(), () -> {
+            computations.incrementAndGet();
+            computing.countDown();
+            await(release);
+            return result;
+        }));
+        assertThat(computing.await(5, TimeUnit.SECONDS), is(true));
+
+        List<Future<Object>> waiters = new ArrayList<>();
+        for (int i = 0; i < WAITERS; i++) {
+            waiters.add(executor.submit(() -> classUnderTest.execute("orders", List.of(), () -> {
+                computations.incrementAndGet();
+                return new Object();
+            })));
+        }
+        // Give the waiters time to join the computation in flight
+        Thread.sleep(200);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS), sameInstance(result));
+        for (Future<Object> waiter : waiters) {
+            assertThat(waiter.get(5, TimeUnit.SECONDS), sameInstance(result));
+        }
+        assertThat(computations.get(), is(1));
+        assertThat(count("orders", "leader"), is(1.0));
+        assertThat(count("orders", "coalesced"), is((double) WAITERS));
+        assertThat(classUnderTest.inFlight(), is(0));
+    }
+
+    @Test
+    void thatDifferentParametersAreNotShared() throws Exception {
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> first = executor.submit(() -> classUnderTest.execute("customer-search", List.of("john"), () -> {
+            computing.countDown();
+            await(release);
+            return "john";
+        }));
+        assertThat(computing.await(5, TimeUnit.SECONDS), is(true));
+
+        String second = classUnderTest.execute("customer-search", List.of("jack"), () -> "jack");
+        release.countDown();
+
+        assertThat(second, is("jack"));
+        assertThat(first.get(5, TimeUnit.SECONDS), is("john"));
+        assertThat(count("customer-search", "leader"), is(2.0));
+    }
+
+    @Test
+    void thatAFinishedComputationIsNotReused() {
+        AtomicInteger computations = new AtomicInteger();
+
+        classUnderTest.execute("orders", List.of(), computations::incrementAndGet);
+        int second = classUnderTest.execute("orders", List.of(), computations::incrementAndGet);
+
+        assertThat(second, is(2));
+    }
+
+    @Test
+    void thatAWaiterGivesUpAfterTheTimeoutForItsName() throws Exception {
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> classUnderTest.execute("slow", List.of(), () -> {
+            computing.countDown();
+            await(release);
+            return "done";
+        }));
+        assertThat(computing.await(5, TimeUnit.SECONDS), is(true));
+
+        ApiServiceUnavailableException ex = assertThrows(
+                ApiServiceUnavailableException.class, () -> classUnderTest.execute("slow", List.of(), () -> "again"));
+        release.countDown();
+
+        assertThat(ex.getRetryAfter(), is(Duration.ofMillis(50)));
+        assertThat(leader.get(5, TimeUnit.SECONDS), is("done"));
+        assertThat(count("slow", "timed-out"), is(1.0));
+    }
+
+    @Test
+    void thatTheLeadersExceptionIsSharedWithTheWaiters() throws Exception {
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database gone");
+        CompletableFuture<Object> leader = CompletableFuture.supplyAsync(
+                () -> classUnderTest.execute("orders", List.of(), () -> {
+                    computing.countDown();
+                    await(release);
+                    throw failure;
+                }),
+                executor);
+        assertThat(computing.await(5, TimeUnit.SECONDS), is(true));
+
+        Future<Object> waiter = executor.submit(() -> classUnderTest.execute("orders", List.of(), Object::new));
+        Thread.sleep(200);
+        release.countDown();
+
+        Exception waiterFailure = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertThat(waiterFailure.getCause(), sameInstance(failure));
+        Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertThat(leaderFailure.getCause(), sameInstance(failure));
+    }
+
+    private double count(String name, String outcome) {
+        return meterRegistry
+                .get("store.coalescing.calls")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.store.coherence;
+
+import com.example.store.cache.VersionedCollection;
+import com.example.store.event.CacheCoherenceLostEvent;
+import com.example.store.event.RemoteChangeEvent;
+
+import org.hibernate.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class CacheInvalidationListenerTest {
+
+    private ApplicationEventPublisher eventPublisher;
+    private Cache secondLevelCache;
+    private CacheInvalidationListener classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        secondLevelCache = mock(Cache.class);
+        CacheCoherenceProperties properties =
+                new CacheCoherenceProperties(true, "store_cache", Duration.ofSeconds(5), Duration.ofSeconds(5));
+        classUnderTest = new CacheInvalidationListener(
+                "jdbc:postgresql://localhost/store",
+                "store",
+                "secret",
+                properties,
+                "here",
+                eventPublisher,
+                secondLevelCache);
+    }
+
+    @Test
+    void thatARemoteChangeIsPublished() {
+        classUnderTest.apply(new InvalidationMessage("there", VersionedCollection.CUSTOMERS, null).encode());
+
+        verify(eventPublisher).publishEvent(new RemoteChangeEvent(VersionedCollection.CUSTOMERS, null));
+    }
+
+    @Test
+    void thatAFailingListenerFlushesTheCaches() {
+        doThrow(new IllegalStateException("Listener failed"))
+                .when(eventPublisher)
+                .publishEvent(any(RemoteChangeEvent.class));
+
+        classUnderTest.apply(new InvalidationMessage("there", VersionedCollection.ORDERS, 42L).encode());
+
+        verify(secondLevelCache).evictAllRegions();
+        verify(eventPublisher).publishEvent(any(CacheCoherenceLostEvent.class));
+    }
+}
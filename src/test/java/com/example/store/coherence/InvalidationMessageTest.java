@@ -0,0 +1,35 @@
+package com.example.store.coherence;
+
+import com.example.store.cache.VersionedCollection;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InvalidationMessageTest {
+
+    @Test
+    void thatAMessageSurvivesTheRoundTrip() {
+        InvalidationMessage message = new InvalidationMessage("origin", VersionedCollection.ORDERS, 42L);
+
+        assertThat(message.encode(), is("origin:ORDERS:42"));
+        assertThat(InvalidationMessage.decode(message.encode()), is(message));
+    }
+
+    @Test
+    void thatAMissingCustomerIdIsEmpty() {
+        InvalidationMessage message = new InvalidationMessage("origin", VersionedCollection.CUSTOMERS, null);
+
+        assertThat(message.encode(), is("origin:CUSTOMERS:"));
+        assertThat(InvalidationMessage.decode(message.encode()), is(message));
+    }
+
+    @Test
+    void thatAnythingElseIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> InvalidationMessage.decode("origin:ORDERS"));
+        assertThrows(IllegalArgumentException.class, () -> InvalidationMessage.decode("origin:INVOICES:"));
+        assertThrows(IllegalArgumentException.class, () -> InvalidationMessage.decode("origin:ORDERS:x"));
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.store.configuration;
+
+import com.example.store.coalescing.CoalescingProperties;
+import com.example.store.coalescing.SingleFlight;
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CacheConfigurationTest {
+
+    private static final CacheProperties.Spec DEFAULTS =
+            new CacheProperties.Spec(100L, null, Duration.ofMinutes(10), null, true);
+    private static final SingleFlight SINGLE_FLIGHT =
+            new SingleFlight(new CoalescingProperties(Duration.ofSeconds(10), null), null);
+
+    @Test
+    void thatAllCachesAreCreatedUpFront() {
+        CacheManager cacheManager =
+                new CacheConfiguration().cacheManager(new CacheProperties(DEFAULTS, Map.of()), SINGLE_FLIGHT);
+
+        assertThat(
+                cacheManager.getCacheNames(),
+                containsInAnyOrder(
+                        CacheConfiguration.ORDERS,
+                        CacheConfiguration.ALL_ORDERS,
+                        CacheConfiguration.CUSTOMERS,
+                        CacheConfiguration.ALL_CUSTOMERS,
+                        CacheConfiguration.ALL_PRODUCTS,
+                        CacheConfiguration.CUSTOMER_SEARCH));
+    }
+
+    @Test
+    void thatACacheIsBoundedBySize() {
+        CacheProperties.Spec spec = new CacheProperties.Spec(2L, null, null, null, true);
+        CacheManager cacheManager = new CacheConfiguration()
+                .cacheManager(new CacheProperties(DEFAULTS, Map.of(CacheConfiguration.ORDERS, spec)), SINGLE_FLIGHT);
+
+        Cache<Object, Object> cache = nativeCache(cacheManager, CacheConfiguration.ORDERS);
+        IntStream.range(0, 10).forEach(i -> cache.put(i, order("Order " + i, 1)));
+        cache.cleanUp();
+
+        assertThat(cache.estimatedSize(), lessThanOrEqualTo(2L));
+        assertThat(cache.stats().evictionCount(), greaterThan(0L));
+    }
+
+    @Test
+    void thatACacheIsBoundedByWeight() {
+        CacheProperties.Spec spec = new CacheProperties.Spec(null, DataSize.ofKilobytes(4), null, null, true);
+        CacheProperties cacheProperties = new CacheProperties(DEFAULTS, Map.of(CacheConfiguration.ALL_ORDERS, spec));
+        CacheManager cacheManager = new CacheConfiguration().cacheManager(cacheProperties, SINGLE_FLIGHT);
+
+        Cache<Object, Object> cache = nativeCache(cacheManager, CacheConfiguration.ALL_ORDERS);
+        IntStream.range(0, 10).forEach(i -> cache.put(i, order("Order " + i, 10)));
+        cache.cleanUp();
+
+        long weight = cache.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+        assertThat(weight, lessThanOrEqualTo(DataSize.ofKilobytes(4).toBytes()));
+        assertThat(cache.estimatedSize(), lessThanOrEqualTo(9L));
+    }
+
+    @Test
+    void thatACacheInheritsOnlyTheSettingsItDoesNotReplace() {
+        CacheProperties.Spec spec = new CacheProperties.Spec(null, DataSize.ofMegabytes(1), null, null, false);
+        CacheProperties cacheProperties = new CacheProperties(DEFAULTS, Map.of(CacheConfiguration.CUSTOMERS, spec));
+
+        CacheProperties.Spec resolved = cacheProperties.specFor(CacheConfiguration.CUSTOMERS);
+
+        assertThat(resolved.maximumSize(), is(nullValue()));
+        assertThat(resolved.maximumWeight(), is(DataSize.ofMegabytes(1)));
+        assertThat(resolved.expireAfterWrite(), is(Duration.ofMinutes(10)));
+        assertThat(resolved.recordStats(), is(false));
+        assertThat(cacheProperties.specFor(CacheConfiguration.ORDERS), is(DEFAULTS));
+    }
+
+    @Test
+    void thatSizeAndWeightCannotBothBeSet() {
+        CacheProperties.Spec spec = new CacheProperties.Spec(10L, DataSize.ofMegabytes(1), null, null, true);
+
+        assertThrows(IllegalArgumentException.class, () -> CacheConfiguration.caffeine(spec));
+    }
+
+    @Test
+    void thatTheWeightGrowsWithTheDTO() {
+        CacheEntryWeigher weigher = new CacheEntryWeigher();
+
+        int small = weigher.weigh(1L, order("Order", 1));
+        int large = weigher.weigh(1L, order("Order", 100));
+
+        assertThat(large, greaterThan(small));
+        assertThat(weigher.weigh(1L, List.of(order("Order", 1), order("Order", 1))), greaterThan(2 * small));
+    }
+
+    private static Cache<Object, Object> nativeCache(CacheManager cacheManager, String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+    }
+
+    private static OrderDTO order(String description, int products) {
+        OrderCustomerDTO customer = new OrderCustomerDTO();
+        customer.setId(1L);
+        customer.setName("John Smith");
+        OrderDTO order = new OrderDTO();
+        order.setId(1L);
+        order.setDescription(description);
+        order.setCustomer(customer);
+        order.setProducts(IntStream.range(0, products)
+                .mapToObj(i -> {
+                    OrderProductDTO product = new OrderProductDTO();
+                    product.setId((long) i);
+                    product.setDescription("Product " + i);
+                    return product;
+                })
+                .toList());
+        return order;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.store.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import liquibase.changelog.ChangeLogParameters;
+import liquibase.changelog.ChangeSet;
+import liquibase.changelog.DatabaseChangeLog;
+import liquibase.parser.ChangeLogParserFactory;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import liquibase.resource.ResourceAccessor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+/*
+   The integration tests load the SQL files straight into the container rather than running Liquibase, so this is what
+   fails when the master changelog cannot be read or leaves a changelog out.
+*/
+class DatabaseChangeLogTest {
+
+    private static final String MASTER_CHANGELOG = "db/changelog/db.changelog-master.yaml";
+
+    @Test
+    void thatTheMasterChangeLogIncludesEveryChangeSetInOrder() throws Exception {
+        ResourceAccessor resourceAccessor = new ClassLoaderResourceAccessor();
+        DatabaseChangeLog changeLog = ChangeLogParserFactory.getInstance()
+                .getParser(MASTER_CHANGELOG, resourceAccessor)
+                .parse(MASTER_CHANGELOG, new ChangeLogParameters(), resourceAccessor);
+
+        assertThat(
+                changeLog.getChangeSets().stream().map(ChangeSet::getId).toList(),
+                contains(
+                        "1-schema",
+                        "2-data",
+                        "3-schema",
+                        "4-customer-search-schema",
+                        "5-order-product-indexes",
+                        "6-read-model-publication"));
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.store.controller;
 
+import com.example.store.coalescing.SingleFlight;
 import com.example.store.configuration.CacheConfiguration;
 import com.example.store.entity.Customer;
 import com.example.store.mapper.CustomerMapper;
 import com.example.store.presentation.CustomerSearchRequest;
 import com.example.store.repository.CustomerRepository;
+import com.example.store.search.CustomerNameIndex;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.hamcrest.CoreMatchers;
@@ -16,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -24,13 +27,20 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(CustomerController.class)
-@ComponentScan(basePackageClasses = {CustomerMapper.class, CacheConfiguration.class})
+@ComponentScan(
+        basePackageClasses = {
+            CustomerMapper.class,
+            CacheConfiguration.class,
+            CustomerNameIndex.class,
+            SingleFlight.class
+        })
 class CustomerControllerTests {
 
     @Autowired
@@ -78,6 +88,37 @@ class CustomerControllerTests {
         ;
     }
 
+    @Test
+    void thatCustomerPageReturnsTheNextCursorWhenThePageIsFull() throws Exception {
+        when(customerRepository.findIdsAfter(0L, PageRequest.ofSize(1))).thenReturn(List.of(1L));
+        when(customerRepository.findByIdInOrderByIdAsc(List.of(1L))).thenReturn(List.of(customer));
+
+        mockMvc.perform(get("/customer").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("John Doe"))
+                .andExpect(jsonPath("$.next").value(1L));
+    }
+
+    @Test
+    void thatCreatedCustomersAreSuggestedWithoutQueryingTheDatabase() throws Exception {
+        Customer created = new Customer();
+        created.setName("Autumn Completer");
+        created.setId(42L);
+        when(customerRepository.save(created)).thenReturn(created);
+        mockMvc.perform(post("/customer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(created)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/customer/autocomplete").param("prefix", "compl"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].id").value(42L))
+                .andExpect(jsonPath("$[0].name").value("Autumn Completer"));
+
+        verify(customerRepository, never()).findAll(any(Specification.class));
+    }
+
     @Test
     void testSearchCustomerCallsTheRepositoryCorrectly() throws Exception {
         when(customerRepository.findAll(any(Specification.class))).thenReturn(List.of(customer));
@@ -94,4 +135,21 @@ class CustomerControllerTests {
         verify(customerRepository).findAll(captor.capture());
         MatcherAssert.assertThat(captor.getValue(), CoreMatchers.notNullValue());
     }
+
+    @Test
+    void thatSearchesForTheSameWordsShareACachedResult() throws Exception {
+        when(customerRepository.findAll(any(Specification.class))).thenReturn(List.of(customer));
+
+        for (String name : List.of("John Doe", "doe  JOHN", "John Doe John")) {
+            CustomerSearchRequest request = new CustomerSearchRequest();
+            request.setName(name);
+            mockMvc.perform(post("/customer/search")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$..name").value("John Doe"));
+        }
+
+        verify(customerRepository).findAll(any(Specification.class));
+    }
 }
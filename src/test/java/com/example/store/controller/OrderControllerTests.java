@@ -1,13 +1,20 @@
 package com.example.store.controller;
 
+import com.example.store.cache.CollectionVersions;
+import com.example.store.catalog.ProductCatalog;
+import com.example.store.coalescing.SingleFlight;
 import com.example.store.configuration.CacheConfiguration;
+import com.example.store.dto.BulkOrderErrorDTO;
+import com.example.store.dto.BulkOrderImportDTO;
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
 import com.example.store.entity.Customer;
 import com.example.store.entity.Order;
 import com.example.store.entity.Product;
 import com.example.store.mapper.CustomerMapper;
-import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.OrderInsertResult;
 import com.example.store.repository.OrderRepository;
-import com.example.store.repository.ProductRepository;
+import com.example.store.service.BulkOrderImportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.persistence.QueryTimeoutException;
@@ -26,22 +33,36 @@ import org.springframework.boot.test.system.CapturedOutput;
 import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(OrderController.class)
-@ComponentScan(basePackageClasses = {CustomerMapper.class, CacheConfiguration.class})
+@ComponentScan(
+        basePackageClasses = {
+            CustomerMapper.class,
+            CacheConfiguration.class,
+            CollectionVersions.class,
+            SingleFlight.class
+        })
 @ExtendWith(OutputCaptureExtension.class)
 @RequiredArgsConstructor
 class OrderControllerTests {
@@ -59,10 +80,10 @@ class OrderControllerTests {
     private OrderRepository orderRepository;
 
     @MockitoBean
-    private CustomerRepository customerRepository;
+    private BulkOrderImportService bulkOrderImportService;
 
     @MockitoBean
-    private ProductRepository productRepository;
+    private ProductCatalog productCatalog;
 
     private Order order;
     private Customer customer;
@@ -91,9 +112,6 @@ class OrderControllerTests {
         order.getProducts().add(product1);
         order.getProducts().add(product2);
 
-        when(productRepository.findById(2L)).thenReturn(Optional.of(product1));
-        when(productRepository.findById(3L)).thenReturn(Optional.of(product2));
-
         cacheManager
                 .getCacheNames()
                 .forEach(cache -> cacheManager.getCache(cache).clear());
@@ -101,20 +119,17 @@ class OrderControllerTests {
 
     @Test
     void testCreateOrder() throws Exception {
-        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
-        when(orderRepository.save(any(Order.class))).thenAnswer(a -> {
-            Order order = (Order) a.getArguments()[0];
-            if (order.getId() == null) {
-                order.setId(5L);
-            }
-            return order;
-        });
+        when(orderRepository.insertOrder(1L, "Test Order", List.of(2L, 3L)))
+                .thenReturn(new OrderInsertResult(
+                        5L, true, "John Doe", List.of(), List.of("Test Product 1", "Test Product 2")));
 
         mockMvc.perform(post("/order")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(order)))
                 .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(5L))
                 .andExpect(jsonPath("$.description").value("Test Order"))
+                .andExpect(jsonPath("$.customer.id").value(1L))
                 .andExpect(jsonPath("$.customer.name").value("John Doe"))
                 .andExpect(jsonPath("$.products[0].id").value(2L))
                 .andExpect(jsonPath("$.products[0].description").value("Test Product 1"))
@@ -122,6 +137,71 @@ class OrderControllerTests {
                 .andExpect(jsonPath("$.products[1].description").value("Test Product 2"));
     }
 
+    @Test
+    void thatCreateOrderForUnknownCustomerReturnsNotFound() throws Exception {
+        when(orderRepository.insertOrder(1L, "Test Order", List.of(2L, 3L)))
+                .thenReturn(new OrderInsertResult(null, false, null, List.of(), List.of()));
+
+        mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.detail")
+                        .value("The requested resource of type Customer was not found for ID  1"));
+    }
+
+    @Test
+    void thatCreateOrderForUnknownProductReturnsNotFound() throws Exception {
+        when(orderRepository.insertOrder(1L, "Test Order", List.of(2L, 3L)))
+                .thenReturn(new OrderInsertResult(null, true, "John Doe", List.of(3L), List.of()));
+
+        mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.detail")
+                        .value("The requested resource of type Product was not found for ID  3"));
+    }
+
+    @Test
+    void thatCreateOrderForAProductMissingFromTheCatalogIsNotInserted() throws Exception {
+        when(productCatalog.missing(List.of(2L, 3L))).thenReturn(List.of(3L));
+
+        mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.detail")
+                        .value("The requested resource of type Product was not found for ID  3"));
+
+        verify(orderRepository, never()).insertOrder(any(), any(), any());
+    }
+
+    @Test
+    void thatCreateOrderRepeatingAProductReturnsBadRequest() throws Exception {
+        order.getProducts().add(order.getProducts().get(0));
+
+        mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("An order may contain each product only once"));
+
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void thatCreateOrderWithoutProductsReturnsBadRequest() throws Exception {
+        order.getProducts().clear();
+
+        mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderRepository);
+    }
+
     @Test
     void testGetOrder() throws Exception {
         when(orderRepository.findAll()).thenReturn(List.of(order));
@@ -136,6 +216,126 @@ class OrderControllerTests {
                 .andExpect(jsonPath("$.[0].products[1].id").value(3L));
     }
 
+    @Test
+    void thatAnUnchangedOrderListIsNotModified() throws Exception {
+        when(orderRepository.findAll()).thenReturn(List.of(order));
+        String etag = mockMvc.perform(get("/order"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        // Without the cache a request which got past the ETag check would go to the repository
+        cacheManager.getCache(CacheConfiguration.ALL_ORDERS).clear();
+
+        mockMvc.perform(get("/order").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        verify(orderRepository, times(1)).findAll();
+    }
+
+    @Test
+    void thatCreatingAnOrderChangesTheOrderListETag() throws Exception {
+        when(orderRepository.findAll()).thenReturn(List.of(order));
+        when(orderRepository.insertOrder(1L, "Test Order", List.of(2L, 3L)))
+                .thenReturn(new OrderInsertResult(
+                        5L, true, "John Doe", List.of(), List.of("Test Product 1", "Test Product 2")));
+        String etag = mockMvc.perform(get("/order"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/order").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$.[1].id").value(5L));
+    }
+
+    @Test
+    void thatOrderPageReturnsTheNextCursorWhenThePageIsFull() throws Exception {
+        when(orderRepository.findIdsAfter(0L, PageRequest.ofSize(1))).thenReturn(List.of(1L));
+        when(orderRepository.findByIdInOrderByIdAsc(List.of(1L))).thenReturn(List.of(order));
+
+        mockMvc.perform(get("/order").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].description").value("Test Order"))
+                .andExpect(jsonPath("$.next").value(1L));
+    }
+
+    @Test
+    void thatOrderPageSeeksFromTheCursorAndEndsOnAShortPage() throws Exception {
+        when(orderRepository.findIdsAfter(1L, PageRequest.ofSize(10))).thenReturn(List.of());
+
+        mockMvc.perform(get("/order").param("after", "1").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(0))
+                .andExpect(jsonPath("$.next").doesNotExist());
+
+        verify(orderRepository).findIdsAfter(1L, PageRequest.ofSize(10));
+        verify(orderRepository, never()).findByIdInOrderByIdAsc(any());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1001})
+    void thatOrderPageWithInvalidLimitReturnsBadRequest(int limit) throws Exception {
+        mockMvc.perform(get("/order").param("limit", String.valueOf(limit)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.failures.size()").value(1));
+
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void thatOrdersAreStreamedAsNewlineDelimitedJson() throws Exception {
+        doAnswer(a -> {
+                    Consumer<OrderDTO> consumer = (Consumer<OrderDTO>) a.getArguments()[0];
+                    consumer.accept(orderDTO(1L, "First"));
+                    consumer.accept(orderDTO(2L, "Second"));
+                    return null;
+                })
+                .when(orderRepository)
+                .streamAll(any());
+
+        MvcResult result = mockMvc.perform(get("/order/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(OrderController.APPLICATION_NDJSON_VALUE))
+                .andExpect(content()
+                        .string("{\"id\":1,\"description\":\"First\",\"customer\":{\"id\":1,\"name\":\"John Doe\"},"
+                                + "\"products\":[]}\n"
+                                + "{\"id\":2,\"description\":\"Second\",\"customer\":{\"id\":1,\"name\":\"John Doe\"},"
+                                + "\"products\":[]}"));
+    }
+
+    @Test
+    void thatBulkImportReportsTheResult() throws Exception {
+        BulkOrderImportDTO importResult = new BulkOrderImportDTO();
+        importResult.setAccepted(1);
+        importResult.setRejected(1);
+        importResult.getErrors().add(new BulkOrderErrorDTO(2, "Bad line"));
+        when(bulkOrderImportService.importOrders(any())).thenReturn(importResult);
+
+        mockMvc.perform(post("/order/bulk")
+                        .contentType(OrderController.APPLICATION_NDJSON_VALUE)
+                        .content("{}\n{}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("Bad line"));
+    }
+
     @Test
     void thatFindOrderByIdReturnsCorrectly() throws Exception {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
@@ -160,6 +360,35 @@ class OrderControllerTests {
                 .andExpect(jsonPath("$.instance").value("/order/1"));
     }
 
+    @Test
+    void thatAnUnchangedOrderIsNotModified() throws Exception {
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        String etag = mockMvc.perform(get("/order/1"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/order/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void thatAMissingOrderIsNotFoundWhateverETagIsSent() throws Exception {
+        when(orderRepository.findAll()).thenReturn(List.of(order));
+        String etag = mockMvc.perform(get("/order"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        when(orderRepository.findById(1L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/order/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {-1, 0})
     void thatFindOrderByIdForNonPositiveIdReturnsBadRequest(int id) throws Exception {
@@ -190,6 +419,18 @@ class OrderControllerTests {
         Assertions.assertTrue(isEventLogged(capturedOutput, QueryTimeoutException.class.getName() + ": Test Timeout"));
     }
 
+    private OrderDTO orderDTO(Long id, String description) {
+        OrderCustomerDTO orderCustomer = new OrderCustomerDTO();
+        orderCustomer.setId(1L);
+        orderCustomer.setName("John Doe");
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setId(id);
+        orderDTO.setDescription(description);
+        orderDTO.setCustomer(orderCustomer);
+        orderDTO.setProducts(List.of());
+        return orderDTO;
+    }
+
     private boolean isEventLogged(CapturedOutput capturedOutput, String value) {
         return Arrays.stream(capturedOutput.getAll().split("\n"))
                 .map(String::trim)
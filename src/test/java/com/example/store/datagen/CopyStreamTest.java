@@ -0,0 +1,107 @@
+package com.example.store.datagen;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CopyStreamTest {
+
+    private static final String COPY_SQL = "COPY customer (id, name) FROM STDIN";
+
+    private final ByteArrayOutputStream copied = new ByteArrayOutputStream();
+    private CopyIn copyIn;
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        copyIn = mock(CopyIn.class);
+        doAnswer(invocation -> {
+                    copied.write(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+                    return null;
+                })
+                .when(copyIn)
+                .writeToCopy(any(byte[].class), anyInt(), anyInt());
+        CopyManager copyManager = mock(CopyManager.class);
+        when(copyManager.copyIn(COPY_SQL)).thenReturn(copyIn);
+        PGConnection pgConnection = mock(PGConnection.class);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        connection = mock(Connection.class);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+    }
+
+    @Test
+    void thatFieldsAreTabSeparatedAndRowsNewlineTerminated() throws Exception {
+        try (CopyStream copyStream = new CopyStream(connection, COPY_SQL)) {
+            copyStream.field(1).field("John Smith").endRow();
+            copyStream.field(2).field("Jack Mitheral").endRow();
+            when(copyIn.endCopy()).thenReturn(2L);
+
+            assertThat(copyStream.finish(), is(2L));
+        }
+
+        assertThat(copied(), is("1\tJohn Smith\n2\tJack Mitheral\n"));
+    }
+
+    @Test
+    void thatTheCopyTextDelimitersAreEscaped() throws Exception {
+        try (CopyStream copyStream = new CopyStream(connection, COPY_SQL)) {
+            copyStream.field(1).field("a\\b\tc\nd\re").endRow();
+            copyStream.finish();
+        }
+
+        assertThat(copied(), is("1\ta\\\\b\\tc\\nd\\re\n"));
+    }
+
+    @Test
+    void thatOtherCharactersAreWrittenAsUtf8() throws Exception {
+        try (CopyStream copyStream = new CopyStream(connection, COPY_SQL)) {
+            copyStream.field("Zoë O'Brien, 100%_").endRow();
+            copyStream.finish();
+        }
+
+        assertThat(copied(), is("Zoë O'Brien, 100%_\n"));
+    }
+
+    @Test
+    void thatNothingIsSentUntilTheBufferFillsOrTheCopyFinishes() throws Exception {
+        try (CopyStream copyStream = new CopyStream(connection, COPY_SQL)) {
+            copyStream.field(1).field("John Smith").endRow();
+
+            verify(copyIn, never()).writeToCopy(any(byte[].class), anyInt(), anyInt());
+            copyStream.finish();
+        }
+
+        assertThat(copied(), is("1\tJohn Smith\n"));
+    }
+
+    @Test
+    void thatAnUnfinishedCopyIsCancelled() throws Exception {
+        when(copyIn.isActive()).thenReturn(true);
+
+        try (CopyStream copyStream = new CopyStream(connection, COPY_SQL)) {
+            copyStream.field(1).field("John Smith").endRow();
+        }
+
+        verify(copyIn).cancelCopy();
+    }
+
+    private String copied() {
+        return copied.toString(StandardCharsets.UTF_8);
+    }
+}
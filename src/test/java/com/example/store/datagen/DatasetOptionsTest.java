@@ -0,0 +1,71 @@
+package com.example.store.datagen;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatasetOptionsTest {
+
+    @Test
+    void thatTheDefaultsMatchTheLocalDatabase() {
+        DatasetOptions options = DatasetOptions.parse(new String[0]);
+
+        assertThat(options.url(), is("jdbc:postgresql://localhost:5433/store"));
+        assertThat(options.user(), is("admin"));
+        assertThat(options.customers(), is(1_000_000));
+        assertThat(options.products(), is(10_000));
+        assertThat(options.orders(), is(10_000_000L));
+        assertThat(options.maxProductsPerOrder(), is(5));
+        assertThat(options.customerSkew(), is(0.8));
+        assertThat(options.productSkew(), is(1.1));
+        assertThat(options.seed(), is(42L));
+    }
+
+    @Test
+    void thatOptionsReplaceTheDefaults() {
+        DatasetOptions options = DatasetOptions.parse(new String[] {
+            "--customers=10", "--orders=0", "--product-skew=0", "--url=jdbc:postgresql://db:5432/store?a=b"
+        });
+
+        assertThat(options.customers(), is(10));
+        assertThat(options.orders(), is(0L));
+        assertThat(options.productSkew(), is(0.0));
+        // Only the first = separates the name from the value
+        assertThat(options.url(), is("jdbc:postgresql://db:5432/store?a=b"));
+        assertThat(options.products(), is(10_000));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"customers=10", "--customers", "-customers=10"})
+    void thatAnOptionWhichIsNotNameEqualsValueIsRejected(String arg) {
+        IllegalArgumentException ex =
+                assertThrows(IllegalArgumentException.class, () -> DatasetOptions.parse(new String[] {arg}));
+
+        assertThat(ex.getMessage(), containsString(arg));
+    }
+
+    @Test
+    void thatAnUnknownOptionIsRejected() {
+        IllegalArgumentException ex = assertThrows(
+                IllegalArgumentException.class, () -> DatasetOptions.parse(new String[] {"--customer=10"}));
+
+        assertThat(ex.getMessage(), containsString("customer"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"--customers=0", "--products=0", "--orders=-1", "--max-products-per-order=0"})
+    void thatACountOutOfRangeIsRejected(String arg) {
+        assertThrows(IllegalArgumentException.class, () -> DatasetOptions.parse(new String[] {arg}));
+    }
+
+    @Test
+    void thatANumberWhichDoesNotParseIsRejected() {
+        // NumberFormatException is an IllegalArgumentException
+        assertThrows(IllegalArgumentException.class, () -> DatasetOptions.parse(new String[] {"--orders=many"}));
+    }
+}
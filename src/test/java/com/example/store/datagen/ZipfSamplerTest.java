@@ -0,0 +1,66 @@
+package com.example.store.datagen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+class ZipfSamplerTest {
+
+    private static final int N = 100;
+    private static final int SAMPLES = 100_000;
+
+    @Test
+    void thatEverySampleIsAnId() {
+        long[] counts = counts(new ZipfSampler(N, 1.1), 42);
+
+        // counts[0] is never drawn, IDs start at 1
+        assertThat(counts[0], is(0L));
+        assertThat(LongStream.of(counts).sum(), is((long) SAMPLES));
+    }
+
+    @Test
+    void thatNoSkewIsUniform() {
+        long[] counts = counts(new ZipfSampler(N, 0), 42);
+
+        for (int id = 1; id <= N; id++) {
+            assertThat(counts[id], greaterThan(SAMPLES / N / 2L));
+            assertThat(counts[id], lessThan(SAMPLES / N * 2L));
+        }
+    }
+
+    @Test
+    void thatSkewConcentratesTheSamplesOnAFewIds() {
+        long[] counts = counts(new ZipfSampler(N, 1.1), 42);
+
+        long top = LongStream.of(counts).max().orElseThrow();
+        // With a skew of 1.1 the most popular of 100 IDs is picked around a fifth of the time
+        assertThat(top, greaterThan(SAMPLES / 10L));
+        assertThat(LongStream.of(counts).skip(1).filter(c -> c == top).count(), is(1L));
+    }
+
+    @Test
+    void thatTheSameSeedDrawsTheSameIds() {
+        ZipfSampler sampler = new ZipfSampler(N, 0.8);
+        SplittableRandom first = new SplittableRandom(7);
+        SplittableRandom second = new SplittableRandom(7);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(sampler.sample(first), is(sampler.sample(second)));
+        }
+    }
+
+    private static long[] counts(ZipfSampler sampler, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] counts = new long[N + 1];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[(int) sampler.sample(random)]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.store.datasource;
+
+import jakarta.servlet.http.Cookie;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class ReadYourWritesFilterTest {
+
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofSeconds(5));
+    private final ReadYourWritesFilter classUnderTest = new ReadYourWritesFilter(readYourWrites);
+
+    @Test
+    void thatAWriteIsPinnedAndStampsTheClient() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(isPinned(new MockHttpServletRequest("POST", "/order"), response), is(true));
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertThat(cookie, is(notNullValue()));
+        assertThat(readYourWrites.isWithinWindow(Long.parseLong(cookie.getValue())), is(true));
+    }
+
+    @Test
+    void thatAReadIsPinnedOnlyWithinTheWindowOfItsClientsWrite() throws Exception {
+        assertThat(isPinned(read(null)), is(false));
+        assertThat(isPinned(read(Long.toString(System.currentTimeMillis()))), is(true));
+        assertThat(isPinned(read(Long.toString(System.currentTimeMillis() - 6_000))), is(false));
+        assertThat(isPinned(read("1")), is(false));
+        assertThat(isPinned(read("not a time")), is(false));
+    }
+
+    @Test
+    void thatAWriteDoesNotPinOtherClients() throws Exception {
+        isPinned(new MockHttpServletRequest("POST", "/order"), new MockHttpServletResponse());
+
+        assertThat(isPinned(read(null)), is(false));
+        assertThat(readYourWrites.isPinned(), is(false));
+    }
+
+    private static MockHttpServletRequest read(String cookieValue) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/order");
+        if (cookieValue != null) {
+            request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, cookieValue));
+        }
+        return request;
+    }
+
+    private boolean isPinned(MockHttpServletRequest request) throws Exception {
+        return isPinned(request, new MockHttpServletResponse());
+    }
+
+    private boolean isPinned(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        AtomicBoolean pinned = new AtomicBoolean();
+        classUnderTest.doFilter(request, response, (req, res) -> pinned.set(readYourWrites.isPinned()));
+        return pinned.get();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.store.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica1;
+    private DataSource replica2;
+    private Connection primaryConnection;
+    private Connection replica1Connection;
+    private Connection replica2Connection;
+    private ReadYourWrites readYourWrites;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replica1 = mock(DataSource.class);
+        replica2 = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replica1Connection = mock(Connection.class);
+        replica2Connection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+        readYourWrites = new ReadYourWrites(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void thatReplicasAreUsedInTurn() throws SQLException {
+        ReplicaRoutingDataSource classUnderTest = routing(Duration.ofMinutes(1));
+
+        assertThat(classUnderTest.getConnection(), is(sameInstance(replica1Connection)));
+        assertThat(classUnderTest.getConnection(), is(sameInstance(replica2Connection)));
+        assertThat(classUnderTest.getConnection(), is(sameInstance(replica1Connection)));
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void thatAFailedReplicaIsSkippedUntilRetryAfterHasPassed() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("down"));
+        ReplicaRoutingDataSource classUnderTest = routing(Duration.ofMinutes(1));
+
+        assertThat(classUnderTest.getConnection(), is(sameInstance(replica2Connection)));
+        assertThat(classUnderTest.getConnection(), is(sameInstance(replica2Connection)));
+        assertThat(classUnderTest.getConnection(), is(sameInstance(replica2Connection)));
+        verify(replica1, times(1)).getConnection();
+    }
+
+    @Test
+    void thatAFailedReplicaIsRetriedOnceRetryAfterHasPassed() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("down")).thenReturn(replica1Connection);
+        ReplicaRoutingDataSource classUnderTest = routing(Duration.ZERO);
+
+        assertThat(classUnderTest.getConnection(), is(sameInstance(replica2Connection)));
+        assertThat(classUnderTest.getConnection(), is(sameInstance(replica2Connection)));
+        assertThat(classUnderTest.getConnection(), is(sameInstance(replica1Connection)));
+    }
+
+    @Test
+    void thatThePrimaryIsUsedWhenNoReplicaIsAvailable() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("down"));
+        when(replica2.getConnection()).thenThrow(new SQLException("down"));
+        ReplicaRoutingDataSource classUnderTest = routing(Duration.ofMinutes(1));
+
+        assertThat(classUnderTest.getConnection(), is(sameInstance(primaryConnection)));
+    }
+
+    @Test
+    void thatAPinnedThreadUsesThePrimary() throws SQLException {
+        ReplicaRoutingDataSource classUnderTest = routing(Duration.ofMinutes(1));
+
+        readYourWrites.pinCurrentThread();
+        try {
+            assertThat(classUnderTest.getConnection(), is(sameInstance(primaryConnection)));
+        } finally {
+            readYourWrites.unpinCurrentThread();
+        }
+        assertThat(classUnderTest.getConnection(), is(sameInstance(replica1Connection)));
+    }
+
+    @Test
+    void thatAWriteDoesNotPinOtherThreads() throws SQLException {
+        ReplicaRoutingDataSource classUnderTest = routing(Duration.ofMinutes(1));
+
+        readYourWrites.pinCurrentThread();
+        try {
+            classUnderTest.getConnection();
+            CompletableFuture<Connection> otherThread = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return classUnderTest.getConnection();
+                } catch (SQLException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            assertThat(otherThread.join(), is(sameInstance(replica1Connection)));
+        } finally {
+            readYourWrites.unpinCurrentThread();
+        }
+    }
+
+    @Test
+    void thatConnectionsWithOtherCredentialsAreNotSupported() {
+        ReplicaRoutingDataSource classUnderTest = routing(Duration.ofMinutes(1));
+
+        assertThrows(SQLFeatureNotSupportedException.class, () -> classUnderTest.getConnection("other", "secret"));
+    }
+
+    private ReplicaRoutingDataSource routing(Duration retryAfter) {
+        return new ReplicaRoutingDataSource(primary, List.of(replica1, replica2), readYourWrites, retryAfter);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.store.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StatementCountingDataSourceTest {
+
+    private DataSource dataSource;
+    private StatementCountingDataSource classUnderTest;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT 1")).thenReturn(preparedStatement);
+        classUnderTest = new StatementCountingDataSource(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StatementStatistics.stop();
+    }
+
+    @Test
+    void thatEachExecutionIsCounted() throws SQLException {
+        StatementStatistics statistics = StatementStatistics.start();
+
+        try (Connection connection = classUnderTest.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement("SELECT 1");
+            statement.executeQuery();
+            statement.executeQuery();
+        }
+
+        assertThat(statistics.getStatements(), is(2));
+    }
+
+    @Test
+    void thatABatchCountsAsOneStatement() throws SQLException {
+        StatementStatistics statistics = StatementStatistics.start();
+
+        try (Connection connection = classUnderTest.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement("SELECT 1");
+            statement.addBatch();
+            statement.addBatch();
+            statement.executeBatch();
+        }
+
+        assertThat(statistics.getStatements(), is(1));
+    }
+
+    @Test
+    void thatTheInjectedLatencyDelaysEveryExecution() throws SQLException {
+        StatementCountingDataSource delaying = new StatementCountingDataSource(dataSource, Duration.ofMillis(20));
+        StatementStatistics statistics = StatementStatistics.start();
+
+        try (Connection connection = delaying.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement("SELECT 1");
+            statement.executeQuery();
+            statement.executeQuery();
+        }
+
+        assertThat(statistics.getStatements(), is(2));
+        assertThat(statistics.getTime(), greaterThanOrEqualTo(Duration.ofMillis(40)));
+    }
+
+    @Test
+    void thatStatementsOutsideOfARequestAreIgnored() throws SQLException {
+        try (Connection connection = classUnderTest.getConnection()) {
+            connection.prepareStatement("SELECT 1").executeQuery();
+        }
+
+        assertThat(StatementStatistics.current(), is(nullValue()));
+    }
+}
@@ -18,6 +18,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.context.request.WebRequest;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -71,6 +72,21 @@ public class StoreExceptionHandlerTest {
         assertThat(problemDetail.getDetail(), is("Invalid data was supplied"));
     }
 
+    @Test
+    void thatApiServiceUnavailableIsHandled() {
+        when(messageSource.getMessage("api.service.unavailable", new Object[0], Locale.getDefault()))
+                .thenReturn("The service is busy - Please try again shortly");
+
+        ResponseEntity<Object> response = classUnderTest.handleApiServiceUnavailableException(
+                new ApiServiceUnavailableException("Gave up", Duration.ofMillis(2500)), webRequest);
+
+        ProblemDetail problemDetail = (ProblemDetail) response.getBody();
+        assertThat(problemDetail.getStatus(), is(503));
+        assertThat(problemDetail.getTitle(), is("Service Unavailable"));
+        assertThat(problemDetail.getDetail(), is("The service is busy - Please try again shortly"));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER), is("2"));
+    }
+
     @Test
     void thatPersistenceExceptionIsHandled() {
         when(messageSource.getMessage("api.internal.server.error", new Object[0], Locale.getDefault()))
@@ -1,6 +1,11 @@
 package com.example.store.integration;
 
+import com.example.store.datasource.StatementStatistics;
+
+import jakarta.persistence.EntityManagerFactory;
+
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,6 +15,7 @@ import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfigurati
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -26,6 +32,7 @@ import org.testcontainers.utility.MountableFile;
 import io.restassured.RestAssured;
 import io.restassured.parsing.Parser;
 import io.restassured.specification.RequestSpecification;
+import io.restassured.specification.ResponseSpecification;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -39,6 +46,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Arrays;
 
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.springframework.transaction.TransactionDefinition.ISOLATION_REPEATABLE_READ;
 
@@ -50,11 +58,23 @@ import static org.springframework.transaction.TransactionDefinition.ISOLATION_RE
 public abstract class AbstractIntegrationTestBase {
 
     private static final String[] DELETE_FROM_TABLES = {"order_product", "order", "customer"};
-    private static final String[] SCHEMA_DATA = {"/db/changelog/schema.sql", "/db/changelog/product-schema.sql"};
+    private static final String[] SCHEMA_DATA = {
+        "/db/changelog/schema.sql",
+        "/db/changelog/product-schema.sql",
+        "/db/changelog/customer-search-schema.sql",
+        "/db/changelog/order-product-indexes.sql",
+        "/db/changelog/read-model-publication.sql"
+    };
 
     @Autowired
     protected PlatformTransactionManager platformTransactionManager;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     @Autowired
     @SuppressWarnings("unused")
     private GlobalDataSetup globalDataSetup;
@@ -62,10 +82,12 @@ public abstract class AbstractIntegrationTestBase {
     @LocalServerPort
     protected int port;
 
+    // wal_level=logical as in the README, for the read model
     private static PostgreSQLContainer postgreSQLContainer = new PostgreSQLContainer("postgres:16.2")
             .withDatabaseName("store")
             .withPassword("admin")
-            .withUsername("admin");
+            .withUsername("admin")
+            .withCommand("postgres", "-c", "fsync=off", "-c", "wal_level=logical");
 
     @BeforeAll
     protected static void setUpGlobal() throws Exception {
@@ -122,6 +144,17 @@ public abstract class AbstractIntegrationTestBase {
         runInTransaction(() -> globalDataSetup.createCustomers());
     }
 
+    /*
+       Tests tear their data down, some of them with plain SQL which the caches know nothing about. Writes no longer
+       evict the application caches (see CacheMaintainer), so they are cleared here too. Tests checking a statement
+       budget also clear them before the request, so that what is counted is the database read.
+    */
+    @AfterEach
+    protected void evictCaches() {
+        entityManagerFactory.getCache().evictAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
     @DynamicPropertySource
     static void registerDatabaseProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.datasource.username", () -> postgreSQLContainer.getUsername());
@@ -141,6 +174,15 @@ public abstract class AbstractIntegrationTestBase {
                 .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
     }
 
+    /*
+       Fails the response when the request executed more JDBC statements than the endpoint is allowed. Each statement is
+       a round trip to the database, so this is what catches N+1 regressions.
+    */
+    protected static ResponseSpecification withinStatementBudget(int maxStatements) {
+        return RestAssured.expect()
+                .header(StatementStatistics.STATEMENTS_HEADER, Integer::parseInt, lessThanOrEqualTo(maxStatements));
+    }
+
     protected void runInTransaction(InTransaction inTransaction) {
         DefaultTransactionDefinition transactionDefinition = new DefaultTransactionDefinition();
         transactionDefinition.setIsolationLevel(ISOLATION_REPEATABLE_READ);
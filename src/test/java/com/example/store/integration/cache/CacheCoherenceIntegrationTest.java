@@ -0,0 +1,91 @@
+package com.example.store.integration.cache;
+
+import com.example.store.coherence.CacheInvalidationListener;
+import com.example.store.configuration.CacheConfiguration;
+import com.example.store.entity.Customer;
+import com.example.store.integration.AbstractIntegrationTestBase;
+import com.example.store.repository.CustomerRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class CacheCoherenceIntegrationTest extends AbstractIntegrationTestBase {
+
+    @Autowired
+    private CacheInvalidationListener cacheInvalidationListener;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = customerRepository.findByName("John Smith").orElseThrow();
+        await(cacheInvalidationListener::isListening);
+    }
+
+    @Test
+    void thatAnOrderFromAnotherInstanceEvictsTheListings() {
+        given().get("/order").then().statusCode(200);
+        given().get("/customer").then().statusCode(200);
+        given().get("/customer/" + customer.getId()).then().statusCode(200);
+        assertThat(cached(CacheConfiguration.ALL_CUSTOMERS, SimpleKey.EMPTY), is(notNullValue()));
+
+        notify("other-instance:ORDERS:" + customer.getId());
+
+        await(() -> cached(CacheConfiguration.ALL_CUSTOMERS, SimpleKey.EMPTY) == null);
+        assertThat(cached(CacheConfiguration.ALL_ORDERS, SimpleKey.EMPTY), is(nullValue()));
+        assertThat(cached(CacheConfiguration.CUSTOMERS, customer.getId()), is(nullValue()));
+    }
+
+    @Test
+    void thatAnOrderFromAnotherInstanceChangesTheETags() {
+        String etag = given().get("/order").then().statusCode(200).extract().header("ETag");
+
+        notify("other-instance:ORDERS:");
+
+        await(() -> !etag.equals(given().get("/order").then().extract().header("ETag")));
+    }
+
+    private Object cached(String cacheName, Object key) {
+        return cacheManager.getCache(cacheName).get(key);
+    }
+
+    private void notify(String payload) {
+        jdbcTemplate.query("SELECT pg_notify('store_cache', ?)", resultSet -> null, payload);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out waiting for the cache invalidation listener");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(ex);
+            }
+        }
+    }
+}
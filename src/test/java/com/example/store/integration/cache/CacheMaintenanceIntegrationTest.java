@@ -0,0 +1,124 @@
+package com.example.store.integration.cache;
+
+import com.example.store.entity.Customer;
+import com.example.store.entity.Product;
+import com.example.store.integration.AbstractIntegrationTestBase;
+import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.ProductRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+
+public class CacheMaintenanceIntegrationTest extends AbstractIntegrationTestBase {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        customer = customerRepository.findByName("John Smith").orElseThrow();
+        product = runInTransaction(() -> {
+            Product p = new Product();
+            p.setDescription("Maintained product");
+            return productRepository.save(p);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_product");
+        jdbcTemplate.update("DELETE FROM \"order\"");
+        jdbcTemplate.update("DELETE FROM product");
+        jdbcTemplate.update("DELETE FROM customer WHERE name = 'Cached Customer'");
+    }
+
+    @Test
+    void thatANewOrderIsServedFromTheWarmCaches() {
+        given().get("/order").then().statusCode(200);
+        given().get("/customer").then().statusCode(200);
+
+        String body = "{\"description\":\"Maintained order\",\"customer\":{\"id\":%d},\"products\":[{\"id\":%d}]}"
+                .formatted(customer.getId(), product.getId());
+        given().body(body).post("/order").then().statusCode(201);
+
+        given().get("/order")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(0))
+                .body("description", hasItem("Maintained order"));
+        given().get("/customer")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(0))
+                .body("find { it.name == 'John Smith' }.orders.description", hasItem("Maintained order"));
+    }
+
+    @Test
+    void thatANewCustomerIsServedFromTheWarmCache() {
+        given().get("/customer").then().statusCode(200);
+
+        given().body("{\"name\":\"Cached Customer\"}").post("/customer").then().statusCode(201);
+
+        given().get("/customer")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(0))
+                .body("name", hasItem("Cached Customer"));
+    }
+
+    @Test
+    void thatANewCustomerOnlyEvictsTheSearchesItsNameMatches() {
+        given().body("{\"name\":\"John Smith\"}").post("/customer/search").then().statusCode(200);
+        given().body("{\"name\":\"customer\"}")
+                .post("/customer/search")
+                .then()
+                .statusCode(200)
+                .body("$.size()", is(0));
+
+        given().body("{\"name\":\"Cached Customer\"}").post("/customer").then().statusCode(201);
+
+        given().body("{\"name\":\"smith  JOHN\"}")
+                .post("/customer/search")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(0))
+                .body("name", contains("John Smith"));
+        given().body("{\"name\":\"CUSTOMER\"}")
+                .post("/customer/search")
+                .then()
+                .statusCode(200)
+                .body("name", contains("Cached Customer"));
+    }
+
+    @Test
+    void thatANewOrderIsServedFromTheCachedSearch() {
+        given().body("{\"name\":\"smith\"}").post("/customer/search").then().statusCode(200);
+
+        String body = "{\"description\":\"Searched order\",\"customer\":{\"id\":%d},\"products\":[{\"id\":%d}]}"
+                .formatted(customer.getId(), product.getId());
+        given().body(body).post("/order").then().statusCode(201);
+
+        given().body("{\"name\":\"Smith\"}")
+                .post("/customer/search")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(0))
+                .body("find { it.name == 'John Smith' }.orders.description", hasItem("Searched order"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.store.integration.cache;
+
+import com.example.store.configuration.CacheConfiguration;
+import com.example.store.entity.Customer;
+import com.example.store.integration.AbstractIntegrationTestBase;
+import com.example.store.repository.CustomerRepository;
+import com.example.store.warmup.CacheWarmer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/*
+   The warm-up ran when the context started, before this test's data existed, and the caches have been cleared since.
+   So it is run again here, with the refresh-ahead checks too far apart to interfere.
+*/
+@TestPropertySource(properties = {"store.cache.warm-up.enabled=true", "store.cache.warm-up.check-interval=1h"})
+public class CacheWarmUpIntegrationTest extends AbstractIntegrationTestBase {
+
+    @Autowired
+    private CacheWarmer cacheWarmer;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        customer = customerRepository.findByName("John Smith").orElseThrow();
+        jdbcTemplate.update("INSERT INTO product (description) VALUES ('Warm product')");
+        orderId = jdbcTemplate.queryForObject(
+                "INSERT INTO \"order\" (description, customer_id) VALUES ('Warm order', ?) RETURNING id",
+                Long.class,
+                customer.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_product");
+        jdbcTemplate.update("DELETE FROM \"order\"");
+        jdbcTemplate.update("DELETE FROM product");
+    }
+
+    @Test
+    void thatTheListingsAreServedFromTheCacheAfterTheWarmUp() {
+        cacheWarmer.warmUp();
+
+        List<String> customers = given().get("/customer")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(0))
+                .extract()
+                .jsonPath()
+                .getList("name", String.class);
+        assertThat(customers, hasItem("John Smith"));
+        List<String> orders = given().get("/order")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(0))
+                .extract()
+                .jsonPath()
+                .getList("description", String.class);
+        assertThat(orders, hasItem("Warm order"));
+        List<String> products = given().get("/products")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(0))
+                .extract()
+                .jsonPath()
+                .getList("description", String.class);
+        assertThat(products, hasItem("Warm product"));
+    }
+
+    @Test
+    void thatTheNewestOrdersAreCachedById() {
+        cacheWarmer.warmUp();
+
+        assertThat(cacheManager.getCache(CacheConfiguration.ORDERS).get(orderId), is(notNullValue()));
+        given().get("/order/" + orderId).then().statusCode(200).spec(withinStatementBudget(0));
+    }
+
+    @Test
+    void thatACachedListingIsLeftAlone() {
+        List<?> cached = List.of();
+        cacheManager.getCache(CacheConfiguration.ALL_ORDERS).put(SimpleKey.EMPTY, cached);
+
+        cacheWarmer.warmUp();
+
+        Object warmed = cacheManager.getCache(CacheConfiguration.ALL_ORDERS).get(SimpleKey.EMPTY).get();
+        assertThat(warmed, sameInstance(cached));
+    }
+}
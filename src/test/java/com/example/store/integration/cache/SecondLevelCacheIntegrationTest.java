@@ -0,0 +1,90 @@
+package com.example.store.integration.cache;
+
+import com.example.store.entity.Customer;
+import com.example.store.entity.Product;
+import com.example.store.integration.AbstractIntegrationTestBase;
+import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.ProductRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SecondLevelCacheIntegrationTest extends AbstractIntegrationTestBase {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        customer = customerRepository.findByName("John Smith").orElseThrow();
+        product = runInTransaction(() -> {
+            Product p = new Product();
+            p.setDescription("Cached product");
+            return productRepository.save(p);
+        });
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getStatistics().clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_product");
+        jdbcTemplate.update("DELETE FROM \"order\"");
+        jdbcTemplate.update("DELETE FROM product");
+    }
+
+    @Test
+    void thatRepeatedFindByIdIsServedFromTheCache() {
+        runInTransaction(() -> productRepository.findById(product.getId()).orElseThrow());
+        runInTransaction(() -> productRepository.findById(product.getId()).orElseThrow());
+
+        CacheRegionStatistics statistics = regionStatistics(Product.class.getName());
+        assertThat(statistics.getMissCount(), is(1L));
+        assertThat(statistics.getHitCount(), is(1L));
+    }
+
+    @Test
+    void thatCreatingAnOrderEvictsTheCachedCollections() {
+        assertThat(productOrderCount(), is(0));
+
+        String body = "{\"description\":\"Cached order\",\"customer\":{\"id\":%d},\"products\":[{\"id\":%d}]}"
+                .formatted(customer.getId(), product.getId());
+        given().body(body).post("/order").then().statusCode(201);
+
+        assertThat(productOrderCount(), is(1));
+    }
+
+    private int productOrderCount() {
+        return runInTransaction(() -> productRepository
+                .findById(product.getId())
+                .orElseThrow()
+                .getOrders()
+                .size());
+    }
+
+    private CacheRegionStatistics regionStatistics(String region) {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics().getCacheRegionStatistics(region);
+    }
+}
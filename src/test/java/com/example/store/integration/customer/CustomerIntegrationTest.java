@@ -0,0 +1,66 @@
+package com.example.store.integration.customer;
+
+import com.example.store.entity.Customer;
+import com.example.store.integration.AbstractIntegrationTestBase;
+import com.example.store.repository.CustomerRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+
+/*
+   Each customer read fetches the customers with their orders in one statement (two for a page, the IDs and then the
+   customers), however many customers and orders there are.
+*/
+public class CustomerIntegrationTest extends AbstractIntegrationTestBase {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        for (String name : new String[] {"John Smith", "Jack Mitheral"}) {
+            Customer customer = customerRepository.findByName(name).orElseThrow();
+            for (int i = 0; i < 2; i++) {
+                jdbcTemplate.update(
+                        "INSERT INTO \"order\" (description, customer_id) VALUES (?, ?)",
+                        name + " order " + i,
+                        customer.getId());
+            }
+        }
+        evictCaches();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM \"order\"");
+    }
+
+    @Test
+    void thatAllCustomersAreReadWithinTheirStatementBudget() {
+        given().get("/customer")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(1))
+                .body("find { it.name == 'John Smith' }.orders.size()", is(2))
+                .body("find { it.name == 'Jack Mitheral' }.orders.description", hasItem("Jack Mitheral order 1"));
+    }
+
+    @Test
+    void thatACustomerPageIsReadWithinItsStatementBudget() {
+        given().queryParam("limit", 2)
+                .get("/customer")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(2))
+                .body("items.size()", is(2));
+    }
+}
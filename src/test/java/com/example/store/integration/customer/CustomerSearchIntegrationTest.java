@@ -22,6 +22,7 @@ public class CustomerSearchIntegrationTest extends AbstractIntegrationTestBase {
                 .post("/customer/search")
                 .then()
                 .statusCode(200)
+                .spec(withinStatementBudget(1))
                 .body("name", hasItems("John Smith"))
                 .body("$.size()", is(1));
     }
@@ -35,6 +36,7 @@ public class CustomerSearchIntegrationTest extends AbstractIntegrationTestBase {
                 .post("/customer/search")
                 .then()
                 .statusCode(200)
+                .spec(withinStatementBudget(1))
                 .body("$.size()", is(2))
                 .body("find() {it.name == 'John Smith'}.id", notNullValue())
                 .body("find() {it.name == 'John Smith'}.orders", hasItems())
@@ -42,6 +44,14 @@ public class CustomerSearchIntegrationTest extends AbstractIntegrationTestBase {
                 .body("find() {it.name == 'Jack Mitheral'}.orders", hasItems());
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"%%", "__", "J_hn", "%mith"})
+    void thatWildcardsAreMatchedLiterally(String name) {
+        CustomerSearchRequest request = new CustomerSearchRequest();
+        request.setName(name);
+        given().body(request).post("/customer/search").then().statusCode(200).body("$.size()", is(0));
+    }
+
     @Test
     void thatEmptyResultIsReturned() {
         CustomerSearchRequest request = new CustomerSearchRequest();
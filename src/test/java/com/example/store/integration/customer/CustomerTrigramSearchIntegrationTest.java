@@ -0,0 +1,71 @@
+package com.example.store.integration.customer;
+
+import com.example.store.integration.AbstractIntegrationTestBase;
+import com.example.store.presentation.CustomerSearchRequest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+
+@TestPropertySource(properties = "store.customer.search.engine=trigram")
+public class CustomerTrigramSearchIntegrationTest extends AbstractIntegrationTestBase {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"John Smith", "john", "SMITH", "oh", "hn sm"})
+    void thatSearchUserByNameReturnsTheExpectedResult(String name) {
+        CustomerSearchRequest request = new CustomerSearchRequest();
+        request.setName(name);
+        given().body(request)
+                .post("/customer/search")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(2))
+                .body("name", hasItems("John Smith"))
+                .body("$.size()", is(1));
+    }
+
+    @Test
+    void thatResultsAreRankedBestMatchFirst() {
+        CustomerSearchRequest request = new CustomerSearchRequest();
+        request.setName("mith john");
+        given().body(request)
+                .post("/customer/search")
+                .then()
+                .statusCode(200)
+                .body("$.size()", is(2))
+                .body("[0].name", is("John Smith"))
+                .body("[1].name", is("Jack Mitheral"));
+    }
+
+    @Test
+    void thatResultsAreLimited() {
+        CustomerSearchRequest request = new CustomerSearchRequest();
+        request.setName("John Mith");
+        request.setLimit(1);
+        given().body(request)
+                .post("/customer/search")
+                .then()
+                .statusCode(200)
+                .body("$.size()", is(1))
+                .body("[0].name", is("John Smith"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"%%", "__", "J_hn", "%mith"})
+    void thatWildcardsAreMatchedLiterally(String name) {
+        CustomerSearchRequest request = new CustomerSearchRequest();
+        request.setName(name);
+        given().body(request).post("/customer/search").then().statusCode(200).body("$.size()", is(0));
+    }
+
+    @Test
+    void thatEmptyResultIsReturned() {
+        CustomerSearchRequest request = new CustomerSearchRequest();
+        request.setName("Baba Yaga");
+        given().body(request).post("/customer/search").then().statusCode(200).body("$.size()", is(0));
+    }
+}
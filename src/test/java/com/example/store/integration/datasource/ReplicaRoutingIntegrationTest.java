@@ -0,0 +1,68 @@
+package com.example.store.integration.datasource;
+
+import com.example.store.datasource.ReadYourWritesFilter;
+import com.example.store.entity.Product;
+import com.example.store.integration.AbstractIntegrationTestBase;
+import com.example.store.presentation.CreateProductRequest;
+import com.example.store.repository.ProductRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/*
+   The replica is deliberately unreachable, so reads must fall back to the primary.
+*/
+@TestPropertySource(
+        properties = {
+            "store.datasource.replicas[0].url=jdbc:postgresql://localhost:1/store",
+            "store.datasource.replicas[0].username=admin",
+            "store.datasource.replicas[0].password=admin",
+            "store.datasource.connection-timeout=250ms",
+            "store.datasource.sticky-window=0s"
+        })
+public class ReplicaRoutingIntegrationTest extends AbstractIntegrationTestBase {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void tearDown() {
+        runInTransaction(() -> productRepository.deleteAll());
+    }
+
+    @Test
+    void thatReadsFallBackToThePrimaryWhenNoReplicaIsAvailable(CapturedOutput capturedOutput) {
+        Product product = runInTransaction(() -> {
+            Product p = new Product();
+            p.setDescription("Replica product");
+            return productRepository.save(p);
+        });
+
+        given().get("/products/{id}", product.getId())
+                .then()
+                .statusCode(200)
+                .body("description", is("Replica product"));
+
+        assertThat(capturedOutput.getAll(), containsString("Replica 0 is unavailable"));
+    }
+
+    @Test
+    void thatWritesPinTheClientToThePrimary() {
+        CreateProductRequest request =
+                CreateProductRequest.builder().description("Pinned product").build();
+
+        given().body(request)
+                .post("/products")
+                .then()
+                .statusCode(200)
+                .cookie(ReadYourWritesFilter.COOKIE_NAME, notNullValue());
+    }
+}
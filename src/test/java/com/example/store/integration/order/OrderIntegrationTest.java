@@ -0,0 +1,147 @@
+package com.example.store.integration.order;
+
+import com.example.store.controller.OrderController;
+import com.example.store.entity.Customer;
+import com.example.store.entity.Product;
+import com.example.store.integration.AbstractIntegrationTestBase;
+import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.ProductRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.everyItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class OrderIntegrationTest extends AbstractIntegrationTestBase {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        customer = customerRepository.findByName("John Smith").orElseThrow();
+        product = runInTransaction(() -> {
+            Product p = new Product();
+            p.setDescription("Bulk product");
+            return productRepository.save(p);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_product");
+        jdbcTemplate.update("DELETE FROM \"order\"");
+        jdbcTemplate.update("DELETE FROM product");
+    }
+
+    @Test
+    void thatBulkImportInsertsValidLinesAndReportsInvalidOnes() {
+        String line = "{\"description\":\"Bulk order\",\"customer\":{\"id\":%d},\"products\":[{\"id\":%d}]}";
+        String validLine = line.formatted(customer.getId(), product.getId());
+        String unknownProductLine = line.formatted(customer.getId(), product.getId() + 1000);
+        String body = String.join("\n", validLine, unknownProductLine, validLine);
+
+        given().contentType(OrderController.APPLICATION_NDJSON_VALUE)
+                .body(body)
+                .post("/order/bulk")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(5))
+                .body("accepted", is(2))
+                .body("rejected", is(1))
+                .body("errors[0].line", is(2));
+
+        List<Long> productIds = jdbcTemplate.queryForList(
+                "SELECT op.product_id FROM \"order\" o JOIN order_product op ON op.order_id = o.id"
+                        + " WHERE o.customer_id = ?",
+                Long.class,
+                customer.getId());
+        assertThat(productIds, is(List.of(product.getId(), product.getId())));
+    }
+
+    @Test
+    void thatCreateOrderInsertsTheOrderAndItsProducts() {
+        String body = "{\"description\":\"Single order\",\"customer\":{\"id\":%d},\"products\":[{\"id\":%d}]}"
+                .formatted(customer.getId(), product.getId());
+
+        Integer orderId = given().body(body)
+                .post("/order")
+                .then()
+                .statusCode(201)
+                .spec(withinStatementBudget(1))
+                .body("description", is("Single order"))
+                .body("customer.name", is("John Smith"))
+                .body("products[0].description", is("Bulk product"))
+                .extract()
+                .path("id");
+
+        List<Long> productIds = jdbcTemplate.queryForList(
+                "SELECT product_id FROM order_product WHERE order_id = ?", Long.class, orderId.longValue());
+        assertThat(productIds, is(List.of(product.getId())));
+    }
+
+    /*
+       Each read fetches the orders with their customer and products in one statement (two for a page, the IDs and
+       then the orders), however many orders there are.
+    */
+    @Test
+    void thatOrderReadsAreWithinTheirStatementBudgets() {
+        String body = "{\"description\":\"Read order\",\"customer\":{\"id\":%d},\"products\":[{\"id\":%d}]}"
+                .formatted(customer.getId(), product.getId());
+        Integer orderId = null;
+        for (int i = 0; i < 3; i++) {
+            orderId = given().body(body).post("/order").then().statusCode(201).extract().path("id");
+        }
+
+        evictCaches();
+        given().get("/order")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(1))
+                .body("$.size()", is(3))
+                .body("products.flatten().description", everyItem(is("Bulk product")));
+
+        evictCaches();
+        given().get("/order/{id}", orderId)
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(1))
+                .body("customer.name", is("John Smith"))
+                .body("products[0].description", is("Bulk product"));
+
+        evictCaches();
+        given().queryParam("limit", 2)
+                .get("/order")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(2))
+                .body("items.size()", is(2))
+                .body("items.customer.name", everyItem(is("John Smith")));
+    }
+
+    @Test
+    void thatCreateOrderForUnknownProductInsertsNothing() {
+        String body = "{\"description\":\"Single order\",\"customer\":{\"id\":%d},\"products\":[{\"id\":%d}]}"
+                .formatted(customer.getId(), product.getId() + 1000);
+
+        given().body(body).post("/order").then().statusCode(404);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM \"order\"", Long.class), is(0L));
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.store.integration.plan;
+
+import com.example.store.controller.CustomerSpecs;
+import com.example.store.entity.Customer;
+import com.example.store.entity.Order;
+import com.example.store.entity.Product;
+import com.example.store.integration.AbstractIntegrationTestBase;
+import com.example.store.repository.CustomerRepository;
+import com.example.store.repository.NewOrder;
+import com.example.store.repository.OrderRepository;
+import com.example.store.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.not;
+
+/*
+   Query plan regression suite. Every query the repositories and CustomerSpecs issue is captured and run through
+   EXPLAIN (GENERIC_PLAN) with sequential scans disabled. The planner then only picks a sequential scan when no index
+   can serve the query, so a Seq Scan node in the plan means a missing or unusable index rather than a small table.
+
+   GENERIC_PLAN (PostgreSQL 16) plans the statement with its parameters left unbound, which is how a prepared
+   statement is planned once it has been executed a few times.
+
+   CustomerRepository.findByName is deliberately not covered, it is only used to set up tests. Nor are
+   CustomerRepository.findAllNames and ProductRepository.findAllDescriptions, which read every row of their table to
+   build the in memory indexes and can only be sequential scans.
+
+   The second level cache is emptied before every captured call. Otherwise the by-ID lookups of entities cached by
+   setUp, or by an earlier findAll, are answered from it and issue no SQL to plan.
+*/
+public class QueryPlanIntegrationTest extends AbstractIntegrationTestBase {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @TestConfiguration
+    static class StatementRecorderConfiguration {
+
+        @Bean
+        static StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+    }
+
+    @Autowired
+    private StatementRecorder statementRecorder;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Customer customer;
+    private Product product;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        customer = customerRepository.findByName("John Smith").orElseThrow();
+        product = runInTransaction(() -> {
+            Product p = new Product();
+            p.setDescription("Planned product");
+            return productRepository.save(p);
+        });
+        order = runInTransaction(() -> {
+            Order o = new Order();
+            o.setDescription("Planned order");
+            o.setCustomer(customerRepository.getReferenceById(customer.getId()));
+            o.getProducts().add(productRepository.findById(product.getId()).orElseThrow());
+            return orderRepository.save(o);
+        });
+        jdbcTemplate.execute("ANALYZE");
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_product");
+        jdbcTemplate.update("DELETE FROM \"order\"");
+        jdbcTemplate.update("DELETE FROM product");
+    }
+
+    @Test
+    void thatOrderRepositoryQueriesUseIndexes() {
+        assertIndexed(() -> orderRepository.findAll());
+        assertIndexed(() -> orderRepository.findById(order.getId()));
+        assertIndexed(() -> orderRepository.findIdsAfter(0L, PageRequest.ofSize(10)));
+        assertIndexed(() -> orderRepository.findByIdInOrderByIdAsc(List.of(order.getId())));
+        assertIndexed(() -> {
+            orderRepository.streamAll(o -> {});
+            return null;
+        });
+        assertIndexed(() -> orderRepository.findExistingCustomerIds(List.of(customer.getId())));
+        assertIndexed(() -> orderRepository.findExistingProductIds(List.of(product.getId())));
+        assertIndexed(() -> orderRepository.insertOrder(customer.getId(), "Planned", List.of(product.getId())));
+        assertIndexed(() -> runInTransaction(() -> {
+            Long id = orderRepository.allocateOrderIds(1).get(0);
+            orderRepository.insertAll(
+                    List.of(new NewOrder(id, "Planned", customer.getId(), List.of(product.getId()))));
+            return id;
+        }));
+    }
+
+    @Test
+    void thatCustomerRepositoryQueriesUseIndexes() {
+        assertIndexed(() -> customerRepository.findAll());
+        assertIndexed(() -> customerRepository.findById(customer.getId()));
+        assertIndexed(() -> customerRepository.findIdsAfter(0L, PageRequest.ofSize(10)));
+        assertIndexed(() -> customerRepository.findByIdInOrderByIdAsc(List.of(customer.getId())));
+        assertIndexed(() -> customerRepository.findIdsByNameSimilarity(List.of("john", "smi"), 10));
+    }
+
+    @Test
+    void thatCustomerSpecsQueriesUseIndexes() {
+        assertIndexed(() -> customerRepository.findAll(CustomerSpecs.findByNameSpec("john smi")));
+    }
+
+    @Test
+    void thatProductRepositoryQueriesUseIndexes() {
+        assertIndexed(() -> productRepository.findById(product.getId()));
+        assertIndexed(() -> productRepository.findByDescriptionIgnoreCase("planned product"));
+        assertIndexed(() -> productRepository.findAllSummaries());
+        assertIndexed(() -> productRepository.findSummaryById(product.getId()));
+        assertIndexed(() -> productRepository.findDescriptionsByIdIn(List.of(product.getId())));
+        assertIndexed(() -> productRepository.findOrderIdsByProductId(product.getId()));
+    }
+
+    private void assertIndexed(Supplier<?> work) {
+        entityManagerFactory.getCache().evictAll();
+        List<String> statements = statementRecorder.record(work);
+        assertThat(statements, not(empty()));
+        Map<String, List<String>> seqScans = new LinkedHashMap<>();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                try {
+                    for (String sql : statements) {
+                        if (!isExplainable(sql)) {
+                            continue;
+                        }
+                        try (ResultSet rs = statement.executeQuery(
+                                "EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + numberPlaceholders(sql))) {
+                            rs.next();
+                            List<String> tables = new ArrayList<>();
+                            collectSeqScans(readPlan(rs.getString(1)), tables);
+                            if (!tables.isEmpty()) {
+                                seqScans.put(sql, tables);
+                            }
+                        }
+                    }
+                } finally {
+                    statement.execute("RESET enable_seqscan");
+                }
+            }
+            return null;
+        });
+        assertThat("Sequential scans by statement", seqScans, anEmptyMap());
+    }
+
+    private static boolean isExplainable(String sql) {
+        String verb = sql.stripLeading().split("\\s", 2)[0].toLowerCase(Locale.ROOT);
+        return List.of("select", "insert", "update", "delete", "with").contains(verb);
+    }
+
+    /*
+       JDBC placeholders are positional question marks, EXPLAIN needs the numbered $n form.
+       Question marks inside string literals are left alone.
+    */
+    private static String numberPlaceholders(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        boolean inLiteral = false;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            }
+            if (c == '?' && !inLiteral) {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    private static JsonNode readPlan(String json) {
+        try {
+            return OBJECT_MAPPER.readTree(json).get(0).get("Plan");
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void collectSeqScans(JsonNode plan, List<String> tables) {
+        if ("Seq Scan".equals(plan.path("Node Type").asText())) {
+            tables.add(plan.path("Relation Name").asText());
+        }
+        for (JsonNode child : plan.path("Plans")) {
+            collectSeqScans(child, tables);
+        }
+    }
+}
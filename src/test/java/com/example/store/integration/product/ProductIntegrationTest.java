@@ -55,6 +55,7 @@ public class ProductIntegrationTest extends AbstractIntegrationTestBase {
                 .post("/products")
                 .then()
                 .statusCode(200)
+                .spec(withinStatementBudget(2))
                 .body("id", notNullValue())
                 .body("description", is(description))
                 .body("orders.size()", is(0))
@@ -102,6 +103,7 @@ public class ProductIntegrationTest extends AbstractIntegrationTestBase {
         List<ProductSummaryDTO> result = given().get("/products")
                 .then()
                 .statusCode(200)
+                .spec(withinStatementBudget(1))
                 .extract()
                 .jsonPath()
                 .getList("$", ProductSummaryDTO.class);
@@ -141,11 +143,27 @@ public class ProductIntegrationTest extends AbstractIntegrationTestBase {
         given().get("/products/{id}", product.getId())
                 .then()
                 .statusCode(200)
+                .spec(withinStatementBudget(1))
                 .body("id", notNullValue())
                 .body("description", is("Lookup product"))
                 .body("orders.size()", is(1));
     }
 
+    @Test
+    void thatProductWithoutOrdersHasAnEmptyOrderList() {
+        Product product = runInTransaction(() -> {
+            Product p = new Product();
+            p.setDescription("Unordered product");
+            return productRepository.save(p);
+        });
+
+        given().get("/products/{id}", product.getId())
+                .then()
+                .statusCode(200)
+                .body("description", is("Unordered product"))
+                .body("orders.size()", is(0));
+    }
+
     @Test
     void thatDuplicateProductReturnsBadRequest() {
         final String description = "Duplicate product";
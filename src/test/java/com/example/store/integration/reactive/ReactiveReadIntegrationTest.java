@@ -0,0 +1,153 @@
+package com.example.store.integration.reactive;
+
+import com.example.store.entity.Customer;
+import com.example.store.integration.AbstractIntegrationTestBase;
+import com.example.store.reactive.ReactiveServer;
+import com.example.store.repository.CustomerRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import io.restassured.specification.RequestSpecification;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+
+/*
+   The same paths as the controllers, on the port of the reactive server. Rows are written with plain SQL, since the
+   reactive path reads them straight from the database.
+*/
+@TestPropertySource(properties = {"store.reactive.enabled=true", "store.reactive.port=0"})
+public class ReactiveReadIntegrationTest extends AbstractIntegrationTestBase {
+
+    @Autowired
+    private ReactiveServer reactiveServer;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long productId;
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        Customer customer = customerRepository.findByName("John Smith").orElseThrow();
+        productId = jdbcTemplate.queryForObject(
+                "INSERT INTO product (description) VALUES ('Reactive product') RETURNING id", Long.class);
+        orderId = jdbcTemplate.queryForObject(
+                "INSERT INTO \"order\" (description, customer_id) VALUES ('Reactive order', ?) RETURNING id",
+                Long.class,
+                customer.getId());
+        jdbcTemplate.update("INSERT INTO order_product (order_id, product_id) VALUES (?, ?)", orderId, productId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_product");
+        jdbcTemplate.update("DELETE FROM \"order\"");
+        jdbcTemplate.update("DELETE FROM product");
+    }
+
+    @Test
+    void thatAnOrderIsReadWithItsCustomerAndProducts() {
+        reactive()
+                .get("/order/{id}", orderId)
+                .then()
+                .statusCode(200)
+                .body("description", is("Reactive order"))
+                .body("customer.name", is("John Smith"))
+                .body("products[0].id", is(productId.intValue()))
+                .body("products[0].description", is("Reactive product"));
+    }
+
+    @Test
+    void thatAllOrdersAreRead() {
+        reactive()
+                .get("/order")
+                .then()
+                .statusCode(200)
+                .body("find { it.id == %d }.products.description".formatted(orderId), hasItem("Reactive product"));
+    }
+
+    @Test
+    void thatAllOrdersAreStreamedAsNdjson() {
+        String body = reactive()
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON_VALUE)
+                .get("/order")
+                .then()
+                .statusCode(200)
+                .contentType(containsString(MediaType.APPLICATION_NDJSON_VALUE))
+                .extract()
+                .asString();
+
+        String line = body.lines()
+                .filter(l -> l.startsWith("{\"id\":" + orderId + ","))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No line for order " + orderId + " in " + body));
+        assertThat(line, containsString("Reactive product"));
+    }
+
+    @Test
+    void thatAMissingOrderIsNotFound() {
+        long missingId = orderId + 1000;
+        reactive()
+                .get("/order/{id}", missingId)
+                .then()
+                .statusCode(404)
+                .contentType(containsString(MediaType.APPLICATION_PROBLEM_JSON_VALUE))
+                .body("detail", is("The requested resource of type Order was not found for ID " + missingId));
+    }
+
+    @Test
+    void thatAProductIsReadWithItsOrders() {
+        reactive()
+                .get("/products/{id}", productId)
+                .then()
+                .statusCode(200)
+                .body("description", is("Reactive product"))
+                .body("orders", hasItem(orderId.intValue()));
+        reactive()
+                .get("/products")
+                .then()
+                .statusCode(200)
+                .body("find { it.id == %d }.orders".formatted(productId), hasItem(orderId.intValue()));
+    }
+
+    @Test
+    void thatCustomersAreSearchedWithTheirOrders() {
+        reactive()
+                .body(Map.of("name", "smith JOHN"))
+                .post("/customer/search")
+                .then()
+                .statusCode(200)
+                .body("find { it.name == 'John Smith' }.orders.description", hasItem("Reactive order"));
+    }
+
+    @Test
+    void thatAnInvalidSearchIsABadRequest() {
+        reactive()
+                .body(Map.of("name", "a"))
+                .post("/customer/search")
+                .then()
+                .statusCode(400)
+                .body("failures.name", notNullValue());
+    }
+
+    private RequestSpecification reactive() {
+        return given().port(reactiveServer.getPort());
+    }
+}
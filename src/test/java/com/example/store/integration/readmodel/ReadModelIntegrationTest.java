@@ -0,0 +1,113 @@
+package com.example.store.integration.readmodel;
+
+import com.example.store.entity.Customer;
+import com.example.store.integration.AbstractIntegrationTestBase;
+import com.example.store.readmodel.ReadModel;
+import com.example.store.repository.CustomerRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/*
+   Rows are written with plain SQL, as from outside the application, and must reach the endpoints through logical
+   replication alone.
+*/
+@TestPropertySource(properties = "store.read-model.enabled=true")
+public class ReadModelIntegrationTest extends AbstractIntegrationTestBase {
+
+    @Autowired
+    private ReadModel readModel;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = customerRepository.findByName("John Smith").orElseThrow();
+        await(readModel::isServing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_product");
+        jdbcTemplate.update("DELETE FROM \"order\"");
+        jdbcTemplate.update("DELETE FROM product");
+        jdbcTemplate.update("UPDATE customer SET name = 'John Smith' WHERE id = ?", customer.getId());
+    }
+
+    @Test
+    void thatAnOrderWrittenOutsideTheApplicationIsServedWithoutTheDatabase() {
+        Long productId = jdbcTemplate.queryForObject(
+                "INSERT INTO product (description) VALUES ('Replicated product') RETURNING id", Long.class);
+        Long orderId = jdbcTemplate.queryForObject(
+                "INSERT INTO \"order\" (description, customer_id) VALUES ('Replicated order', ?) RETURNING id",
+                Long.class,
+                customer.getId());
+        jdbcTemplate.update("INSERT INTO order_product (order_id, product_id) VALUES (?, ?)", orderId, productId);
+
+        await(() -> readModel.order(orderId).map(o -> !o.getProducts().isEmpty()).orElse(false));
+
+        given().get("/order/{id}", orderId)
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(0))
+                .body("customer.name", is("John Smith"))
+                .body("products[0].description", is("Replicated product"));
+        given().get("/customer")
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(0))
+                .body("find { it.name == 'John Smith' }.orders.description", hasItem("Replicated order"));
+        given().get("/products/{id}", productId)
+                .then()
+                .statusCode(200)
+                .spec(withinStatementBudget(0))
+                .body("orders", hasItem(orderId.intValue()));
+    }
+
+    @Test
+    void thatAnUpdateOutsideTheApplicationReplacesTheCachedListing() {
+        given().get("/customer").then().statusCode(200).body("name", hasItem("John Smith"));
+
+        jdbcTemplate.update("UPDATE customer SET name = 'John Smyth' WHERE id = ?", customer.getId());
+
+        // Until it has been applied the old listing is still cached, after which the cache has been flushed
+        await(() -> given().get("/customer")
+                .then()
+                .statusCode(200)
+                .extract()
+                .jsonPath()
+                .getList("name", String.class)
+                .contains("John Smyth"));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out waiting for the read model");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.store.reactive;
+
+import com.example.store.configuration.MessageConfiguration;
+import com.example.store.controller.CustomerSearchEngine;
+import com.example.store.controller.CustomerSearchKey;
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.OrderDTO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.MessageSource;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveReadHandlerTest {
+
+    private ReactiveReadRepository repository;
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ReactiveReadRepository.class);
+        MessageConfiguration messageConfiguration = new MessageConfiguration();
+        MessageSource messageSource = messageConfiguration.messageSource();
+        LocalValidatorFactoryBean validator = messageConfiguration.validator(messageSource);
+        validator.afterPropertiesSet();
+        ReactiveReadHandler handler =
+                new ReactiveReadHandler(repository, CustomerSearchEngine.TRIGRAM, validator, messageSource);
+        webTestClient = WebTestClient.bindToRouterFunction(handler.routes()).build();
+    }
+
+    @Test
+    void thatAnOrderIsReturnedById() {
+        when(repository.findOrderById(1L)).thenReturn(Mono.just(order(1L)));
+
+        webTestClient
+                .get()
+                .uri("/order/1")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.description")
+                .isEqualTo("Order 1");
+    }
+
+    @Test
+    void thatAMissingProductIsAProblem() {
+        when(repository.findSummaryById(5L)).thenReturn(Mono.empty());
+
+        webTestClient
+                .get()
+                .uri("/products/5")
+                .exchange()
+                .expectStatus()
+                .isNotFound()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .expectBody()
+                .jsonPath("$.title")
+                .isEqualTo("Not Found")
+                .jsonPath("$.detail")
+                .isEqualTo("The requested resource of type Product was not found for ID 5");
+    }
+
+    @Test
+    void thatAnIdWhichIsNotPositiveIsABadRequest() {
+        webTestClient.get().uri("/order/0").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/order/one").exchange().expectStatus().isBadRequest();
+
+        verify(repository, never()).findOrderById(any());
+    }
+
+    @Test
+    void thatOrdersAreStreamedAsNdjsonWhenAccepted() {
+        when(repository.findAllOrders()).thenReturn(Flux.just(order(1L), order(2L)));
+
+        webTestClient
+                .get()
+                .uri("/order")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(OrderDTO.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void thatASearchIsByItsNormalizedWords() {
+        ArgumentCaptor<CustomerSearchKey> searchKey = ArgumentCaptor.forClass(CustomerSearchKey.class);
+        when(repository.findCustomersByName(searchKey.capture())).thenReturn(Flux.just(new CustomerDTO()));
+
+        webTestClient
+                .post()
+                .uri("/customer/search")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("name", "Smith  john", "limit", 5))
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(CustomerDTO.class)
+                .hasSize(1);
+
+        assertThat(
+                searchKey.getValue(),
+                is(new CustomerSearchKey(CustomerSearchEngine.TRIGRAM, List.of("john", "smith"), 5)));
+    }
+
+    @Test
+    void thatAnInvalidSearchIsABadRequestWithItsFailures() {
+        webTestClient
+                .post()
+                .uri("/customer/search")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("name", "Jo", "limit", 500))
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody()
+                .jsonPath("$.failures.limit[0]")
+                .isEqualTo("The search limit must be between 1 and 100.");
+
+        verify(repository, never()).findCustomersByName(any());
+    }
+
+    @Test
+    void thatAFailedReadIsAnInternalServerError() {
+        when(repository.findSummaryById(5L)).thenReturn(Mono.error(new IllegalStateException("Connection refused")));
+
+        webTestClient
+                .get()
+                .uri("/products/5")
+                .exchange()
+                .expectStatus()
+                .is5xxServerError()
+                .expectBody()
+                .jsonPath("$.detail")
+                .isEqualTo("An error has occurred - Please try again in a few minutes");
+    }
+
+    private OrderDTO order(Long id) {
+        OrderDTO order = new OrderDTO();
+        order.setId(id);
+        order.setDescription("Order " + id);
+        order.setProducts(List.of());
+        return order;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.store.readmodel;
+
+import com.example.store.readmodel.PgOutputDecoder.Kind;
+import com.example.store.readmodel.PgOutputDecoder.RowChange;
+import com.example.store.readmodel.PgOutputDecoder.Truncate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class PgOutputDecoderTest {
+
+    private static final int ORDER_RELATION = 16401;
+
+    private PgOutputDecoder classUnderTest;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        classUnderTest = new PgOutputDecoder();
+        assertThat(classUnderTest.decode(relation()), is(nullValue()));
+    }
+
+    @Test
+    void thatAnInsertIsKeyedByColumnName() throws IOException {
+        MessageWriter message = new MessageWriter('I');
+        message.out.writeInt(ORDER_RELATION);
+        message.out.writeByte('N');
+        tuple(message, "7", "Replicated order", "3");
+
+        RowChange change = (RowChange) classUnderTest.decode(message.buffer());
+
+        assertThat(change.kind(), is(Kind.INSERT));
+        assertThat(change.table(), is("order"));
+        assertThat(change.oldKey(), is(nullValue()));
+        assertThat(change.values(), is(Map.of("id", "7", "description", "Replicated order", "customer_id", "3")));
+    }
+
+    @Test
+    void thatAnUnchangedToastedColumnIsLeftOut() throws IOException {
+        MessageWriter message = new MessageWriter('U');
+        message.out.writeInt(ORDER_RELATION);
+        message.out.writeByte('N');
+        message.out.writeShort(3);
+        text(message, "7");
+        message.out.writeByte('u');
+        text(message, "4");
+
+        RowChange change = (RowChange) classUnderTest.decode(message.buffer());
+
+        assertThat(change.kind(), is(Kind.UPDATE));
+        assertThat(change.values(), is(Map.of("id", "7", "customer_id", "4")));
+    }
+
+    @Test
+    void thatADeleteCarriesTheKey() throws IOException {
+        MessageWriter message = new MessageWriter('D');
+        message.out.writeInt(ORDER_RELATION);
+        message.out.writeByte('K');
+        message.out.writeShort(3);
+        text(message, "7");
+        message.out.writeByte('n');
+        message.out.writeByte('n');
+
+        RowChange change = (RowChange) classUnderTest.decode(message.buffer());
+
+        assertThat(change.kind(), is(Kind.DELETE));
+        assertThat(change.oldKey().get("id"), is("7"));
+        assertThat(change.values(), is(nullValue()));
+    }
+
+    @Test
+    void thatATruncateNamesItsTables() throws IOException {
+        MessageWriter message = new MessageWriter('T');
+        message.out.writeInt(1);
+        message.out.writeByte(0);
+        message.out.writeInt(ORDER_RELATION);
+
+        PgOutputDecoder.Message decoded = classUnderTest.decode(message.buffer());
+
+        assertThat(decoded, instanceOf(Truncate.class));
+        assertThat(((Truncate) decoded).tables(), is(List.of("order")));
+    }
+
+    private static ByteBuffer relation() throws IOException {
+        MessageWriter message = new MessageWriter('R');
+        message.out.writeInt(ORDER_RELATION);
+        string(message, "public");
+        string(message, "order");
+        message.out.writeByte('d');
+        message.out.writeShort(3);
+        for (String column : List.of("id", "description", "customer_id")) {
+            message.out.writeByte(column.equals("id") ? 1 : 0);
+            string(message, column);
+            message.out.writeInt(20);
+            message.out.writeInt(-1);
+        }
+        return message.buffer();
+    }
+
+    private static void tuple(MessageWriter message, String... values) throws IOException {
+        message.out.writeShort(values.length);
+        for (String value : values) {
+            text(message, value);
+        }
+    }
+
+    private static void text(MessageWriter message, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        message.out.writeByte('t');
+        message.out.writeInt(bytes.length);
+        message.out.write(bytes);
+    }
+
+    private static void string(MessageWriter message, String value) throws IOException {
+        message.out.write(value.getBytes(StandardCharsets.UTF_8));
+        message.out.writeByte(0);
+    }
+
+    private static class MessageWriter {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        MessageWriter(char type) throws IOException {
+            out.writeByte(type);
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(bytes.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.store.readmodel;
+
+import com.example.store.cache.VersionedCollection;
+import com.example.store.dto.CustomerDTO;
+import com.example.store.dto.CustomerOrderDTO;
+import com.example.store.dto.OrderCustomerDTO;
+import com.example.store.dto.OrderDTO;
+import com.example.store.dto.OrderProductDTO;
+import com.example.store.event.CacheCoherenceLostEvent;
+import com.example.store.event.OrderCreatedEvent;
+import com.example.store.event.RemoteChangeEvent;
+import com.example.store.readmodel.PgOutputDecoder.Kind;
+import com.example.store.readmodel.PgOutputDecoder.RowChange;
+import com.example.store.readmodel.ReadModel.CustomerRow;
+import com.example.store.readmodel.ReadModel.ProductRow;
+
+import org.hibernate.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ReadModelTest {
+
+    private ApplicationEventPublisher eventPublisher;
+    private ReadModel classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        classUnderTest = new ReadModel(eventPublisher, mock(Cache.class));
+        ReadModel.Tables snapshot = new ReadModel.Tables();
+        snapshot.customers.put(1L, new CustomerRow(1L, "John Smith"));
+        snapshot.products.put(10L, new ProductRow(10L, "Widget"));
+        classUnderTest.load(snapshot);
+    }
+
+    @Test
+    void thatAnOrderFromTheLogIsJoinedWithItsCustomerAndProducts() {
+        classUnderTest.apply(List.of(
+                insert("order", Map.of("id", "5", "description", "Order", "customer_id", "1")),
+                insert("order_product", Map.of("order_id", "5", "product_id", "10"))));
+
+        OrderDTO order = classUnderTest.order(5L).orElseThrow();
+        assertThat(order.getCustomer().getName(), is("John Smith"));
+        assertThat(order.getProducts().get(0).getDescription(), is("Widget"));
+        CustomerDTO customer = classUnderTest.customerPage(0, 10).getItems().get(0);
+        assertThat(customer.getOrders().stream().map(CustomerOrderDTO::getId).toList(), contains(5L));
+        assertThat(classUnderTest.product(10L).orElseThrow().getOrders(), contains(5L));
+        verify(eventPublisher).publishEvent(new RemoteChangeEvent(VersionedCollection.ORDERS, 1L));
+    }
+
+    @Test
+    void thatOwnWritesComingBackFromTheLogAreNotPublished() {
+        classUnderTest.onOrderCreated(new OrderCreatedEvent(order()));
+        OrderDTO applied = classUnderTest.order(5L).orElseThrow();
+
+        classUnderTest.apply(List.of(
+                insert("order", Map.of("id", "5", "description", "Order", "customer_id", "1")),
+                insert("order_product", Map.of("order_id", "5", "product_id", "10"))));
+
+        assertThat(classUnderTest.order(5L).orElseThrow(), sameInstance(applied));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void thatAnUpdateRebuildsTheDocumentsCarryingItAndFlushesTheCaches() {
+        classUnderTest.onOrderCreated(new OrderCreatedEvent(order()));
+
+        classUnderTest.apply(List.of(
+                new RowChange(Kind.UPDATE, "customer", null, Map.of("id", "1", "name", "John Smyth"))));
+
+        assertThat(classUnderTest.order(5L).orElseThrow().getCustomer().getName(), is("John Smyth"));
+        assertThat(classUnderTest.customers().get(0).getName(), is("John Smyth"));
+        verify(eventPublisher).publishEvent(any(CacheCoherenceLostEvent.class));
+    }
+
+    @Test
+    void thatADeletedOrderLeavesItsCustomerAndProduct() {
+        classUnderTest.onOrderCreated(new OrderCreatedEvent(order()));
+
+        classUnderTest.apply(List.of(
+                new RowChange(Kind.DELETE, "order_product", Map.of("order_id", "5", "product_id", "10"), null),
+                new RowChange(Kind.DELETE, "order", Map.of("id", "5"), null)));
+
+        assertThat(classUnderTest.order(5L).isPresent(), is(false));
+        assertThat(classUnderTest.customers().get(0).getOrders(), is(List.of()));
+        assertThat(classUnderTest.product(10L).orElseThrow().getOrders(), is(List.of()));
+    }
+
+    private static RowChange insert(String table, Map<String, String> values) {
+        return new RowChange(Kind.INSERT, table, null, values);
+    }
+
+    private static OrderDTO order() {
+        OrderCustomerDTO customer = new OrderCustomerDTO();
+        customer.setId(1L);
+        customer.setName("John Smith");
+        OrderProductDTO product = new OrderProductDTO();
+        product.setId(10L);
+        product.setDescription("Widget");
+        OrderDTO order = new OrderDTO();
+        order.setId(5L);
+        order.setDescription("Order");
+        order.setCustomer(customer);
+        order.setProducts(List.of(product));
+        return order;
+    }
+}
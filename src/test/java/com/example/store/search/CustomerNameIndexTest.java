@@ -0,0 +1,135 @@
+package com.example.store.search;
+
+import com.example.store.cache.VersionedCollection;
+import com.example.store.dto.CustomerSuggestionDTO;
+import com.example.store.entity.CustomerNameProjection;
+import com.example.store.event.CacheCoherenceLostEvent;
+import com.example.store.event.RemoteChangeEvent;
+import com.example.store.repository.CustomerRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerNameIndexTest {
+
+    private CustomerRepository customerRepository;
+    private CustomerNameIndex classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        customerRepository = mock(CustomerRepository.class);
+        when(customerRepository.findAllNames())
+                .thenReturn(List.of(
+                        projection(1L, "John Smith"), projection(2L, "Jack Mitheral"), projection(3L, "Johnny Doe")));
+        classUnderTest = new CustomerNameIndex(customerRepository);
+        classUnderTest.build();
+    }
+
+    @Test
+    void thatAnyWordInTheNameIsCompleted() {
+        assertThat(names(classUnderTest.complete("SMI", 10)), contains("John Smith"));
+        assertThat(names(classUnderTest.complete("mit", 10)), contains("Jack Mitheral"));
+    }
+
+    @Test
+    void thatShorterCompletionsComeFirst() {
+        assertThat(names(classUnderTest.complete("jo", 10)), contains("John Smith", "Johnny Doe"));
+    }
+
+    @Test
+    void thatCompletionsAreOrderedByLengthBeforeTheAlphabet() {
+        classUnderTest.add(4L, "Joanna Brown");
+        classUnderTest.add(5L, "Jon Snow");
+
+        assertThat(
+                names(classUnderTest.complete("jo", 10)),
+                contains("Jon Snow", "John Smith", "Joanna Brown", "Johnny Doe"));
+    }
+
+    @Test
+    void thatEarlierTokensQualifyTheSuggestions() {
+        assertThat(names(classUnderTest.complete("john d", 10)), contains("Johnny Doe"));
+        assertThat(names(classUnderTest.complete("jack s", 10)), is(empty()));
+    }
+
+    @Test
+    void thatSuggestionsAreLimited() {
+        assertThat(names(classUnderTest.complete("j", 2)), contains("Jack Mitheral", "John Smith"));
+    }
+
+    @Test
+    void thatTheShortestCompletionsAreSuggestedFromMany() {
+        for (long id = 10; id < 60; id++) {
+            classUnderTest.add(id, "Jo" + "o".repeat((int) id) + " Bloggs");
+        }
+        classUnderTest.add(4L, "Jon Snow");
+
+        assertThat(names(classUnderTest.complete("jo", 3)), contains("Jon Snow", "John Smith", "Johnny Doe"));
+    }
+
+    @Test
+    void thatCompletionsRuledOutByTheQualifiersArePassedOver() {
+        classUnderTest.add(4L, "Sam Jo");
+        classUnderTest.add(5L, "Sue Joe");
+        classUnderTest.add(6L, "Tim Jon");
+
+        assertThat(names(classUnderTest.complete("john jo", 1)), contains("John Smith"));
+        assertThat(names(classUnderTest.complete("john jo", 10)), contains("John Smith", "Johnny Doe"));
+    }
+
+    @Test
+    void thatAddedCustomersAreSuggested() {
+        classUnderTest.add(4L, "Joan Smithers");
+
+        assertThat(names(classUnderTest.complete("smith", 10)), contains("John Smith", "Joan Smithers"));
+    }
+
+    @Test
+    void thatCustomersCreatedElsewhereAreSuggestedOnceReported() {
+        when(customerRepository.findAllNames())
+                .thenReturn(List.of(projection(1L, "John Smith"), projection(4L, "Joan Smithers")));
+
+        classUnderTest.onRemoteChange(new RemoteChangeEvent(VersionedCollection.ORDERS, 1L));
+        assertThat(names(classUnderTest.complete("smith", 10)), contains("John Smith"));
+
+        classUnderTest.onRemoteChange(new RemoteChangeEvent(VersionedCollection.CUSTOMERS, null));
+        assertThat(names(classUnderTest.complete("smith", 10)), contains("John Smith", "Joan Smithers"));
+    }
+
+    @Test
+    void thatAFailedRebuildKeepsTheCurrentIndex() {
+        when(customerRepository.findAllNames()).thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        classUnderTest.onCacheCoherenceLost(new CacheCoherenceLostEvent());
+
+        assertThat(names(classUnderTest.complete("smi", 10)), contains("John Smith"));
+    }
+
+    private List<String> names(List<CustomerSuggestionDTO> suggestions) {
+        return suggestions.stream().map(CustomerSuggestionDTO::getName).toList();
+    }
+
+    private CustomerNameProjection projection(Long id, String name) {
+        return new CustomerNameProjection() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}
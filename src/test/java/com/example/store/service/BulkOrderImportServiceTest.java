@@ -0,0 +1,172 @@
+package com.example.store.service;
+
+import com.example.store.dto.BulkOrderImportDTO;
+import com.example.store.event.OrdersImportedEvent;
+import com.example.store.repository.NewOrder;
+import com.example.store.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.MessageSource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkOrderImportServiceTest {
+
+    private OrderRepository orderRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private BulkOrderImportService classUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        MessageSource messageSource = mock(MessageSource.class);
+        when(messageSource.getMessage(eq("api.resource.not.found"), any(), any(Locale.class)))
+                .thenAnswer(a -> {
+                    Object[] args = a.getArgument(1);
+                    return args[0] + " " + args[1] + " not found";
+                });
+        when(messageSource.getMessage(eq("order.bulk.malformed"), any(), any(Locale.class)))
+                .thenReturn("Malformed");
+        when(messageSource.getMessage(eq("order.product.duplicate"), any(), any(Locale.class)))
+                .thenReturn("Duplicate");
+        when(orderRepository.findExistingCustomerIds(any())).thenReturn(Set.of(1L));
+        when(orderRepository.findExistingProductIds(any())).thenReturn(Set.of(10L, 11L));
+        when(orderRepository.allocateOrderIds(anyInt()))
+                .thenAnswer(a -> IntStream.rangeClosed(1, a.<Integer>getArgument(0))
+                        .mapToObj(i -> 100L + i)
+                        .toList());
+
+        classUnderTest = new BulkOrderImportService(
+                new ObjectMapper(),
+                orderRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                messageSource,
+                eventPublisher);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void thatValidLinesAreInsertedAndInvalidLinesReported() throws Exception {
+        String body = String.join(
+                "\n",
+                "{\"description\":\"first\",\"customer\":{\"id\":1},\"products\":[{\"id\":10},{\"id\":11}]}",
+                "not json",
+                "",
+                "{\"description\":\"unknown customer\",\"customer\":{\"id\":2},\"products\":[{\"id\":10}]}",
+                "{\"description\":\"unknown product\",\"customer\":{\"id\":1},\"products\":[{\"id\":12}]}",
+                "{\"description\":\"no products\",\"customer\":{\"id\":1},\"products\":[]}",
+                "{\"description\":\"second\",\"customer\":{\"id\":1},\"products\":[{\"id\":11}]}");
+
+        BulkOrderImportDTO result = classUnderTest.importOrders(input(body));
+
+        assertThat(result.getAccepted(), is(2L));
+        assertThat(result.getRejected(), is(4L));
+        // In line order, although lines 4 and 5 are only rejected once the chunk is imported
+        assertThat(
+                result.getErrors().stream().map(e -> e.getLine()).toList(), is(List.of(2L, 4L, 5L, 6L)));
+        assertThat(result.getErrors().get(1).getMessage(), is("Customer 2 not found"));
+        assertThat(result.getErrors().get(2).getMessage(), is("Product 12 not found"));
+        assertThat(result.getErrors().get(3).getMessage().startsWith("products:"), is(true));
+        verify(eventPublisher).publishEvent(new OrdersImportedEvent(2));
+
+        ArgumentCaptor<List<NewOrder>> captor = ArgumentCaptor.forClass(List.class);
+        verify(orderRepository).insertAll(captor.capture());
+        assertThat(
+                captor.getValue(),
+                is(List.of(
+                        new NewOrder(101L, "first", 1L, List.of(10L, 11L)),
+                        new NewOrder(102L, "second", 1L, List.of(11L)))));
+    }
+
+    @Test
+    void thatALineRepeatingAProductIsRejected() throws Exception {
+        String body = "{\"description\":\"twice\",\"customer\":{\"id\":1},\"products\":[{\"id\":10},{\"id\":10}]}";
+
+        BulkOrderImportDTO result = classUnderTest.importOrders(input(body));
+
+        assertThat(result.getAccepted(), is(0L));
+        assertThat(result.getErrors().get(0).getMessage(), is("Duplicate"));
+        verify(orderRepository, never()).insertAll(any());
+        verify(eventPublisher, never()).publishEvent(any(OrdersImportedEvent.class));
+    }
+
+    @Test
+    void thatTheLowestLinesAreReportedWhenTheErrorsAreTruncated() throws Exception {
+        String unknownCustomer = "{\"description\":\"order\",\"customer\":{\"id\":2},\"products\":[{\"id\":10}]}";
+        String body = unknownCustomer + "\n"
+                + IntStream.range(0, BulkOrderImportService.MAX_REPORTED_ERRORS + 1)
+                        .mapToObj(i -> "not json")
+                        .collect(Collectors.joining("\n"));
+
+        BulkOrderImportDTO result = classUnderTest.importOrders(input(body));
+
+        assertThat(result.getRejected(), is((long) BulkOrderImportService.MAX_REPORTED_ERRORS + 2));
+        assertThat(result.isErrorsTruncated(), is(true));
+        assertThat(result.getErrors().size(), is(BulkOrderImportService.MAX_REPORTED_ERRORS));
+        assertThat(result.getErrors().get(0).getMessage(), is("Customer 2 not found"));
+        assertThat(
+                result.getErrors().get(BulkOrderImportService.MAX_REPORTED_ERRORS - 1).getLine(),
+                is((long) BulkOrderImportService.MAX_REPORTED_ERRORS));
+    }
+
+    @Test
+    void thatLargeUploadsAreWrittenInChunks() throws Exception {
+        String line = "{\"description\":\"order\",\"customer\":{\"id\":1},\"products\":[{\"id\":10}]}";
+        String body = IntStream.range(0, BulkOrderImportService.CHUNK_SIZE * 2 + 1)
+                .mapToObj(i -> line)
+                .collect(Collectors.joining("\n"));
+
+        BulkOrderImportDTO result = classUnderTest.importOrders(input(body));
+
+        assertThat(result.getAccepted(), is((long) BulkOrderImportService.CHUNK_SIZE * 2 + 1));
+        verify(orderRepository, times(3)).insertAll(any());
+    }
+
+    @Test
+    void thatTheCachesAreToldAboutTheChunksCommittedBeforeAFailure() {
+        String line = "{\"description\":\"order\",\"customer\":{\"id\":1},\"products\":[{\"id\":10}]}";
+        String body = IntStream.range(0, BulkOrderImportService.CHUNK_SIZE * 2)
+                .mapToObj(i -> line)
+                .collect(Collectors.joining("\n"));
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("connection lost");
+        doNothing().doThrow(failure).when(orderRepository).insertAll(any());
+
+        assertThrows(DataAccessResourceFailureException.class, () -> classUnderTest.importOrders(input(body)));
+
+        verify(eventPublisher).publishEvent(new OrdersImportedEvent(BulkOrderImportService.CHUNK_SIZE));
+    }
+
+    private ByteArrayInputStream input(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}